@@ -0,0 +1,36 @@
+package net.sourceforge.javaocr.benchmarks;
+
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * runs benchmarks reporting throughput together with allocation rate from GC profiler.
+ * accepts usual JMH command line options, so single stages can be selected by regexp:
+ * <pre>
+ * java -jar benchmarks/target/benchmarks.jar Matching
+ * </pre>
+ */
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        ChainedOptionsBuilder options = new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .mode(Mode.Throughput)
+                .timeUnit(TimeUnit.SECONDS)
+                .addProfiler(GCProfiler.class);
+        // forked benchmark JVMs shall find samples the same way we do
+        final String samples = System.getProperty(Samples.SAMPLES_PROPERTY);
+        if (samples != null) {
+            options.jvmArgsAppend("-D" + Samples.SAMPLES_PROPERTY + "=" + samples);
+        }
+        new Runner(options.build()).run();
+    }
+}
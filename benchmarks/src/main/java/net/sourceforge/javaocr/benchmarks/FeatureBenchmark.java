@@ -0,0 +1,79 @@
+package net.sourceforge.javaocr.benchmarks;
+
+import net.sourceforge.javaocr.Image;
+import net.sourceforge.javaocr.ocr.PixelImage;
+import net.sourceforge.javaocr.plugin.cluster.MahalanobisDistanceCluster;
+import net.sourceforge.javaocr.plugin.moment.HuMoments;
+import net.sourceforge.javaocr.scanner.DocumentScanner;
+import net.sourceforge.javaocr.scanner.TrainingImage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * feature extraction and cluster matching of single characters.  characters of the sample
+ * are taken in turn, cluster is trained on the training sample
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class FeatureBenchmark {
+
+    @Param({Samples.PRINTED, Samples.HANDWRITING})
+    public String sample;
+
+    private final HuMoments huMoments = new HuMoments();
+    private Image[] glyphs;
+    private double[][] features;
+    private MahalanobisDistanceCluster cluster;
+    private int current;
+
+    @Setup
+    public void load() throws IOException {
+        DocumentScanner scanner = new DocumentScanner();
+        glyphs = toImages(Samples.glyphs(scanner, Samples.grayscale(sample)));
+        features = new double[glyphs.length][];
+        for (int i = 0; i < glyphs.length; i++) {
+            features[i] = huMoments.extract(glyphs[i]);
+        }
+        cluster = new MahalanobisDistanceCluster(huMoments.getSize());
+        for (Image image : toImages(Samples.glyphs(scanner, Samples.grayscale(Samples.TRAINING)))) {
+            cluster.train(huMoments.extract(image));
+        }
+        // compute inverse covariance matrix once, outside of measurement
+        cluster.distance(features[0]);
+    }
+
+    @Benchmark
+    public double[] huMoments() {
+        return huMoments.extract(glyphs[next()]);
+    }
+
+    @Benchmark
+    public double mahalanobisDistance() {
+        return cluster.distance(features[next()]);
+    }
+
+    private int next() {
+        current = (current + 1) % glyphs.length;
+        return current;
+    }
+
+    private static Image[] toImages(List<TrainingImage> glyphs) {
+        Image[] result = new Image[glyphs.size()];
+        for (int i = 0; i < result.length; i++) {
+            TrainingImage glyph = glyphs.get(i);
+            result[i] = new PixelImage(glyph.pixels, glyph.width, glyph.height);
+        }
+        return result;
+    }
+}
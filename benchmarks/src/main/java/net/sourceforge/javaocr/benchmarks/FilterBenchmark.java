@@ -0,0 +1,59 @@
+package net.sourceforge.javaocr.benchmarks;
+
+import net.sourceforge.javaocr.Image;
+import net.sourceforge.javaocr.filter.SauvolaBinarisationFilter;
+import net.sourceforge.javaocr.filter.StreamingSauvolaBinarisationFilter;
+import net.sourceforge.javaocr.ocr.PixelImage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * adaptive binarisation of grayscale document
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class FilterBenchmark {
+
+    @Param({Samples.PRINTED, Samples.HANDWRITING})
+    public String sample;
+
+    @Param({"15"})
+    public int window;
+
+    private Image source;
+    private Image destination;
+    private SauvolaBinarisationFilter sauvola;
+    private StreamingSauvolaBinarisationFilter streamingSauvola;
+
+    @Setup
+    public void load() throws IOException {
+        net.sourceforge.javaocr.scanner.PixelImage grayscale = Samples.rgb(sample);
+        grayscale.toGrayScale(true);
+        source = new PixelImage(grayscale.pixels, grayscale.width, grayscale.height);
+        destination = new PixelImage(grayscale.width, grayscale.height);
+        sauvola = new SauvolaBinarisationFilter(255, 0, destination, 256, 0.35, window);
+        streamingSauvola = new StreamingSauvolaBinarisationFilter(255, 0, destination, 256, 0.35, window);
+    }
+
+    @Benchmark
+    public Image sauvola() {
+        sauvola.process(source);
+        return destination;
+    }
+
+    @Benchmark
+    public Image streamingSauvola() {
+        streamingSauvola.process(source);
+        return destination;
+    }
+}
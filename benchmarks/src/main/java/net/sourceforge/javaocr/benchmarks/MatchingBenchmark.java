@@ -0,0 +1,88 @@
+package net.sourceforge.javaocr.benchmarks;
+
+import net.sourceforge.javaocr.scanner.DocumentScanner;
+import net.sourceforge.javaocr.scanner.TrainingImage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.korosoft.javaocr.core.MSEUtil;
+import org.korosoft.javaocr.core.MutableImage;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * template matching of single character against whole training set, as done for every
+ * character of the document.  characters of the sample are taken in turn
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class MatchingBenchmark {
+
+    @Param({Samples.PRINTED, Samples.HANDWRITING})
+    public String sample;
+
+    private TrainingImage[] training;
+    private TrainingImage[] glyphs;
+    private MutableImage[] mutableTraining;
+    private MutableImage[] mutableGlyphs;
+    private int current;
+
+    @Setup
+    public void load() throws IOException {
+        DocumentScanner scanner = new DocumentScanner();
+        training = toArray(Samples.glyphs(scanner, Samples.grayscale(Samples.TRAINING)));
+        glyphs = toArray(Samples.glyphs(scanner, Samples.grayscale(sample)));
+        mutableTraining = toMutable(training);
+        mutableGlyphs = toMutable(glyphs);
+    }
+
+    @Benchmark
+    public double calcMSE() {
+        final TrainingImage glyph = glyphs[next()];
+        double best = Double.MAX_VALUE;
+        for (TrainingImage trainingImage : training) {
+            best = Math.min(best, trainingImage.calcMSE(glyph.pixels, glyph.width, glyph.height, 0, 0, glyph.width, glyph.height));
+        }
+        return best;
+    }
+
+    @Benchmark
+    public long compareFast() {
+        final MutableImage glyph = mutableGlyphs[next()];
+        long best = Long.MAX_VALUE;
+        for (MutableImage trainingImage : mutableTraining) {
+            best = Math.min(best, MSEUtil.compareFast(glyph, trainingImage).squareError);
+        }
+        return best;
+    }
+
+    private int next() {
+        current = (current + 1) % glyphs.length;
+        return current;
+    }
+
+    private static TrainingImage[] toArray(List<TrainingImage> images) {
+        return images.toArray(new TrainingImage[images.size()]);
+    }
+
+    private static MutableImage[] toMutable(TrainingImage[] images) {
+        MutableImage[] result = new MutableImage[images.length];
+        for (int i = 0; i < images.length; i++) {
+            final int[] pixels = images[i].pixels;
+            byte[] bytes = new byte[pixels.length];
+            for (int p = 0; p < pixels.length; p++) {
+                bytes[p] = (byte) pixels[p];
+            }
+            result[i] = new MutableImage(bytes, 0, 0, images[i].width, images[i].height);
+        }
+        return result;
+    }
+}
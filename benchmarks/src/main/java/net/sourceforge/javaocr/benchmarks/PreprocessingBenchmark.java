@@ -0,0 +1,79 @@
+package net.sourceforge.javaocr.benchmarks;
+
+import net.sourceforge.javaocr.ocrPlugins.imgShearer.ImageShearer;
+import net.sourceforge.javaocr.ocrPlugins.levelsCorrector.LevelsCorrector;
+import net.sourceforge.javaocr.ocrPlugins.receiptFinder.ReceiptFinder;
+import net.sourceforge.javaocr.scanner.DocumentScanner;
+import net.sourceforge.javaocr.scanner.PixelImage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * image preparation stages of OCR scanner, in the order they are applied.  most of them
+ * work in place, so every invocation works on fresh copy of the input. copying is cheap
+ * compared to the stages, but shows up in allocation rate
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class PreprocessingBenchmark {
+
+    @Param({Samples.PRINTED, Samples.SENTENCE, Samples.HANDWRITING})
+    public String sample;
+
+    private final DocumentScanner documentScanner = new DocumentScanner();
+    private final LevelsCorrector levelsCorrector = new LevelsCorrector();
+    private final ReceiptFinder receiptFinder = new ReceiptFinder();
+    private final ImageShearer imageShearer = new ImageShearer();
+
+    private PixelImage rgb;
+    private PixelImage grayscale;
+
+    @Setup
+    public void load() throws IOException {
+        rgb = Samples.rgb(sample);
+        grayscale = Samples.grayscale(sample);
+    }
+
+    @Benchmark
+    public PixelImage toGrayScale() {
+        PixelImage image = Samples.copy(rgb);
+        image.toGrayScale(true);
+        return image;
+    }
+
+    @Benchmark
+    public PixelImage filter() {
+        PixelImage image = Samples.copy(grayscale);
+        image.filter();
+        return image;
+    }
+
+    @Benchmark
+    public PixelImage adjustImageLevels() {
+        PixelImage image = Samples.copy(grayscale);
+        levelsCorrector.adjustImageLevels(image);
+        return image;
+    }
+
+    @Benchmark
+    public PixelImage findReceipt() {
+        PixelImage image = Samples.copy(grayscale);
+        receiptFinder.findReceipt(documentScanner, image);
+        return image;
+    }
+
+    @Benchmark
+    public PixelImage shearImage() {
+        return imageShearer.shearImage(documentScanner, grayscale);
+    }
+}
@@ -0,0 +1,111 @@
+package net.sourceforge.javaocr.benchmarks;
+
+import net.sourceforge.javaocr.scanner.DocumentScanner;
+import net.sourceforge.javaocr.scanner.DocumentScannerListenerAdaptor;
+import net.sourceforge.javaocr.scanner.PixelImage;
+import net.sourceforge.javaocr.scanner.TrainingImage;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * loads sample images shipped with project for benchmarks.  images are looked up relative to
+ * directory given by system property <code>javaocr.samples</code>, or to current / parent directory
+ * so benchmarks can be started from project root as well as from benchmark module
+ */
+public final class Samples {
+    public static final String SAMPLES_PROPERTY = "javaocr.samples";
+
+    /**
+     * sample documents, usable as benchmark parameters
+     */
+    public static final String PRINTED = "ocrTests/hpljPicaSample.jpg";
+    public static final String SENTENCE = "ocrTests/asciiSentence.png";
+    public static final String HANDWRITING = "handwritingTests/lowerCaseAtoZTarget.jpg";
+    public static final String TRAINING = "ocrTests/trainingImages/hpljPica.jpg";
+
+    private Samples() {
+    }
+
+    /**
+     * locate sample file
+     *
+     * @param name file name relative to project root
+     * @return existing file
+     * @throws FileNotFoundException if there is no such sample
+     */
+    public static File file(String name) throws FileNotFoundException {
+        String root = System.getProperty(SAMPLES_PROPERTY);
+        String[] candidates = root != null ? new String[]{root} : new String[]{".", ".."};
+        for (String candidate : candidates) {
+            File file = new File(candidate, name);
+            if (file.isFile()) {
+                return file;
+            }
+        }
+        throw new FileNotFoundException("sample " + name + " not found, set -D" + SAMPLES_PROPERTY + " to project root");
+    }
+
+    /**
+     * @return decoded sample image
+     */
+    public static BufferedImage read(String name) throws IOException {
+        return ImageIO.read(file(name));
+    }
+
+    /**
+     * @return RGBA pixels of sample image
+     */
+    public static PixelImage rgb(String name) throws IOException {
+        BufferedImage image = read(name);
+        final int width = image.getWidth();
+        final int height = image.getHeight();
+        return new PixelImage(image.getRGB(0, 0, width, height, null, 0, width), width, height);
+    }
+
+    /**
+     * @return sample image brought into the same shape as OCR scanner uses for its documents
+     */
+    public static PixelImage grayscale(String name) throws IOException {
+        PixelImage image = rgb(name);
+        image.toGrayScale(true);
+        image.filter();
+        return image;
+    }
+
+    /**
+     * @return fresh copy of pixel image, for stages working in place
+     */
+    public static PixelImage copy(PixelImage image) {
+        return new PixelImage(image.pixels.clone(), image.width, image.height);
+    }
+
+    /**
+     * scan document and cut out every character
+     *
+     * @param scanner document scanner
+     * @param image   grayscale document
+     * @return character images, with their position in row recorded as training image white space
+     */
+    public static List<TrainingImage> glyphs(DocumentScanner scanner, PixelImage image) {
+        final List<TrainingImage> glyphs = new ArrayList<TrainingImage>();
+        scanner.scan(image, new DocumentScannerListenerAdaptor() {
+            @Override
+            public void processChar(PixelImage pixelImage, int x1, int y1, int x2, int y2, int rowY1, int rowY2) {
+                final int w = x2 - x1;
+                final int h = y2 - y1;
+                int[] pixels = new int[w * h];
+                for (int y = y1, destY = 0; y < y2; y++, destY++) {
+                    System.arraycopy(pixelImage.pixels, (y * pixelImage.width) + x1, pixels, destY * w, w);
+                }
+                glyphs.add(new TrainingImage(pixels, w, h, y1 - rowY1, rowY2 - y2));
+            }
+        }, 0, 0, 0, 0);
+        return glyphs;
+    }
+}
@@ -0,0 +1,53 @@
+package net.sourceforge.javaocr.benchmarks;
+
+import net.sourceforge.javaocr.scanner.DocumentScanner;
+import net.sourceforge.javaocr.scanner.DocumentScannerListenerAdaptor;
+import net.sourceforge.javaocr.scanner.PixelImage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * segmentation of prepared document into rows and characters
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class ScannerBenchmark {
+
+    @Param({Samples.PRINTED, Samples.SENTENCE, Samples.HANDWRITING})
+    public String sample;
+
+    private final DocumentScanner documentScanner = new DocumentScanner();
+    private final CountingListener listener = new CountingListener();
+    private PixelImage image;
+
+    @Setup
+    public void load() throws IOException {
+        image = Samples.grayscale(sample);
+    }
+
+    @Benchmark
+    public int scan() {
+        listener.characters = 0;
+        documentScanner.scan(image, listener, 0, 0, 0, 0);
+        return listener.characters;
+    }
+
+    static class CountingListener extends DocumentScannerListenerAdaptor {
+        int characters;
+
+        @Override
+        public void processChar(PixelImage pixelImage, int x1, int y1, int x2, int y2, int rowY1, int rowY2) {
+            characters++;
+        }
+    }
+}
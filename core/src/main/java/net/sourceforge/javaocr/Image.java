@@ -5,11 +5,15 @@ package net.sourceforge.javaocr;
  * (especially storage layout or actual pixel representation). Images provide way to iterate
  * over it (thus, they are statefull and NOT thread safe), and retrieve and set current pixel.
  * Convenience methods to set given pixels are provided, but iterating methods shall be used for
- * high performance bulk operations
+ * high performance bulk operations.
+ * <p/>
+ * Span iterators ( {@link #spanH(int)}, {@link #spanV(int)} ) traverse image the same way, but
+ * keep their position by themselves and do not touch image state. Use them when image is shared
+ * between threads.
  *
  * @author Konstantin Pribluda
  */
-public interface Image {
+public interface Image extends SpanIterator {
 
 
     /**
@@ -111,6 +115,66 @@ public interface Image {
      */
     void iterateV(int x, int from, int to);
 
+    /**
+     * independent iterator over whole image row
+     *
+     * @param y row
+     * @return span iterator, does not modify current image pointer
+     */
+    SpanIterator spanH(int y);
+
+    /**
+     * independent iterator over part of row
+     *
+     * @param y    row
+     * @param from from position
+     * @param to   to position (inclusive)
+     * @return span iterator, does not modify current image pointer
+     */
+    SpanIterator spanH(int y, int from, int to);
+
+    /**
+     * independent iterator over whole image column
+     *
+     * @param x column
+     * @return span iterator, does not modify current image pointer
+     */
+    SpanIterator spanV(int x);
+
+    /**
+     * independent iterator over part of column
+     *
+     * @param x    column
+     * @param from from position
+     * @param to   to position (inclusive)
+     * @return span iterator, does not modify current image pointer
+     */
+    SpanIterator spanV(int x, int from, int to);
+
+    /**
+     * bulk read of image row, does not modify current image pointer
+     *
+     * @param y   row
+     * @param dst destination, receives {@link #getWidth()} pixels starting from 0
+     */
+    void readRow(int y, int[] dst);
+
+    /**
+     * bulk write of image row, does not modify current image pointer
+     *
+     * @param y   row
+     * @param src source, {@link #getWidth()} pixels starting from 0
+     */
+    void writeRow(int y, int[] src);
+
+    /**
+     * replace every pixel with lookup table entry indexed by its value. does not modify
+     * current image pointer
+     *
+     * @param lut lookup table, shall cover all the pixel values present in image
+     */
+    void applyLut(int[] lut);
+
     /**
      * advance and retrieve next available pixel
      *
@@ -0,0 +1,42 @@
+package net.sourceforge.javaocr;
+
+/**
+ * iterator over horizontal or vertical span of image pixels. images iterate over themselves
+ * (and are thus stateful),  spans obtained with {@link Image#spanH(int)} and friends keep their
+ * own position and leave image alone - any number of them can be used on the same image concurrently,
+ * as long as they do not write the same pixels
+ */
+public interface SpanIterator {
+    /**
+     * whether next pixel is available
+     *
+     * @return
+     */
+    boolean hasNext();
+
+    /**
+     * advance and retrieve next available pixel
+     *
+     * @return
+     */
+    int next();
+
+    /**
+     * store and advance to next pixel
+     */
+    void next(int pixel);
+
+    /**
+     * retrieve pixel at current position, does not advance
+     *
+     * @return
+     */
+    int get();
+
+    /**
+     * store pixel at current position, does not advance
+     *
+     * @param value
+     */
+    void put(int value);
+}
@@ -2,16 +2,13 @@ package net.sourceforge.javaocr.filter;
 
 import net.sourceforge.javaocr.Image;
 import net.sourceforge.javaocr.ImageFilter;
-import net.sourceforge.javaocr.ocr.PixelImage;
 
 public abstract class AbstractIntegralImageFilter implements ImageFilter {
 
     Image resultImage;
-    Image empty;
 
     public AbstractIntegralImageFilter(Image resultImage) {
         this.resultImage = resultImage;
-        empty = new PixelImage(resultImage.getWidth(), 1);
     }
 
     /**
@@ -23,20 +20,26 @@ public abstract class AbstractIntegralImageFilter implements ImageFilter {
      */
     public void process(Image image) {
         final int height = image.getHeight();
+        final int width = image.getWidth();
+        final int[] source = new int[width];
+        int[] previous = new int[width];
+        int[] current = new int[width];
         int cumulated;
 
         for (int i = 0; i < height; i++) {
 
             cumulated = 0;
-            // iterate over all the  scans
-            Image sourceScan = image.row(i);
-            Image destinationScan = resultImage.row(i);
-            Image previous = i > 0 ? resultImage.row(i - 1) : empty;
-
-            for (sourceScan.iterateH(0), destinationScan.iterateH(0), previous.iterateH(0); sourceScan.hasNext();) {
-                cumulated += processPixel(sourceScan.next());
-                destinationScan.next(cumulated + previous.next());
+            // whole rows are read and written at once
+            image.readRow(i, source);
+            for (int x = 0; x < width; x++) {
+                cumulated += processPixel(source[x]);
+                current[x] = cumulated + previous[x];
             }
+            resultImage.writeRow(i, current);
+
+            final int[] swap = previous;
+            previous = current;
+            current = swap;
         }
     }
 
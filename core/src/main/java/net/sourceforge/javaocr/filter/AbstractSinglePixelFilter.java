@@ -2,24 +2,26 @@ package net.sourceforge.javaocr.filter;
 
 import net.sourceforge.javaocr.Image;
 import net.sourceforge.javaocr.ImageFilter;
+import net.sourceforge.javaocr.SpanIterator;
 
 /**
- * abstract base class for filters operating on single pixels
+ * abstract base class for filters operating on single pixels.  pixels are visited with
+ * span iterators, so processing does not touch image state
  */
 public abstract class AbstractSinglePixelFilter implements ImageFilter {
     public void process(Image image) {
         final int height = image.getHeight();
         for (int i = 0; i < height; i++) {
-            for (image.iterateH(i); image.hasNext();) {
-                processPixel(image);
+            for (SpanIterator span = image.spanH(i); span.hasNext();) {
+                processPixel(span);
             }
         }
     }
 
     /**
-     * process single image pixel subclass shall retrieve current pixel value with image.next()
-     * and store it with image.put() after processing
-     * @param image
+     * process single image pixel subclass shall retrieve current pixel value with span.next()
+     * and store it with span.put() after processing
+     * @param span
      */
-    protected abstract void processPixel(Image image);
+    protected abstract void processPixel(SpanIterator span);
 }
@@ -2,6 +2,7 @@ package net.sourceforge.javaocr.filter;
 
 import net.sourceforge.javaocr.Image;
 import net.sourceforge.javaocr.ImageFilter;
+import net.sourceforge.javaocr.SpanIterator;
 
 /**
  * Filter used to subtract a previously known background from an image. 
@@ -37,11 +38,11 @@ public class BackgroundSubtractionFilter implements ImageFilter {
         final int height = image.getHeight();
         
         for (int i = 0; i < height; i++) {
-            for (image.iterateH(i), bgImage.iterateH(i); 
-            	image.hasNext() && bgImage.hasNext();) {
+            for (SpanIterator span = image.spanH(i), bgSpan = bgImage.spanH(i);
+            	span.hasNext() && bgSpan.hasNext();) {
             	
-            	int pixel = Math.abs(image.next() - bgImage.next());
-                if (image.get() > min && image.get() < max) image.put(pixel);
+            	int pixel = Math.abs(span.next() - bgSpan.next());
+                if (span.get() > min && span.get() < max) span.put(pixel);
                 
             }
         }
@@ -1,11 +1,21 @@
 package net.sourceforge.javaocr.filter;
 
 import net.sourceforge.javaocr.Image;
+import net.sourceforge.javaocr.SpanIterator;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 /**
- * collect image histogram and perform useful calculations on it
+ * collect image histogram and perform useful calculations on it.  Histogram is accumulated
+ * over processed images until reset.  Image rows are read in bulk, and can be split into strips
+ * counted in parallel into their own histograms which are merged afterwards.  Thresholds are
+ * computed from cumulative sums of histogram.
  *
  * @author Konstantin Pribluda
  */
@@ -29,9 +39,99 @@ public class HistogramFilter extends AbstractSinglePixelFilter {
     }
 
     @Override
-    protected void processPixel(Image image) {
+    public void process(Image image) {
+        process(image, null, 1);
+    }
+
+    /**
+     * collect histogram of image, or estimate it by sampling
+     *
+     * @param image    image to be processed
+     * @param executor executor to count strips of image on,  or <code>null</code> to count
+     *                 on the calling thread.  It is not shut down.
+     * @param stride   only every stride-th pixel of every stride-th row is counted,
+     *                 1 counts all the pixels
+     */
+    public void process(final Image image, ExecutorService executor, final int stride) {
+        if (stride < 1) {
+            throw new IllegalArgumentException("stride shall be positive");
+        }
+        final int rows = (image.getHeight() + stride - 1) / stride;
+        int strips = executor == null ? 1 : Math.min(Runtime.getRuntime().availableProcessors(), rows);
+        if (strips <= 1) {
+            totalCount += count(image, 0, rows, stride, histogramm);
+            return;
+        }
+
+        List<Future<int[]>> results = new ArrayList<Future<int[]>>(strips);
+        try {
+            for (int i = 0; i < strips; i++) {
+                final int from = (int) ((long) rows * i / strips);
+                final int to = (int) ((long) rows * (i + 1) / strips);
+                results.add(executor.submit(new Callable<int[]>() {
+                    public int[] call() {
+                        int[] bins = new int[AMOUNT_BINS];
+                        count(image, from, to, stride, bins);
+                        return bins;
+                    }
+                }));
+            }
+            for (Future<int[]> result : results) {
+                final int[] bins = result.get();
+                for (int i = 0; i < AMOUNT_BINS; i++) {
+                    histogramm[i] += bins[i];
+                    totalCount += bins[i];
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("interrupted while collecting histogram", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new RuntimeException("histogram collection failed", e.getCause());
+        } finally {
+            for (Future<int[]> result : results) {
+                result.cancel(true);
+            }
+        }
+    }
+
+    /**
+     * count sampled rows <code>from</code> (inclusive) to <code>to</code> (exclusive) into bins
+     *
+     * @return amount of counted pixels
+     */
+    private static int count(Image image, int from, int to, int stride, int[] bins) {
+        final int width = image.getWidth();
+        int counted = 0;
+        if (stride > 1) {
+            // sampled rows are too sparse to be worth reading whole
+            for (int i = from; i < to; i++) {
+                final int y = i * stride;
+                for (int x = 0; x < width; x += stride) {
+                    bins[image.get(x, y)]++;
+                    counted++;
+                }
+            }
+            return counted;
+        }
+        final int[] row = new int[width];
+        for (int y = from; y < to; y++) {
+            image.readRow(y, row);
+            for (int x = 0; x < width; x++) {
+                bins[row[x]]++;
+            }
+            counted += width;
+        }
+        return counted;
+    }
+
+    @Override
+    protected void processPixel(SpanIterator span) {
         totalCount++;
-        histogramm[image.next()]++;
+        histogramm[span.next()]++;
     }
 
     /**
@@ -77,20 +177,69 @@ public class HistogramFilter extends AbstractSinglePixelFilter {
     }
 
     /**
-     * recursively compute adaptive threshold
+     * iteratively compute adaptive threshold: threshold is moved to the middle between
+     * means of values below and above it until it does not move any more
      *
      * @param threshold start value for threshold computation
      * @return
      */
     public int adaptiveThreshold(int threshold) {
-        //System.err.println("computing threshold from:" + threshold);
-        int mLeft = computeM(0, threshold);
-        int mRight = computeM(threshold, AMOUNT_BINS);
-        //System.err.println("left: " + mLeft + " right: " + mRight);
-        int newThr = (mLeft + mRight) / 2;
-        if(Math.abs(newThr - threshold) <= 1)
-            return threshold;
-        return adaptiveThreshold(newThr);
+        final long[] counts = new long[AMOUNT_BINS + 1];
+        final long[] sums = new long[AMOUNT_BINS + 1];
+        cumulate(counts, sums);
+        // converges in few steps, limit only guards against oscillation
+        for (int i = 0; i < AMOUNT_BINS; i++) {
+            int mLeft = computeM(counts, sums, 0, threshold);
+            int mRight = computeM(counts, sums, threshold, AMOUNT_BINS);
+            int newThr = (mLeft + mRight) / 2;
+            if (Math.abs(newThr - threshold) <= 1)
+                return threshold;
+            threshold = newThr;
+        }
+        return threshold;
+    }
+
+    /**
+     * compute threshold with Otsu method - one maximizing variance between
+     * values below or equal to threshold and values above it
+     *
+     * @return threshold, suitable for {@link ThresholdFilter}
+     */
+    public int otsuThreshold() {
+        final long[] counts = new long[AMOUNT_BINS + 1];
+        final long[] sums = new long[AMOUNT_BINS + 1];
+        cumulate(counts, sums);
+        final double total = counts[AMOUNT_BINS];
+        final double sum = sums[AMOUNT_BINS];
+        int threshold = 0;
+        double best = -1;
+        for (int t = 0; t < AMOUNT_BINS; t++) {
+            final double below = counts[t + 1];
+            final double above = total - below;
+            if (below == 0 || above == 0) {
+                continue;
+            }
+            final double difference = sums[t + 1] / below - (sum - sums[t + 1]) / above;
+            final double variance = below * above * difference * difference;
+            if (variance > best) {
+                best = variance;
+                threshold = t;
+            }
+        }
+        return threshold;
+    }
+
+    /**
+     * cumulative sums of histogram, element <code>i</code> covers bins below <code>i</code>
+     *
+     * @param counts receives cumulative counts
+     * @param sums   receives cumulative values
+     */
+    private void cumulate(long[] counts, long[] sums) {
+        for (int i = 0; i < AMOUNT_BINS; i++) {
+            counts[i + 1] = counts[i] + histogramm[i];
+            sums[i + 1] = sums[i] + (long) histogramm[i] * i;
+        }
     }
 
     /**
@@ -100,14 +249,9 @@ public class HistogramFilter extends AbstractSinglePixelFilter {
      * @param to   too value (exclusive)
      * @return
      */
-    private int computeM(int from, int to) {
-        float retval = 0;
-        float norm = 0;
-        for (int i = from; i < to; i++) {
-            retval += histogramm[i] * i;
-            norm += histogramm[i];
-        }
-        if(norm == 0) norm = 1;
-        return (int)(retval / norm);
+    private static int computeM(long[] counts, long[] sums, int from, int to) {
+        long norm = counts[to] - counts[from];
+        if (norm == 0) norm = 1;
+        return (int) ((sums[to] - sums[from]) / norm);
     }
 }
@@ -1,6 +1,7 @@
 package net.sourceforge.javaocr.filter;
 
 import net.sourceforge.javaocr.Image;
+import net.sourceforge.javaocr.SpanIterator;
 
 /**
  * apply lookup table to image
@@ -17,8 +18,18 @@ public class LookupTableFilter extends AbstractSinglePixelFilter {
         this.lut = lut;
     }
 
+    /**
+     * lookup table is applied by image in bulk
+     *
+     * @param image image to be processed
+     */
+    @Override
+    public void process(Image image) {
+        image.applyLut(lut);
+    }
+
     @Override
-    protected void processPixel(Image image) {
-         image.put(lut[image.next()]);
+    protected void processPixel(SpanIterator span) {
+         span.put(lut[span.next()]);
     }
 }
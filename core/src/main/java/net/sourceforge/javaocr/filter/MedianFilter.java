@@ -4,8 +4,18 @@ import net.sourceforge.javaocr.Image;
 import net.sourceforge.javaocr.ImageFilter;
 import net.sourceforge.javaocr.ocr.PixelImage;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
 /**
  * applies median filter to image ( pixel is Mx from  his window)
+ * <p/>
+ * window sums are looked up directly in integral image array: index of top left window corner is computed
+ * once per row and advanced along it, other corners are at fixed offsets. Result is written row by row,
+ * and rows can be split into bands processed in parallel
  */
 public class MedianFilter implements ImageFilter {
     final Image destination;
@@ -35,30 +45,118 @@ public class MedianFilter implements ImageFilter {
 
 
     public void process(Image image) {
+        process(image, null);
+    }
+
+    /**
+     * process image, splitting it into horizontal bands
+     *
+     * @param image    image to be processed
+     * @param executor executor to process bands on,  or <code>null</code> to process whole
+     *                 image on the calling thread.  It is not shut down.
+     */
+    public void process(final Image image, ExecutorService executor) {
 
         // calculate means
-        integralImageFilter.process(image);
+        computeIntegrals(image);
 
         final int height = image.getHeight();
-        final int width = image.getWidth();
 
         // since processing result on image borders is  invalid,
         // we just ignore them for sake of performance.  caller shall take care about proper padding
+        final int minY = halfWindow;
         final int maxY = height - halfWindow;
-        final int maxX = width - halfWindow;
-        for (int y = halfWindow; y < maxY; y++) {
+        if (minY >= maxY) {
+            return;
+        }
+        int bands = executor == null ? 1 : Math.min(Runtime.getRuntime().availableProcessors(), maxY - minY);
+        if (bands <= 1) {
+            processRows(image, minY, maxY);
+            return;
+        }
+
+        List<Future<?>> results = new ArrayList<Future<?>>(bands);
+        try {
+            for (int i = 0; i < bands; i++) {
+                final int from = minY + (int) ((long) (maxY - minY) * i / bands);
+                final int to = minY + (int) ((long) (maxY - minY) * (i + 1) / bands);
+                results.add(executor.submit(new Runnable() {
+                    public void run() {
+                        processRows(image, from, to);
+                    }
+                }));
+            }
+            for (Future<?> result : results) {
+                result.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("interrupted while filtering", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new RuntimeException("filtering failed", e.getCause());
+        } finally {
+            for (Future<?> result : results) {
+                result.cancel(true);
+            }
+        }
+    }
 
-            for (int x = halfWindow; x < maxX; x++) {
-                destination.put(x, y, computePixel(image, y, x));
+    /**
+     * compute integral images used by {@link #computePixel(int, int)}
+     */
+    protected void computeIntegrals(Image image) {
+        integralImageFilter.process(image);
+    }
+
+    /**
+     * process rows from <code>fromY</code> (inclusive) to <code>toY</code> (exclusive),
+     * uses only its own row buffers
+     */
+    void processRows(Image image, int fromY, int toY) {
+        final int width = image.getWidth();
+        final int minX = halfWindow;
+        final int maxX = width - halfWindow;
+        final int[] source = new int[width];
+        final int[] row = new int[destination.getWidth()];
+        for (int y = fromY; y < toY; y++) {
+            image.readRow(y, source);
+            destination.readRow(y, row);
+            // index of (x - halfWindow, y - halfWindow) in integral image
+            int topLeft = index(minX - halfWindow, y - halfWindow);
+            for (int x = minX; x < maxX; x++, topLeft++) {
+                row[x] = computePixel(source[x], topLeft);
             }
+            destination.writeRow(y, row);
         }
     }
 
     /**
      * compute median pixel value
+     *
+     * @param value   source pixel value
+     * @param topLeft array index of top left window corner in integral image
+     */
+    protected int computePixel(int value, int topLeft) {
+        return windowSum(augmentedMeanImage.pixels, topLeft) / squareWindow;
+    }
+
+    /**
+     * @return sum of values in window, looked up in integral image array
+     */
+    final int windowSum(int[] integral, int topLeft) {
+        final int right = 2 * halfWindow;
+        final int down = right * augmentedMeanImage.getWidth();
+        return integral[topLeft] + integral[topLeft + down + right] -
+                integral[topLeft + right] - integral[topLeft + down];
+    }
+
+    /**
+     * @return array index of pixel <code>x,y</code> of integral image inside augmented image
      */
-    protected int computePixel(Image image, int y, int x) {
-        return (meanImage.get(x - halfWindow, y - halfWindow) + meanImage.get(x + halfWindow, y + halfWindow) -
-                meanImage.get(x + halfWindow, y - halfWindow) - meanImage.get(x - halfWindow, y + halfWindow)) / squareWindow;
+    final int index(int x, int y) {
+        return (y + halfWindow) * augmentedMeanImage.getWidth() + x + halfWindow;
     }
 }
@@ -1,6 +1,7 @@
 package net.sourceforge.javaocr.filter;
 
 import net.sourceforge.javaocr.Image;
+import net.sourceforge.javaocr.SpanIterator;
 
 /**
  * converts RGBA image to grayscale
@@ -33,14 +34,36 @@ public class RGBAToGrayscale extends AbstractSinglePixelFilter {
         this.cR = cR;
     }
 
+    /**
+     * convert image row by row in bulk
+     *
+     * @param image image to be processed
+     */
+    @Override
+    public void process(Image image) {
+        final int width = image.getWidth();
+        final int height = image.getHeight();
+        final int[] row = new int[width];
+        for (int y = 0; y < height; y++) {
+            image.readRow(y, row);
+            for (int i = 0; i < width; i++) {
+                row[i] = convert(row[i]);
+            }
+            image.writeRow(y, row);
+        }
+    }
+
     /**
      * convert RGBA to grayscale
      *
-     * @param image to be processed
+     * @param span to be processed
      */
     @Override
-    protected void processPixel(Image image) {
-        final int pixel = image.next();
+    protected void processPixel(SpanIterator span) {
+        span.put(convert(span.next()));
+    }
+
+    private int convert(int pixel) {
         final int r = (pixel >> 16) & 0xff;
         final int g = (pixel >> 8) & 0xff;
         final int b = pixel & 0xff;
@@ -50,6 +73,6 @@ public class RGBAToGrayscale extends AbstractSinglePixelFilter {
         } else if (Y > 255) {
             Y = 255;
         }
-        image.put(Y);
+        return Y;
     }
 }
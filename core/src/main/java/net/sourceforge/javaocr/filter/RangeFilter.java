@@ -1,6 +1,7 @@
 package net.sourceforge.javaocr.filter;
 
 import net.sourceforge.javaocr.Image;
+import net.sourceforge.javaocr.SpanIterator;
 
 /**
  * gather min and max values from supplied pixels
@@ -19,9 +20,33 @@ public class RangeFilter extends AbstractSinglePixelFilter {
         return min;
     }
 
+    /**
+     * gather range row by row in bulk
+     *
+     * @param image image to be processed
+     */
     @Override
-    protected void processPixel(Image image) {
-        final int pixel = image.next();        
+    public void process(Image image) {
+        final int width = image.getWidth();
+        final int height = image.getHeight();
+        final int[] row = new int[width];
+        int min = this.min;
+        int max = this.max;
+        for (int y = 0; y < height; y++) {
+            image.readRow(y, row);
+            for (int i = 0; i < width; i++) {
+                final int pixel = row[i];
+                if (pixel < min) min = pixel;
+                if (pixel > max) max = pixel;
+            }
+        }
+        this.min = min;
+        this.max = max;
+    }
+
+    @Override
+    protected void processPixel(SpanIterator span) {
+        final int pixel = span.next();        
         if (pixel < min) min = pixel;
         if (pixel > max) max = pixel;      
     }
@@ -57,31 +57,28 @@ public class SauvolaBinarisationFilter extends MedianFilter {
     }
 
     /**
-     * traversal will be done bt median filter, actual processing delegated
-     * to derived method
-     *
-     * @param image
+     * traversal will be done bt median filter, which asks for integral images first
      */
     @Override
-    public void process(Image image) {
+    protected void computeIntegrals(Image image) {
         // compute squares here
         squaredIntergalImageFilter.process(image);
 
-        super.process(image);
+        super.computeIntegrals(image);
     }
 
     @Override
-    protected int computePixel(Image image, int y, int x) {
-        double mean = super.computePixel(image, y, x);
+    protected int computePixel(int value, int topLeft) {
+        double mean = super.computePixel(value, topLeft);
 
-        double meanSquaresSum = (squaresImage.get(x - halfWindow, y - halfWindow) + squaresImage.get(x + halfWindow, y + halfWindow) -
-                squaresImage.get(x + halfWindow, y - halfWindow) - squaresImage.get(x - halfWindow, y + halfWindow)) / squareWindow;
+        // squares image has the same layout as mean image
+        double meanSquaresSum = windowSum(augmentedSquaresImage.pixels, topLeft) / squareWindow;
         // this is our supercool local variance
         double variance = meanSquaresSum - mean * mean;
 
         double thr = mean * (1 + weight * (Math.sqrt(variance) / range - 1));
 
-        if (image.get(x, y) > thr) {
+        if (value > thr) {
             return above;
         } else {
             return below;
@@ -0,0 +1,210 @@
+package net.sourceforge.javaocr.filter;
+
+import net.sourceforge.javaocr.Image;
+import net.sourceforge.javaocr.ImageFilter;
+
+import java.util.Arrays;
+
+/**
+ * Sauvola thresholding with rolling window instead of integral images.  Only window height source rows
+ * and 64 bit column sums of pixels and their squares over those rows are kept, so memory is proportional
+ * to image width and window size and sums do not overflow on images of any size.  Source is read and
+ * destination written row by row, destination row is complete as soon as window covers rows below it.
+ * <p/>
+ * Produces the same result as {@link SauvolaBinarisationFilter} with the same parameters (as long as window sums
+ * of the latter fit into <code>int</code>), including window/2 untouched pixels on borders.
+ * Filter can be reused for images of any size, but is not thread safe.
+ */
+public class StreamingSauvolaBinarisationFilter implements ImageFilter {
+
+    final int above;
+    final int below;
+    final int range;
+    final double weight;
+    final int halfWindow;
+    final int squareWindow;
+
+    final Image destination;
+
+    // source rows inside window, ring buffer indexed by row modulo window height
+    private int[][] rows = new int[0][];
+    private long[] columnSums = new long[0];
+    private long[] columnSquares = new long[0];
+    // window means of pixels and their squares along current row
+    private long[] means = new long[0];
+    private long[] meanSquares = new long[0];
+    private int[] result = new int[0];
+
+    /**
+     * @param above       value to use for above pixels
+     * @param below       value to use for below pixels
+     * @param destination destination image
+     * @param maxValue    maxValue of intensity values
+     * @param weight      weight of variance term (determines relation of threshold to local mean)
+     * @param window      computing Window size, at least 2
+     */
+    public StreamingSauvolaBinarisationFilter(int above, int below, Image destination, int maxValue, double weight, int window) {
+        if (window < 2) {
+            throw new IllegalArgumentException("window shall be at least 2 pixels");
+        }
+        this.above = above;
+        this.below = below;
+        this.destination = destination;
+        this.range = maxValue / 2;
+        this.weight = weight;
+        this.halfWindow = window / 2;
+        this.squareWindow = halfWindow * halfWindow * 4;
+    }
+
+    /**
+     * binarise image into destination.  window of pixel <code>x,y</code> spans rows and columns from
+     * <code>y - halfWindow + 1</code> to <code>y + halfWindow</code> inclusive
+     *
+     * @param image image to be processed
+     */
+    public void process(Image image) {
+        final int width = image.getWidth();
+        final int height = image.getHeight();
+        final int windowHeight = 2 * halfWindow;
+        if (height <= windowHeight || width <= windowHeight) {
+            return;
+        }
+        allocate(width);
+
+        // fill window for first valid row
+        for (int y = 1; y <= windowHeight; y++) {
+            addRow(image, y);
+        }
+
+        for (int y = halfWindow; y < height - halfWindow; y++) {
+            if (y > halfWindow) {
+                // slide window one row down
+                removeRow(y - halfWindow);
+                addRow(image, y + halfWindow);
+            }
+            destination.readRow(y, result);
+            computeRow(rows[y % windowHeight], width);
+            destination.writeRow(y, result);
+        }
+    }
+
+    private void allocate(int width) {
+        final int windowHeight = 2 * halfWindow;
+        if (columnSums.length != width) {
+            rows = new int[windowHeight][width];
+            columnSums = new long[width];
+            columnSquares = new long[width];
+            means = new long[width];
+            meanSquares = new long[width];
+        } else {
+            Arrays.fill(columnSums, 0);
+            Arrays.fill(columnSquares, 0);
+        }
+        if (result.length != destination.getWidth()) {
+            result = new int[destination.getWidth()];
+        }
+    }
+
+    /**
+     * read source row into ring buffer and add it to column sums
+     */
+    private void addRow(Image image, int y) {
+        final int[] row = rows[y % rows.length];
+        image.readRow(y, row);
+        final long[] columnSums = this.columnSums;
+        final long[] columnSquares = this.columnSquares;
+        for (int x = 0; x < row.length; x++) {
+            final long value = row[x];
+            columnSums[x] += value;
+            columnSquares[x] += value * value;
+        }
+    }
+
+    /**
+     * subtract row leaving the window from column sums
+     */
+    private void removeRow(int y) {
+        final int[] row = rows[y % rows.length];
+        final long[] columnSums = this.columnSums;
+        final long[] columnSquares = this.columnSquares;
+        for (int x = 0; x < row.length; x++) {
+            final long value = row[x];
+            columnSums[x] -= value;
+            columnSquares[x] -= value * value;
+        }
+    }
+
+    /**
+     * threshold valid part of the row. window sums are slid along the row first, and thresholds
+     * are computed in separate pass which does not depend on previous pixels
+     *
+     * @param source source row
+     * @param width  image width
+     */
+    private void computeRow(int[] source, int width) {
+        final long[] columnSums = this.columnSums;
+        final long[] columnSquares = this.columnSquares;
+        final long[] means = this.means;
+        final long[] meanSquares = this.meanSquares;
+        final int[] result = this.result;
+        final int windowWidth = 2 * halfWindow;
+
+        long sum = 0;
+        long squares = 0;
+        for (int x = 1; x < windowWidth; x++) {
+            sum += columnSums[x];
+            squares += columnSquares[x];
+        }
+        for (int x = halfWindow; x < width - halfWindow; x++) {
+            // columns x - halfWindow + 1 to x + halfWindow
+            final int entering = x + halfWindow;
+            final int leaving = entering - windowWidth;
+            sum += columnSums[entering];
+            squares += columnSquares[entering];
+            if (leaving > 0) {
+                sum -= columnSums[leaving];
+                squares -= columnSquares[leaving];
+            }
+            means[x] = divide(sum);
+            meanSquares[x] = divide(squares);
+        }
+        for (int x = halfWindow; x < width - halfWindow; x++) {
+            result[x] = computePixel(source[x], means[x], meanSquares[x]);
+        }
+    }
+
+    private int computePixel(int value, double mean, double meanSquaresSum) {
+        // this is our supercool local variance
+        double variance = meanSquaresSum - mean * mean;
+
+        double thr = mean * (1 + weight * (Math.sqrt(variance) / range - 1));
+
+        if (value > thr) {
+            return above;
+        } else {
+            return below;
+        }
+    }
+
+    /**
+     * integer division by window area, 32 bit division is much cheaper and sufficient for most windows
+     */
+    private long divide(long sum) {
+        if (sum >= 0 && sum <= Integer.MAX_VALUE) {
+            return (int) sum / squareWindow;
+        }
+        return sum / squareWindow;
+    }
+
+    public int getAbove() {
+        return above;
+    }
+
+    public int getBelow() {
+        return below;
+    }
+
+    public int getHalfWindow() {
+        return halfWindow;
+    }
+}
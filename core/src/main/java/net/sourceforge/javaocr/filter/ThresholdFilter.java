@@ -1,6 +1,7 @@
 package net.sourceforge.javaocr.filter;
 
 import net.sourceforge.javaocr.Image;
+import net.sourceforge.javaocr.SpanIterator;
 
 /**
  * perform threshold filtering
@@ -35,8 +36,30 @@ public class ThresholdFilter extends AbstractSinglePixelFilter {
         this.below = below;
     }
 
+    /**
+     * process image row by row in bulk
+     *
+     * @param image image to be processed
+     */
+    @Override
+    public void process(Image image) {
+        final int width = image.getWidth();
+        final int height = image.getHeight();
+        final int threshold = this.threshold;
+        final int above = this.above;
+        final int below = this.below;
+        final int[] row = new int[width];
+        for (int y = 0; y < height; y++) {
+            image.readRow(y, row);
+            for (int i = 0; i < width; i++) {
+                row[i] = row[i] > threshold ? above : below;
+            }
+            image.writeRow(y, row);
+        }
+    }
+
     @Override
-    protected void processPixel(Image image) {
-        image.put(image.next() > threshold ? above : below);
+    protected void processPixel(SpanIterator span) {
+        span.put(span.next() > threshold ? above : below);
     }
 }
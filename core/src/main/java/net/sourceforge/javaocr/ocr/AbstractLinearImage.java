@@ -1,12 +1,16 @@
 package net.sourceforge.javaocr.ocr;
 
 import net.sourceforge.javaocr.Image;
+import net.sourceforge.javaocr.SpanIterator;
 
 /**
  * abstract base class encapsulating image functionality  for images represented by linear arrays.
  * This class is stateful in regard to filtering, and thus not thread safe. Those optimisations aim
  * to reduce method invocations to be performant on davlik (android) where direct field access if more
- * performant than going through getter
+ * performant than going through getter.
+ * <p/>
+ * Random access and span iterators do not use current image pointer and are safe to use from several threads,
+ * provided that subclass overrides {@link #getAt(int)} and {@link #putAt(int, int)}
  *
  * @author Konstantin Pribluda
  */
@@ -97,6 +101,30 @@ public abstract class AbstractLinearImage implements Image {
     abstract public void put(int value);
 
 
+    /**
+     * retrieve pixel at specified array index.  default implementation goes through
+     * current image pointer, subclasses shall access their storage directly
+     *
+     * @param index array index
+     * @return pixel value
+     */
+    protected int getAt(int index) {
+        currentIndex = index;
+        return get();
+    }
+
+    /**
+     * store pixel at specified array index.  default implementation goes through
+     * current image pointer, subclasses shall access their storage directly
+     *
+     * @param index array index
+     * @param value pixel value
+     */
+    protected void putAt(int index, int value) {
+        currentIndex = index;
+        put(value);
+    }
+
     /**
      * Get the empty of a pixel at a specific <code>x,y</code> position.
      *
@@ -105,26 +133,30 @@ public abstract class AbstractLinearImage implements Image {
      * @return The empty of the pixel.
      */
     public int get(int x, int y) {
-        setCurrentIndex(x, y);
-        return get();
+        return getAt(index(x, y));
     }
 
 
     protected void setCurrentIndex(int x, int y) {
-        currentIndex = ((y + originY) * arrayWidth) + x + originX;
+        currentIndex = index(x, y);
+    }
+
+    /**
+     * @return array index of pixel at <code>x,y</code>
+     */
+    protected int index(int x, int y) {
+        return ((y + originY) * arrayWidth) + x + originX;
     }
 
     /**
-     * store pixel empty. manipulates current image pointer (
-     * do not call it while iterating, use put(pixel) instead)
+     * store pixel empty. does not touch current image pointer, so it is safe to call while iterating
      *
      * @param x
      * @param y
      * @param value
      */
     public void put(int x, int y, int value) {
-        setCurrentIndex(x, y);
-        put(value);
+        putAt(index(x, y), value);
     }
 
 
@@ -166,9 +198,8 @@ public abstract class AbstractLinearImage implements Image {
      * @return
      */
     public boolean horizontalSpanEquals(final int y, final int from, final int to, final int value) {
-        iterateH(y, from, to);
-        while (hasNext()) {
-            if (next() != value) return false;
+        for (SpanIterator span = spanH(y, from, to); span.hasNext();) {
+            if (span.next() != value) return false;
         }
         return true;
 
@@ -182,9 +213,8 @@ public abstract class AbstractLinearImage implements Image {
      * @return
      */
     public boolean verticalSpanEquals(final int x, final int from, final int to, final int value) {
-        iterateV(x, from, to);
-        while (hasNext()) {
-            if (next() != value) return false;
+        for (SpanIterator span = spanV(x, from, to); span.hasNext();) {
+            if (span.next() != value) return false;
         }
         return true;
     }
@@ -211,6 +241,23 @@ public abstract class AbstractLinearImage implements Image {
         iterateV(x, 0, height - 1);
     }
 
+    public SpanIterator spanH(int y, int from, int to) {
+        final int base = (y + originY) * arrayWidth + originX - 1;
+        return new LinearSpan(this, base + from, 1, base + to + 1);
+    }
+
+    public SpanIterator spanH(int y) {
+        return spanH(y, 0, width - 1);
+    }
+
+    public SpanIterator spanV(int x, int from, int to) {
+        return new LinearSpan(this, (from + originY - 1) * arrayWidth + x + originX, arrayWidth, (to + originY) * arrayWidth + x + originX);
+    }
+
+    public SpanIterator spanV(int x) {
+        return spanV(x, 0, height - 1);
+    }
+
 
     public boolean hasNext() {
         //System.err.println("current: " + currentIndex + " border:" + border);
@@ -233,6 +280,41 @@ public abstract class AbstractLinearImage implements Image {
 
     }
 
+    /**
+     * default implementation goes through {@link #getAt(int)}, subclasses backed by arrays
+     * shall override it with straight array loop
+     */
+    public void readRow(int y, int[] dst) {
+        final int base = index(0, y);
+        for (int i = 0; i < width; i++) {
+            dst[i] = getAt(base + i);
+        }
+    }
+
+    /**
+     * default implementation goes through {@link #putAt(int, int)}, subclasses backed by arrays
+     * shall override it with straight array loop
+     */
+    public void writeRow(int y, int[] src) {
+        final int base = index(0, y);
+        for (int i = 0; i < width; i++) {
+            putAt(base + i, src[i]);
+        }
+    }
+
+    /**
+     * default implementation goes through {@link #getAt(int)} and {@link #putAt(int, int)},
+     * subclasses backed by arrays shall override it with straight array loop
+     */
+    public void applyLut(int[] lut) {
+        for (int y = 0; y < height; y++) {
+            final int base = index(0, y);
+            for (int i = base; i < base + width; i++) {
+                putAt(i, lut[getAt(i)]);
+            }
+        }
+    }
+
     /**
      * copy image content to destination.  we hope that dimensions match
      *
@@ -241,8 +323,8 @@ public abstract class AbstractLinearImage implements Image {
     public void copy(Image dst) {
         final int height = getHeight();
         for (int i = 0; i < height; i++) {
-            for (iterateH(i), dst.iterateH(i); hasNext();) {
-                dst.next(next());
+            for (SpanIterator src = spanH(i), target = dst.spanH(i); src.hasNext();) {
+                target.next(src.next());
             }
         }
     }
@@ -255,8 +337,8 @@ public abstract class AbstractLinearImage implements Image {
     public void flip(Image dst) {
         final int width = getWidth();
         for (int i = 0; i < width; i++) {
-            for (iterateV(i), dst.iterateH(i); hasNext();) {
-                dst.next(next());
+            for (SpanIterator src = spanV(i), target = dst.spanH(i); src.hasNext();) {
+                target.next(src.next());
             }
         }
     }
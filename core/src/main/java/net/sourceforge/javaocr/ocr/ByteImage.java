@@ -32,6 +32,46 @@ public class ByteImage extends AbstractLinearImage {
         image[currentIndex] = (byte) (value);
     }
 
+    @Override
+    protected int getAt(int index) {
+        return image[index] & 0xff;
+    }
+
+    @Override
+    protected void putAt(int index, int value) {
+        image[index] = (byte) (value);
+    }
+
+    @Override
+    public void readRow(int y, int[] dst) {
+        final byte[] image = this.image;
+        final int base = index(0, y);
+        for (int i = 0; i < width; i++) {
+            dst[i] = image[base + i] & 0xff;
+        }
+    }
+
+    @Override
+    public void writeRow(int y, int[] src) {
+        final byte[] image = this.image;
+        final int base = index(0, y);
+        for (int i = 0; i < width; i++) {
+            image[base + i] = (byte) src[i];
+        }
+    }
+
+    @Override
+    public void applyLut(int[] lut) {
+        final byte[] image = this.image;
+        for (int y = 0; y < height; y++) {
+            final int base = index(0, y);
+            final int border = base + width;
+            for (int i = base; i < border; i++) {
+                image[i] = (byte) lut[image[i] & 0xff];
+            }
+        }
+    }
+
     public Image chisel(int fromX, int fromY, int width, int height) {
         return new ByteImage(image, arrayWidth, arrayHeight, originX + fromX, originY + fromY, width, height);
     }
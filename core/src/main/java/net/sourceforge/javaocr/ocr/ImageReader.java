@@ -6,13 +6,20 @@ import org.apache.sanselan.common.IImageMetadata;
 import org.apache.sanselan.common.ImageMetadata;
 
 import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageTypeSpecifier;
+import javax.imageio.stream.ImageInputStream;
 import java.awt.*;
 import java.awt.geom.AffineTransform;
 import java.awt.image.AffineTransformOp;
 import java.awt.image.BufferedImage;
+import java.awt.image.ComponentSampleModel;
+import java.awt.image.DataBufferByte;
+import java.awt.image.Raster;
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Iterator;
 
 /**
  * Utility class to load JPEG images with EXIF orientation field support.
@@ -27,18 +34,7 @@ public abstract class ImageReader {
 
     public static BufferedImage read(File file, int maxDimension) throws IOException {
         BufferedImage bfImage = ImageIO.read(file);
-        int orientation = 1;
-        try {
-            IImageMetadata metadata = Sanselan.getMetadata(file);
-            ArrayList<ImageMetadata.Item> metadataItems = metadata.getItems();
-            orientation = 1;
-            for (ImageMetadata.Item item : metadataItems) {
-                if (item.getKeyword().equals("Orientation")) {
-                    orientation = Integer.parseInt(item.getText());
-                }
-            }
-        } catch (ImageReadException ignored) {
-        }
+        int orientation = readOrientation(file);
 
         //Zoom
 
@@ -90,6 +86,179 @@ public abstract class ImageReader {
         return bfImage;
     }
 
+    public static ByteImage readGrayscale(File file) throws IOException {
+        return readGrayscale(file, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Loads image straight into grayscale bytes, without keeping full resolution RGB copies around.
+     * Images larger than <code>maxDimension</code> are subsampled by the decoder itself, so only
+     * reduced raster is ever decoded.  Where decoder can produce grayscale itself (JPEG, grayscale
+     * PNG and BMP) image is decoded straight into one byte per pixel, JPEG decoder delivers luminance
+     * without converting colors at all.  Otherwise decoded rows are converted to grayscale (same
+     * weights as {@link net.sourceforge.javaocr.filter.RGBAToGrayscale}).  Pixels are stored already
+     * rotated according to EXIF orientation.  Unlike {@link #read(File, int)} scaling is done by
+     * integer pixel subsampling, so resulting image may be smaller than <code>maxDimension</code>.
+     *
+     * @param file         image file
+     * @param maxDimension maximal width or height of resulting image
+     * @return grayscale image
+     * @throws IOException when image can not be read
+     */
+    public static ByteImage readGrayscale(File file, int maxDimension) throws IOException {
+        final int orientation = readOrientation(file);
+        if (orientation != 1 && orientation != 3 && orientation != 6 && orientation != 8) {
+            throw new RuntimeException("Flipped orientations are not supported");
+        }
+        ImageInputStream stream = ImageIO.createImageInputStream(file);
+        if (stream == null) {
+            throw new IOException("Can not read " + file);
+        }
+        try {
+            Iterator<javax.imageio.ImageReader> readers = ImageIO.getImageReaders(stream);
+            if (!readers.hasNext()) {
+                throw new IOException("Unsupported image format: " + file);
+            }
+            javax.imageio.ImageReader reader = readers.next();
+            try {
+                reader.setInput(stream, true, true);
+                ImageReadParam param = reader.getDefaultReadParam();
+                int dim = Math.max(reader.getWidth(0), reader.getHeight(0));
+                int step = dim > maxDimension ? (dim + maxDimension - 1) / maxDimension : 1;
+                param.setSourceSubsampling(step, step, 0, 0);
+                if (offersGrayscale(reader)) {
+                    param.setDestinationType(ImageTypeSpecifier.createFromBufferedImageType(BufferedImage.TYPE_BYTE_GRAY));
+                }
+                return toGrayscale(reader.read(0, param), orientation);
+            } finally {
+                reader.dispose();
+            }
+        } finally {
+            stream.close();
+        }
+    }
+
+    /**
+     * @return whether reader can decode first image into grayscale bytes
+     */
+    private static boolean offersGrayscale(javax.imageio.ImageReader reader) throws IOException {
+        for (Iterator<ImageTypeSpecifier> types = reader.getImageTypes(0); types.hasNext();) {
+            if (types.next().getBufferedImageType() == BufferedImage.TYPE_BYTE_GRAY) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * convert decoded image row by row into grayscale bytes,  rotating as we go
+     */
+    private static ByteImage toGrayscale(BufferedImage image, int orientation) {
+        final int w = image.getWidth();
+        final int h = image.getHeight();
+        final boolean transposed = orientation == 6 || orientation == 8;
+        final int dstWidth = transposed ? h : w;
+        final byte[] gray = grayBytes(image);
+        if (gray != null && orientation == 1) {
+            // decoded raster is already what we need
+            return new ByteImage(gray, w, h);
+        }
+        final byte[] pixels = new byte[w * h];
+        // destination position of first pixel in source row, and steps along source row / column
+        int start;
+        final int stepX;
+        final int stepY;
+        switch (orientation) {
+            case 3:
+                start = w * h - 1;
+                stepX = -1;
+                stepY = -w;
+                break;
+            case 6:
+                start = h - 1;
+                stepX = dstWidth;
+                stepY = -1;
+                break;
+            case 8:
+                start = (w - 1) * dstWidth;
+                stepX = -dstWidth;
+                stepY = 1;
+                break;
+            default:
+                start = 0;
+                stepX = 1;
+                stepY = w;
+        }
+        if (gray != null) {
+            for (int y = 0, q = 0; y < h; y++) {
+                int p = start;
+                for (int x = 0; x < w; x++, q++) {
+                    pixels[p] = gray[q];
+                    p += stepX;
+                }
+                start += stepY;
+            }
+            return new ByteImage(pixels, dstWidth, transposed ? w : h);
+        }
+        final int[] row = new int[w];
+        for (int y = 0; y < h; y++) {
+            image.getRGB(0, y, w, 1, row, 0, w);
+            int p = start;
+            for (int x = 0; x < w; x++) {
+                final int rgb = row[x];
+                final int value = (((rgb >> 16) & 0xff) * 306 + ((rgb >> 8) & 0xff) * 601 + (rgb & 0xff) * 117) >> 10;
+                pixels[p] = (byte) (value > 255 ? 255 : value);
+                p += stepX;
+            }
+            start += stepY;
+        }
+        return new ByteImage(pixels, dstWidth, transposed ? w : h);
+    }
+
+    /**
+     * @return bytes of grayscale image laid out row after row without gaps, or <code>null</code>
+     *         if image is not such
+     */
+    private static byte[] grayBytes(BufferedImage image) {
+        if (image.getType() != BufferedImage.TYPE_BYTE_GRAY) {
+            return null;
+        }
+        final Raster raster = image.getRaster();
+        if (!(raster.getDataBuffer() instanceof DataBufferByte)
+                || !(raster.getSampleModel() instanceof ComponentSampleModel)) {
+            return null;
+        }
+        final ComponentSampleModel model = (ComponentSampleModel) raster.getSampleModel();
+        final byte[] data = ((DataBufferByte) raster.getDataBuffer()).getData();
+        if (model.getScanlineStride() != image.getWidth() || model.getPixelStride() != 1
+                || raster.getDataBuffer().getOffset() != 0 || raster.getSampleModelTranslateX() != 0
+                || raster.getSampleModelTranslateY() != 0 || data.length != image.getWidth() * image.getHeight()) {
+            return null;
+        }
+        return data;
+    }
+
+    /**
+     * @return EXIF orientation of image file, <code>1</code> if there is none
+     */
+    private static int readOrientation(File file) throws IOException {
+        int orientation = 1;
+        try {
+            IImageMetadata metadata = Sanselan.getMetadata(file);
+            if (metadata == null) {
+                return orientation;
+            }
+            ArrayList<ImageMetadata.Item> metadataItems = metadata.getItems();
+            for (ImageMetadata.Item item : metadataItems) {
+                if (item.getKeyword().equals("Orientation")) {
+                    orientation = Integer.parseInt(item.getText());
+                }
+            }
+        } catch (ImageReadException ignored) {
+        }
+        return orientation;
+    }
+
     /**
      * Private constructor prevents instantiation
      */
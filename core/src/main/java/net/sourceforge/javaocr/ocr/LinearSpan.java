@@ -0,0 +1,49 @@
+package net.sourceforge.javaocr.ocr;
+
+import net.sourceforge.javaocr.SpanIterator;
+
+/**
+ * span iterator over linear image. keeps position by itself and accesses image
+ * by index only, so image state is not touched
+ */
+final class LinearSpan implements SpanIterator {
+    private final AbstractLinearImage image;
+    private final int step;
+    private final int border;
+    private int index;
+
+    /**
+     * @param image  image to iterate over
+     * @param index  index preceding first pixel
+     * @param step   iteration step
+     * @param border index after last pixel
+     */
+    LinearSpan(AbstractLinearImage image, int index, int step, int border) {
+        this.image = image;
+        this.index = index;
+        this.step = step;
+        this.border = border;
+    }
+
+    public boolean hasNext() {
+        return index < border;
+    }
+
+    public int next() {
+        index += step;
+        return image.getAt(index);
+    }
+
+    public void next(int pixel) {
+        index += step;
+        image.putAt(index, pixel);
+    }
+
+    public int get() {
+        return image.getAt(index);
+    }
+
+    public void put(int value) {
+        image.putAt(index, value);
+    }
+}
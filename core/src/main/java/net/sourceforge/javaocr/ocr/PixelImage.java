@@ -62,6 +62,38 @@ public class PixelImage extends AbstractLinearImage {
 
     }
 
+    @Override
+    protected int getAt(int index) {
+        return pixels[index];
+    }
+
+    @Override
+    protected void putAt(int index, int value) {
+        pixels[index] = value;
+    }
+
+    @Override
+    public void readRow(int y, int[] dst) {
+        System.arraycopy(pixels, index(0, y), dst, 0, width);
+    }
+
+    @Override
+    public void writeRow(int y, int[] src) {
+        System.arraycopy(src, 0, pixels, index(0, y), width);
+    }
+
+    @Override
+    public void applyLut(int[] lut) {
+        final int[] pixels = this.pixels;
+        for (int y = 0; y < height; y++) {
+            final int base = index(0, y);
+            final int border = base + width;
+            for (int i = base; i < border; i++) {
+                pixels[i] = lut[pixels[i]];
+            }
+        }
+    }
+
     public Image chisel(int fromX, int fromY, int width, int height) {
         return new PixelImage(pixels, arrayWidth, arrayHeight, originX + fromX, originY + fromY, width, height);
     }
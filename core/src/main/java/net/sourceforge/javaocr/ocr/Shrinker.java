@@ -2,6 +2,7 @@ package net.sourceforge.javaocr.ocr;
 
 import net.sourceforge.javaocr.Image;
 import net.sourceforge.javaocr.ImageShrinker;
+import net.sourceforge.javaocr.SpanIterator;
 
 /**
  * shrink wrap given image
@@ -21,36 +22,32 @@ public class Shrinker implements ImageShrinker {
         int originY;
         boolean spanEmpty;
         for (originX = 0; originX < source.getWidth(); originX++) {
-            source.iterateV(originX);
-            if (!spanEmpty(source))
+            if (!spanEmpty(source.spanV(originX)))
                 break;
         }
         for (originY = 0; originY < source.getHeight(); originY++) {
-            source.iterateH(originY);
-            if (!spanEmpty(source))
+            if (!spanEmpty(source.spanH(originY)))
                 break;
         }
 
         int borderX;
         for (borderX = source.getWidth() - 1; borderX > originX; borderX--) {
-            source.iterateV(borderX);
-             if (!spanEmpty(source))
+             if (!spanEmpty(source.spanV(borderX)))
                 break;
         }
         int borderY;
         for (borderY = source.getHeight() - 1; borderY > originY; borderY--) {
-            source.iterateH(borderY);
-             if (!spanEmpty(source))
+             if (!spanEmpty(source.spanH(borderY)))
                 break;
         }
        
         return source.chisel(originX, originY, borderX + 1 - originX, borderY + 1 - originY);
     }
 
-    private boolean spanEmpty(Image source) {
+    private boolean spanEmpty(SpanIterator span) {
         boolean spanEmpty = true;
-        while (source.hasNext())
-            if (source.next() != empty) {
+        while (span.hasNext())
+            if (span.next() != empty) {
                 spanEmpty = false;
                 break;
             }
@@ -188,6 +188,48 @@ public class DocumentScanner
         int w = pixelImage.width;
         int h = pixelImage.height;
 
+        int[] block = clipBlock(pixelImage, blockX1, blockY1, blockX2, blockY2);
+        blockX1 = block[0];
+        blockY1 = block[1];
+        blockX2 = block[2];
+        blockY2 = block[3];
+
+        listener.beginDocument(pixelImage);
+        ArrayList<Integer> al = extractRows(pixelImage, blockX1, blockY1, blockX2, blockY2);
+        // Process the rows.
+        for (int i = 0; (i + 1) < al.size(); i += 2)
+        {
+            int bY1 = al.get(i);
+            int bY2 = al.get(i + 1);
+
+///
+///System.err.println("process row: "+blockX1+","+bY1+" "+blockX2+","+bY2);
+            processRow(pixelImage,
+                    listener,
+                    pixels, w, h, blockX1, bY1, blockX2, bY2);
+        }
+    }
+
+    /**
+     * Clip the area to be scanned to the image bounds, exactly like {@link #scan} does.
+     * @param pixelImage The <code>PixelImage</code> object to be scanned.
+     * @param blockX1 The leftmost pixel position of the area to be scanned,
+     * or <code>0</code> to start scanning at the left boundary of the image.
+     * @param blockY1 The topmost pixel position of the area to be scanned,
+     * or <code>0</code> to start scanning at the top boundary of the image.
+     * @param blockX2 The rightmost pixel position of the area to be scanned,
+     * or <code>0</code> to stop scanning at the right boundary of the image.
+     * @param blockY2 The bottommost pixel position of the area to be scanned,
+     * or <code>0</code> to stop scanning at the bottom boundary of the image.
+     * @return <code>{x1, y1, x2, y2}</code>, where <code>x2</code> and <code>y2</code> point
+     * one past the last pixel column and row of the area.  These are the bounds expected by
+     * {@link #extractRows} and {@link #scanRow}.
+     */
+    public final int[] clipBlock(PixelImage pixelImage, int blockX1, int blockY1, int blockX2, int blockY2)
+    {
+        int w = pixelImage.width;
+        int h = pixelImage.height;
+
         if (blockX1 < 0)
         {
             blockX1 = 0;
@@ -213,23 +255,33 @@ public class DocumentScanner
             blockY2 = h - 1;
         }
 
-        blockX2++;
-        blockY2++;
-
-        listener.beginDocument(pixelImage);
-        ArrayList<Integer> al = extractRows(pixelImage, blockX1, blockY1, blockX2, blockY2);
-        // Process the rows.
-        for (int i = 0; (i + 1) < al.size(); i += 2)
-        {
-            int bY1 = al.get(i);
-            int bY2 = al.get(i + 1);
+        return new int[]{blockX1, blockY1, blockX2 + 1, blockY2 + 1};
+    }
 
-///
-///System.err.println("process row: "+blockX1+","+bY1+" "+blockX2+","+bY2);
-            processRow(pixelImage,
-                    listener,
-                    pixels, w, h, blockX1, bY1, blockX2, bY2);
-        }
+    /**
+     * Scan a single row of text, as found by {@link #extractRows}.  The listener receives
+     * <code>beginRow</code>, the characters and spaces of the row and <code>endRow</code>,
+     * just like during {@link #scan}.  This method keeps no state in the scanner, so several
+     * rows of the same (unmodified) image may be scanned concurrently, each with its own listener.
+     * @param pixelImage The <code>PixelImage</code> object to be scanned.
+     * @param listener The <code>DocumentScannerListener</code> to receive
+     * notifications during the scanning process.
+     * @param blockX1 The leftmost pixel position of the area to be scanned.
+     * @param rowY1 The top pixel row of the row of text.
+     * @param blockX2 The pixel position immediately to the right of the area to be scanned.
+     * @param rowY2 The pixel row immediately below the row of text.
+     */
+    public final void scanRow(
+            PixelImage pixelImage,
+            DocumentScannerListener listener,
+            int blockX1,
+            int rowY1,
+            int blockX2,
+            int rowY2)
+    {
+        processRow(pixelImage,
+                listener,
+                pixelImage.pixels, pixelImage.width, pixelImage.height, blockX1, rowY1, blockX2, rowY2);
     }
 
     public ArrayList<Integer> extractRows(PixelImage pixelImage, int blockX1, int blockY1, int blockX2, int blockY2) {
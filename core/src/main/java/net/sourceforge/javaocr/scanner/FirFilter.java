@@ -0,0 +1,307 @@
+package net.sourceforge.javaocr.scanner;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Separable FIR filter engine for {@link PixelImage}.  Produces exactly the same pixels as
+ * filtering with float coefficients sample by sample, but does the work in integer fixed point
+ * arithmetic.  Whenever fixed point sum is too close to an integer boundary for float rounding
+ * to be predictable, the pixel is recomputed with the original float arithmetic, so output
+ * stays bit-identical.
+ * <p/>
+ * Horizontal pass works on a padded copy of every row, vertical pass works in row-major tiles
+ * of columns keeping a ring buffer of source rows, so both passes walk memory sequentially.
+ * Rows (horizontal pass) and column tiles (vertical pass) are independent and can be processed
+ * in parallel.
+ * <p/>
+ * Filter is immutable and can be shared between threads.
+ */
+final class FirFilter
+{
+
+    private static final int SHIFT = 22;
+    private static final int STRIP_HEIGHT = 64;
+    private static final int TILE_WIDTH = 256;
+
+    private final float[] coeffs;
+    private final int[] fixed;
+    private final int taps;
+    // samples before and after output pixel
+    private final int before;
+    private final int after;
+    // maximal distance between fixed point and float sum, in fixed point units
+    private final int margin;
+
+    FirFilter(float[] coeffs)
+    {
+        this.coeffs = coeffs.clone();
+        taps = coeffs.length;
+        before = taps / 2;
+        after = taps - before - 1;
+        fixed = new int[taps];
+        double sumAbs = 0;
+        for (int j = 0; j < taps; j++)
+        {
+            fixed[j] = (int) Math.round((double) coeffs[j] * (1 << SHIFT));
+            sumAbs += Math.abs((double) coeffs[j]);
+        }
+        // quantisation error of coefficients plus rounding error of every float
+        // multiplication and addition (relative 2^-24 of at most 255 * sumAbs)
+        double quantError = taps * 255 * 0.5;
+        double floatError = 2 * taps * 255 * sumAbs * (1 << SHIFT) / (double) (1 << 24);
+        margin = (int) Math.ceil(2 * (quantError + floatError)) + 1;
+        if (255 * sumAbs * (1 << SHIFT) + taps + margin >= Integer.MAX_VALUE)
+        {
+            throw new IllegalArgumentException("coefficients too large for fixed point filtering");
+        }
+    }
+
+    /**
+     * Filter image horizontally, then vertically.  Source pixels are taken from <code>src</code>
+     * and results are stored in <code>dst</code>, both with the same stride.  They are usually
+     * the same array.
+     * @param executor executor to run strips and tiles on, or <code>null</code> to do everything
+     * on the calling thread
+     */
+    void filter(
+            final int[] src,
+            final int[] dst,
+            final int stride,
+            final int width,
+            final int height,
+            ExecutorService executor)
+    {
+        if (width <= 0 || height <= 0)
+        {
+            return;
+        }
+        List<Runnable> strips = new ArrayList<Runnable>();
+        for (int y = 0; y < height; y += STRIP_HEIGHT)
+        {
+            final int y1 = y;
+            final int y2 = Math.min(height, y + STRIP_HEIGHT);
+            strips.add(new Runnable()
+            {
+                public void run()
+                {
+                    filterRows(src, dst, stride, width, y1, y2);
+                }
+            });
+        }
+        run(strips, executor);
+        List<Runnable> tiles = new ArrayList<Runnable>();
+        for (int x = 0; x < width; x += TILE_WIDTH)
+        {
+            final int x1 = x;
+            final int x2 = Math.min(width, x + TILE_WIDTH);
+            tiles.add(new Runnable()
+            {
+                public void run()
+                {
+                    filterColumns(src, dst, stride, x1, x2, height);
+                }
+            });
+        }
+        run(tiles, executor);
+    }
+
+    /**
+     * horizontal pass over rows <code>y1</code> (inclusive) to <code>y2</code> (exclusive)
+     */
+    private void filterRows(int[] src, int[] dst, int stride, int width, int y1, int y2)
+    {
+        final int[] fixed = this.fixed;
+        final int taps = this.taps;
+        final int[] line = new int[width + taps - 1];
+        Arrays.fill(line, 255);
+        for (int y = y1; y < y2; y++)
+        {
+            final int base = y * stride;
+            boolean inRange = true;
+            for (int x = 0; x < width; x++)
+            {
+                final int pix = src[base + x];
+                inRange &= (pix & ~0xff) == 0;
+                line[before + x] = pix;
+            }
+            for (int x = 0; x < width; x++)
+            {
+                if (!inRange)
+                {
+                    dst[base + x] = exact(line, x);
+                    continue;
+                }
+                int acc = 0;
+                for (int j = 0; j < taps; j++)
+                {
+                    acc += line[x + j] * fixed[j];
+                }
+                final int pix = resolve(acc);
+                dst[base + x] = pix >= 0 ? pix : exact(line, x);
+            }
+        }
+    }
+
+    /**
+     * vertical pass over columns <code>x1</code> (inclusive) to <code>x2</code> (exclusive)
+     */
+    private void filterColumns(int[] src, int[] dst, int stride, int x1, int x2, int height)
+    {
+        final int[] fixed = this.fixed;
+        final int taps = this.taps;
+        final int tile = x2 - x1;
+        // source rows ordered by row number modulo taps
+        final int[][] ring = new int[taps][tile];
+        final boolean[] ringInRange = new boolean[taps];
+        final int[] acc = new int[tile];
+        final int[] samples = new int[taps];
+        for (int r = -before; r < after; r++)
+        {
+            load(src, stride, x1, tile, r, height, ring, ringInRange);
+        }
+        for (int y = 0; y < height; y++)
+        {
+            // rows up to y - 1 may already be overwritten, but they are in the ring
+            load(src, stride, x1, tile, y + after, height, ring, ringInRange);
+            boolean inRange = true;
+            Arrays.fill(acc, 0);
+            for (int j = 0; j < taps; j++)
+            {
+                final int slot = slot(y - before + j);
+                final int[] row = ring[slot];
+                final int coeff = fixed[j];
+                inRange &= ringInRange[slot];
+                for (int x = 0; x < tile; x++)
+                {
+                    acc[x] += row[x] * coeff;
+                }
+            }
+            final int base = y * stride + x1;
+            for (int x = 0; x < tile; x++)
+            {
+                int pix = inRange ? resolve(acc[x]) : -1;
+                if (pix < 0)
+                {
+                    for (int j = 0; j < taps; j++)
+                    {
+                        samples[j] = ring[slot(y - before + j)][x];
+                    }
+                    pix = exact(samples, 0);
+                }
+                dst[base + x] = pix;
+            }
+        }
+    }
+
+    /**
+     * copy source row into the ring, rows outside the image are white
+     */
+    private void load(int[] src, int stride, int x1, int tile, int y, int height, int[][] ring, boolean[] ringInRange)
+    {
+        final int slot = slot(y);
+        final int[] row = ring[slot];
+        if (y < 0 || y >= height)
+        {
+            Arrays.fill(row, 255);
+            ringInRange[slot] = true;
+            return;
+        }
+        boolean inRange = true;
+        System.arraycopy(src, y * stride + x1, row, 0, tile);
+        for (int x = 0; x < tile; x++)
+        {
+            inRange &= (row[x] & ~0xff) == 0;
+        }
+        ringInRange[slot] = inRange;
+    }
+
+    private int slot(int y)
+    {
+        return (y + before) % taps;
+    }
+
+    /**
+     * @return pixel value the float filter would produce for this fixed point sum,
+     * or <code>-1</code> if it can not be told for sure
+     */
+    private int resolve(int acc)
+    {
+        final int lo = truncate(acc - margin);
+        return lo == truncate(acc + margin) ? lo : -1;
+    }
+
+    private static int truncate(int acc)
+    {
+        return acc < 0 ? 0 : Math.min(255, acc >> SHIFT);
+    }
+
+    /**
+     * original float computation, summing samples in the same order
+     */
+    private int exact(int[] samples, int offset)
+    {
+        float c = 0.0f;
+        for (int j = 0; j < taps; j++)
+        {
+            c += ((float) samples[offset + j] * coeffs[j]);
+        }
+        if (c < 0.0f)
+        {
+            c = 0.0f;
+        }
+        else if (c > 255.0f)
+        {
+            c = 255.0f;
+        }
+        return (int) c;
+    }
+
+    private static void run(List<Runnable> tasks, ExecutorService executor)
+    {
+        if (executor == null || tasks.size() < 2)
+        {
+            for (Runnable task : tasks)
+            {
+                task.run();
+            }
+            return;
+        }
+        List<Future<?>> results = new ArrayList<Future<?>>(tasks.size());
+        for (Runnable task : tasks)
+        {
+            results.add(executor.submit(task));
+        }
+        try
+        {
+            for (Future<?> result : results)
+            {
+                result.get();
+            }
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("interrupted while filtering", e);
+        }
+        catch (ExecutionException e)
+        {
+            if (e.getCause() instanceof RuntimeException)
+            {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new RuntimeException("filtering failed", e.getCause());
+        }
+        finally
+        {
+            for (Future<?> result : results)
+            {
+                result.cancel(true);
+            }
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package net.sourceforge.javaocr.scanner;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Lets several listeners share single segmentation of a document.  Events of the
+ * {@link DocumentScanner} are recorded while document is scanned, then
+ * {@link #replay(ExecutorService)} delivers the whole recorded sequence to every listener,
+ * each listener on its own thread.  All listeners see exactly the same rows, characters and
+ * spaces in the same order, so their results line up glyph by glyph.
+ * <p/>
+ * Listeners must not share state with each other unless it is thread safe.
+ */
+public class MultiplexingDocumentScannerListener implements DocumentScannerListener
+{
+
+    private static final int BEGIN_DOCUMENT = 0;
+    private static final int BEGIN_ROW = 1;
+    private static final int PROCESS_CHAR = 2;
+    private static final int PROCESS_SPACE = 3;
+    private static final int END_ROW = 4;
+    private static final int END_DOCUMENT = 5;
+
+    private final List<DocumentScannerListener> listeners = new ArrayList<DocumentScannerListener>();
+    private final List<Event> events = new ArrayList<Event>();
+
+    /**
+     * @param listener listener to receive recorded events
+     */
+    public void addListener(DocumentScannerListener listener)
+    {
+        listeners.add(listener);
+    }
+
+    /**
+     * @return amount of recorded events
+     */
+    public int getEventCount()
+    {
+        return events.size();
+    }
+
+    /**
+     * forget recorded events
+     */
+    public void clear()
+    {
+        events.clear();
+    }
+
+    /**
+     * Deliver recorded events to all listeners.
+     * @param executor executor to run every listener on, or <code>null</code> to deliver
+     * events on the calling thread, listener after listener.  It is not shut down.
+     */
+    public void replay(ExecutorService executor)
+    {
+        if (executor == null || listeners.size() < 2)
+        {
+            for (DocumentScannerListener listener : listeners)
+            {
+                replay(listener);
+            }
+            return;
+        }
+        List<Future<?>> results = new ArrayList<Future<?>>(listeners.size());
+        for (final DocumentScannerListener listener : listeners)
+        {
+            results.add(executor.submit(new Runnable()
+            {
+                public void run()
+                {
+                    replay(listener);
+                }
+            }));
+        }
+        try
+        {
+            for (Future<?> result : results)
+            {
+                result.get();
+            }
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("interrupted while waiting for listeners", e);
+        }
+        catch (ExecutionException e)
+        {
+            if (e.getCause() instanceof RuntimeException)
+            {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new RuntimeException("listener failed", e.getCause());
+        }
+        finally
+        {
+            for (Future<?> result : results)
+            {
+                result.cancel(true);
+            }
+        }
+    }
+
+    private void replay(DocumentScannerListener listener)
+    {
+        for (Event event : events)
+        {
+            switch (event.type)
+            {
+                case BEGIN_DOCUMENT:
+                    listener.beginDocument(event.pixelImage);
+                    break;
+                case BEGIN_ROW:
+                    listener.beginRow(event.pixelImage, event.y1, event.y2);
+                    break;
+                case PROCESS_CHAR:
+                    listener.processChar(event.pixelImage, event.x1, event.y1, event.x2, event.y2, event.rowY1, event.rowY2);
+                    break;
+                case PROCESS_SPACE:
+                    listener.processSpace(event.pixelImage, event.x1, event.y1, event.x2, event.y2);
+                    break;
+                case END_ROW:
+                    listener.endRow(event.pixelImage, event.y1, event.y2);
+                    break;
+                default:
+                    listener.endDocument(event.pixelImage);
+            }
+        }
+    }
+
+    public void beginDocument(PixelImage pixelImage)
+    {
+        events.add(new Event(BEGIN_DOCUMENT, pixelImage, 0, 0, 0, 0, 0, 0));
+    }
+
+    public void beginRow(PixelImage pixelImage, int y1, int y2)
+    {
+        events.add(new Event(BEGIN_ROW, pixelImage, 0, y1, 0, y2, 0, 0));
+    }
+
+    public void processChar(PixelImage pixelImage, int x1, int y1, int x2, int y2, int rowY1, int rowY2)
+    {
+        events.add(new Event(PROCESS_CHAR, pixelImage, x1, y1, x2, y2, rowY1, rowY2));
+    }
+
+    public void processSpace(PixelImage pixelImage, int x1, int y1, int x2, int y2)
+    {
+        events.add(new Event(PROCESS_SPACE, pixelImage, x1, y1, x2, y2, 0, 0));
+    }
+
+    public void endRow(PixelImage pixelImage, int y1, int y2)
+    {
+        events.add(new Event(END_ROW, pixelImage, 0, y1, 0, y2, 0, 0));
+    }
+
+    public void endDocument(PixelImage pixelImage)
+    {
+        events.add(new Event(END_DOCUMENT, pixelImage, 0, 0, 0, 0, 0, 0));
+    }
+
+    private static final class Event
+    {
+
+        final int type;
+        final PixelImage pixelImage;
+        final int x1;
+        final int y1;
+        final int x2;
+        final int y2;
+        final int rowY1;
+        final int rowY2;
+
+        Event(int type, PixelImage pixelImage, int x1, int y1, int x2, int y2, int rowY1, int rowY2)
+        {
+            this.type = type;
+            this.pixelImage = pixelImage;
+            this.x1 = x1;
+            this.y1 = y1;
+            this.x2 = x2;
+            this.y2 = y2;
+            this.rowY1 = rowY1;
+            this.rowY2 = rowY2;
+        }
+    }
+}
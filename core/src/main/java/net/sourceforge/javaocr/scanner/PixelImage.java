@@ -10,6 +10,7 @@ import java.awt.Image;
 import java.awt.image.MemoryImageSource;
 import java.awt.image.PixelGrabber;
 import java.io.Serializable;
+import java.util.concurrent.ExecutorService;
 import java.util.logging.Logger;
 
 
@@ -35,6 +36,7 @@ public class PixelImage implements Serializable
         -0.06430830829693616f,
         0.05001757311983922f,
     };
+    private static final FirFilter FIR_FILTER = new FirFilter(FILTER_FIR_COEFFS);
     /**
      * An array of pixels.  This can be in RGBA or grayscale.
      * By default, it is RGBA, but if the <code>toGrayScale()</code> method
@@ -101,6 +103,28 @@ public class PixelImage implements Serializable
         }
     }
 
+    /**
+     * Construct a new <code>PixelImage</code> object from grayscale image,
+     * e.g. one decoded by {@link net.sourceforge.javaocr.ocr.ImageReader#readGrayscale(java.io.File)}.
+     * Pixels are already in the range of 0-255 grayscale, so <code>toGrayScale()</code>
+     * shall not be called, use <code>normalizeGrayScale()</code> instead.
+     * @param grayImage A grayscale image from which to get the pixels.
+     */
+    public PixelImage(net.sourceforge.javaocr.Image grayImage)
+    {
+        width = grayImage.getWidth();
+        height = grayImage.getHeight();
+        npix = width * height;
+        aspectRatio = ((float) width) / ((float) height);
+        pixels = new int[npix];
+        final int[] row = new int[width];
+        for (int y = 0; y < height; y++)
+        {
+            grayImage.readRow(y, row);
+            System.arraycopy(row, 0, pixels, y * width, width);
+        }
+    }
+
     public Image rgbToImage(int[] rgbPixels, int width, int height, Component comp)
     {
         return comp.createImage(new MemoryImageSource(width, height, rgbPixels, 0, width));
@@ -154,47 +178,50 @@ public class PixelImage implements Serializable
      * pixel in the image is all white.
      */
     public final void toGrayScale(boolean normalize)
+    {
+        for (int i = 0; i < npix; i++)
+        {
+            pixels[i] = rgbToGrayScale(pixels[i]);
+        }
+        if (normalize)
+        {
+            normalizeGrayScale();
+        }
+    }
+
+    /**
+     * Normalize grayscale image, such that the darkest pixel in the image is all black
+     * and the lightest pixel in the image is all white.
+     */
+    public final void normalizeGrayScale()
     {
         if (npix == 0)
         {
             return;
         }
-        if (!normalize)
+        int min = pixels[0], max = pixels[0];
+        for (int i = 1; i < npix; i++)
+        {
+            min = Math.min(min, pixels[i]);
+            max = Math.max(max, pixels[i]);
+        }
+        int range = max - min;
+        if (range < 1)
         {
             for (int i = 0; i < npix; i++)
             {
-                pixels[i] = rgbToGrayScale(pixels[i]);
+                pixels[i] = 255;
             }
         }
         else
         {
-            int pix;
-            pixels[0] = pix = rgbToGrayScale(pixels[0]);
-            int min = pix, max = pix;
-            for (int i = 1; i < npix; i++)
-            {
-                pixels[i] = pix = rgbToGrayScale(pixels[i]);
-                min = Math.min(min, pix);
-                max = Math.max(max, pix);
-            }
-            int range = max - min;
-            if (range < 1)
-            {
-                for (int i = 0; i < npix; i++)
-                {
-                    pixels[i] = 255;
-                }
-            }
-            else
+            for (int i = 0; i < npix; i++)
             {
-                for (int i = 0; i < npix; i++)
-                {
-                    pixels[i] =
-                            Math.min(255,
-                            Math.max(0,
-                            ((pixels[i]
-                            - min) * 255) / range));
-                }
+                pixels[i] =
+                        Math.min(255,
+                        Math.max(0,
+                        ((pixels[i]
+                        - min) * 255) / range));
             }
         }
     }
@@ -210,122 +237,34 @@ public class PixelImage implements Serializable
         return newPixels;
     }
 
+    /**
+     * Low-pass filter the image in place with {@link #FILTER_FIR_COEFFS},
+     * horizontally, then vertically.
+     */
     public final void filter()
     {
         filter(pixels, width, height);
     }
 
+    /**
+     * Same as {@link #filter()}, but image strips are filtered in parallel on supplied executor.
+     * Result is exactly the same.
+     * @param executor executor to run filtering tasks on. It is not shut down.
+     */
+    public final void filter(ExecutorService executor)
+    {
+        FIR_FILTER.filter(pixels, pixels, width, width, height, executor);
+    }
+
+    /**
+     * Low-pass filter pixels of this image, storing results into <code>pixels</code>.
+     * @param pixels destination, laid out the same way as pixels of this image
+     * @param width width of the area to filter
+     * @param height height of the area to filter
+     */
     public final void filter(int[] pixels, int width, int height)
     {
-        float[] firSamples = new float[FILTER_FIR_COEFFS.length];
-        float c;
-        int lastPos = firSamples.length - 1;
-        // Filter horizontally.
-        for (int y = 0; y < height; y++)
-        {
-            for (int i = 0; i < firSamples.length; i++)
-            {
-                firSamples[i] = 255.0f;
-            }
-            int outX = -(firSamples.length / 2);
-            for (int x = 0; x < width; x++, outX++)
-            {
-                c = 0.0f;
-                for (int j = 0; j < lastPos; j++)
-                {
-                    c += (firSamples[j] * FILTER_FIR_COEFFS[j]);
-                    firSamples[j] = firSamples[j + 1];
-                }
-                c += (firSamples[lastPos] * FILTER_FIR_COEFFS[lastPos]);
-                firSamples[lastPos] = getPixel(x, y);
-                if (c < 0.0f)
-                {
-                    c = 0.0f;
-                }
-                else if (c > 255.0f)
-                {
-                    c = 255.0f;
-                }
-                if (outX >= 0)
-                {
-                    pixels[getPixelIndex(outX, y)] = (int) c;
-                }
-            }
-            while (outX < width)
-            {
-                c = 0.0f;
-                for (int j = 0; j < lastPos; j++)
-                {
-                    c += (firSamples[j] * FILTER_FIR_COEFFS[j]);
-                    firSamples[j] = firSamples[j + 1];
-                }
-                c += (firSamples[lastPos] * FILTER_FIR_COEFFS[lastPos]);
-                firSamples[lastPos] = 255.0f;
-                if (c < 0.0f)
-                {
-                    c = 0.0f;
-                }
-                else if (c > 255.0f)
-                {
-                    c = 255.0f;
-                }
-                pixels[getPixelIndex(outX, y)] = (int) c;
-                outX++;
-            }
-        }
-        // Filter vertically.
-        for (int x = 0; x < width; x++)
-        {
-            for (int i = 0; i < firSamples.length; i++)
-            {
-                firSamples[i] = 255.0f;
-            }
-            int outY = -(firSamples.length / 2);
-            for (int y = 0; y < height; y++, outY++)
-            {
-                c = 0.0f;
-                for (int j = 0; j < lastPos; j++)
-                {
-                    c += (firSamples[j] * FILTER_FIR_COEFFS[j]);
-                    firSamples[j] = firSamples[j + 1];
-                }
-                c += (firSamples[lastPos] * FILTER_FIR_COEFFS[lastPos]);
-                firSamples[lastPos] = getPixel(x, y);
-                if (c < 0.0f)
-                {
-                    c = 0.0f;
-                }
-                else if (c > 255.0f)
-                {
-                    c = 255.0f;
-                }
-                if (outY >= 0)
-                {
-                    pixels[getPixelIndex(x, outY)] = (int) c;
-                }
-            }
-            while (outY < height)
-            {
-                c = 0.0f;
-                for (int j = 0; j < lastPos; j++)
-                {
-                    c += (firSamples[j] * FILTER_FIR_COEFFS[j]);
-                    firSamples[j] = firSamples[j + 1];
-                }
-                c += (firSamples[lastPos] * FILTER_FIR_COEFFS[lastPos]);
-                firSamples[lastPos] = 255.0f;
-                if (c < 0.0f)
-                {
-                    c = 0.0f;
-                }
-                else if (c > 255.0f)
-                {
-                    c = 255.0f;
-                }
-                pixels[getPixelIndex(x, outY)] = (int) c;
-                outY++;
-            }
-        }
+        FIR_FILTER.filter(this.pixels, pixels, this.width, width, height, null);
     }
     private static final Logger LOG = Logger.getLogger(PixelImage.class.getName());
 }
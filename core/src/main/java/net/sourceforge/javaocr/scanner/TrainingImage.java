@@ -84,6 +84,42 @@ public class TrainingImage extends PixelImage implements Serializable {
         myMaxY = height - 1;
     }
 
+    /**
+     * Create a new <code>TrainingImage</code> object from an array of
+     * gray scale pixels and white space fractions of its row, as kept by compiled
+     * template libraries.
+     *
+     * @param pixels                   An array of pixels in the range 0-255.
+     * @param width                    The arrayWidth of the image.
+     * @param height                   The arrayHeight of the image.
+     * @param topWhiteSpaceFraction    Fraction of the row arrayHeight which is occupied by complete whitespace above the character.
+     * @param bottomWhiteSpaceFraction Fraction of the row arrayHeight which is occupied by complete whitespace below the character.
+     * @return training image
+     */
+    public static TrainingImage fromFractions(
+            int[] pixels,
+            int width,
+            int height,
+            float topWhiteSpaceFraction,
+            float bottomWhiteSpaceFraction) {
+        return new TrainingImage(pixels, width, height, topWhiteSpaceFraction, bottomWhiteSpaceFraction);
+    }
+
+    // not public, it would be taken for the pixel count constructor by callers passing ints
+    private TrainingImage(
+            int[] pixels,
+            int width,
+            int height,
+            float topWhiteSpaceFraction,
+            float bottomWhiteSpaceFraction) {
+
+        super(pixels, width, height);
+        this.topWhiteSpaceFraction = topWhiteSpaceFraction;
+        this.bottomWhiteSpaceFraction = bottomWhiteSpaceFraction;
+        myMaxX = width - 1;
+        myMaxY = height - 1;
+    }
+
     /**
      * Calculate the error factor between a block of pixels and our image.
      *
@@ -102,6 +138,26 @@ public class TrainingImage extends PixelImage implements Serializable {
      *         Lower numbers indicate a better match.
      */
     public double calcMSE(int[] theirPixels, int w, int h, int x1, int y1, int x2, int y2) {
+        return calcMSE(theirPixels, w, h, x1, y1, x2, y2, Double.POSITIVE_INFINITY);
+    }
+
+    /**
+     * Calculate the error factor between a block of pixels and our image, giving up as soon
+     * as it is clear the error factor exceeds the bound. Errors not exceeding the bound are exactly
+     * the same as those of {@link #calcMSE(int[], int, int, int, int, int, int)}.
+     *
+     * @param theirPixels An array of grayscale pixels which contains the block to be compared
+     * @param w           The arrayWidth of the pixel array.
+     * @param h           The arrayHeight of the pixel array.
+     * @param x1          The position of the left border of the rectangle to be compared.
+     * @param y1          The position of the top border of the rectangle to be compared.
+     * @param x2          The position of the right border of the rectangle to be compared.
+     * @param y2          The position of the bottom border of the rectangle to be compared.
+     * @param maxMSE      The bound.  Comparison stops once partial error factor exceeds it.
+     * @return The average per-pixel mean square error, or <code>Double.POSITIVE_INFINITY</code>
+     *         if comparison was abandoned.
+     */
+    public double calcMSE(int[] theirPixels, int w, int h, int x1, int y1, int x2, int y2, double maxMSE) {
         int theirXRange = Math.max((x2 - x1) - 1, 1);
         int theirYRange = Math.max((y2 - y1) - 1, 1);
         int theirNPix = (theirXRange + 1) * (theirYRange + 1);
@@ -110,6 +166,7 @@ public class TrainingImage extends PixelImage implements Serializable {
         long minError;
         int myLineIdx, theirIdx;
         totalError = 0L;
+        final boolean bounded = maxMSE < Double.POSITIVE_INFINITY;
 
         for (int theirY = y1, yScan = 0 /*yo */;
              theirY < y2; theirY++, yScan++) {
@@ -126,6 +183,12 @@ public class TrainingImage extends PixelImage implements Serializable {
                 }
                 totalError += (thisError * thisError);
             }
+            // error only grows and sqrt and division round monotonically, so partial error factor
+            // above the bound means the final one is too.  Compare the very value we would return,
+            // squaring the bound instead rounds differently and abandons matches sitting right on it
+            if (bounded && Math.sqrt((double) totalError) / (double) theirNPix > maxMSE) {
+                return Double.POSITIVE_INFINITY;
+            }
         }
         minError = totalError;
 
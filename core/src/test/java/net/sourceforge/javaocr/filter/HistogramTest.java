@@ -1,8 +1,14 @@
 package net.sourceforge.javaocr.filter;
 
 import junit.framework.TestCase;
+import net.sourceforge.javaocr.ocr.ByteImage;
 import net.sourceforge.javaocr.ocr.PixelImage;
 
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
 /**
  * assure proper functionality of histogram filter
  */
@@ -107,4 +113,82 @@ public class HistogramTest extends TestCase {
         assertEquals(100, histogram.adaptiveThreshold(90));
         
     }
+
+    /**
+     * strips counted in parallel shall sum up to the same histogram
+     */
+    public void testParallelCollection() {
+        Random random = new Random(1);
+        byte[] pixels = new byte[97 * 61];
+        random.nextBytes(pixels);
+        ByteImage image = new ByteImage(pixels, 97, 61);
+
+        HistogramFilter serial = new HistogramFilter();
+        serial.process(image);
+
+        HistogramFilter parallel = new HistogramFilter();
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            parallel.process(image, executor, 1);
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(97 * 61, parallel.getTotalCount());
+        assertTrue(Arrays.equals(serial.getHistogramm(), parallel.getHistogramm()));
+    }
+
+    /**
+     * with stride only every n-th pixel of every n-th row is counted
+     */
+    public void testStrideSampling() {
+        int[] pixels = new int[7 * 5];
+        for (int i = 0; i < pixels.length; i++) {
+            pixels[i] = i;
+        }
+        HistogramFilter filter = new HistogramFilter();
+        filter.process(new PixelImage(pixels, 7, 5), null, 2);
+
+        // rows 0, 2, 4 - columns 0, 2, 4, 6
+        assertEquals(12, filter.getTotalCount());
+        for (int i = 0; i < pixels.length; i++) {
+            int expected = (i / 7) % 2 == 0 && (i % 7) % 2 == 0 ? 1 : 0;
+            assertEquals(expected, filter.getHistogramm()[i]);
+        }
+    }
+
+    /**
+     * otsu threshold shall maximize variance between classes
+     */
+    public void testOtsuThreshold() {
+        Random random = new Random(3);
+        HistogramFilter histogram = new HistogramFilter();
+        for (int i = 0; i < 1000; i++) {
+            histogram.getHistogramm()[(int) Math.max(0, Math.min(255, 60 + random.nextGaussian() * 15))]++;
+            histogram.getHistogramm()[(int) Math.max(0, Math.min(255, 190 + random.nextGaussian() * 20))]++;
+        }
+        int threshold = histogram.otsuThreshold();
+
+        double best = -1;
+        int expected = -1;
+        for (int t = 0; t < 255; t++) {
+            double below = 0, above = 0, sumBelow = 0, sumAbove = 0;
+            for (int i = 0; i < 256; i++) {
+                if (i <= t) {
+                    below += histogram.getHistogramm()[i];
+                    sumBelow += histogram.getHistogramm()[i] * i;
+                } else {
+                    above += histogram.getHistogramm()[i];
+                    sumAbove += histogram.getHistogramm()[i] * i;
+                }
+            }
+            double difference = sumBelow / below - sumAbove / above;
+            double variance = below * above * difference * difference;
+            if (variance > best) {
+                best = variance;
+                expected = t;
+            }
+        }
+        assertEquals(expected, threshold);
+        assertTrue(threshold > 80 && threshold < 170);
+    }
 }
@@ -5,6 +5,11 @@ import net.sourceforge.javaocr.Image;
 import net.sourceforge.javaocr.ocr.PixelImage;
 import org.junit.Test;
 
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
 /**
  * naive test to check sauvola filter functionality,
  * no assertions just demonstration
@@ -33,4 +38,74 @@ public class SauvolaBinatisationFilterTest extends TestCase {
                 System.err.println(sb.toString());
             }
     }
+
+    /**
+     * windowed statistics shall be the same as computed straight from source pixels,
+     * and pixels on borders shall be left alone
+     */
+    public void testMatchesDirectComputation() {
+        Random random = new Random(3);
+        int width = 37;
+        int height = 29;
+        int[] samples = new int[width * height];
+        for (int i = 0; i < samples.length; i++) {
+            samples[i] = random.nextInt(256);
+        }
+        for (int window : new int[]{2, 5, 8}) {
+            assertMatches(samples, width, height, window, null);
+        }
+    }
+
+    public void testBandsMatchDirectComputation() {
+        Random random = new Random(11);
+        int width = 53;
+        int height = 71;
+        int[] samples = new int[width * height];
+        for (int i = 0; i < samples.length; i++) {
+            samples[i] = random.nextInt(256);
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            assertMatches(samples, width, height, 7, executor);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private void assertMatches(int[] samples, int width, int height, int window, ExecutorService executor) {
+        Image source = new PixelImage(samples, width, height);
+        PixelImage means = new PixelImage(width, height);
+        PixelImage binarised = new PixelImage(width, height);
+        Arrays.fill(means.pixels, -1);
+        Arrays.fill(binarised.pixels, -1);
+        new MedianFilter(means, window).process(source, executor);
+        new SauvolaBinarisationFilter(255, 0, binarised, 256, 0.35, window).process(source, executor);
+
+        int half = window / 2;
+        int square = half * half * 4;
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int expectedMean = -1;
+                int expectedBinarised = -1;
+                if (y >= half && y < height - half && x >= half && x < width - half) {
+                    int sum = 0;
+                    int squares = 0;
+                    for (int j = y - half + 1; j <= y + half; j++) {
+                        for (int i = x - half + 1; i <= x + half; i++) {
+                            int value = samples[j * width + i];
+                            sum += value;
+                            squares += value * value;
+                        }
+                    }
+                    expectedMean = sum / square;
+                    double mean = expectedMean;
+                    double variance = squares / square - mean * mean;
+                    double thr = mean * (1 + 0.35 * (Math.sqrt(variance) / 128 - 1));
+                    expectedBinarised = samples[y * width + x] > thr ? 255 : 0;
+                }
+                assertEquals("mean at " + x + "," + y, expectedMean, means.get(x, y));
+                assertEquals("binarised at " + x + "," + y, expectedBinarised, binarised.get(x, y));
+            }
+        }
+    }
 }
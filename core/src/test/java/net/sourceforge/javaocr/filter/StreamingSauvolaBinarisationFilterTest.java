@@ -0,0 +1,98 @@
+package net.sourceforge.javaocr.filter;
+
+import junit.framework.TestCase;
+import net.sourceforge.javaocr.Image;
+import net.sourceforge.javaocr.ocr.PixelImage;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * streaming sauvola shall agree with integral image based one
+ */
+public class StreamingSauvolaBinarisationFilterTest extends TestCase {
+
+    public void testSameAsIntegralImageFilter() {
+        Random random = new Random(7);
+        int width = 41;
+        int height = 33;
+        int[] samples = new int[width * height];
+        for (int i = 0; i < samples.length; i++) {
+            samples[i] = random.nextInt(256);
+        }
+        Image source = new PixelImage(samples, width, height);
+        for (int window : new int[]{2, 3, 6, 15, 32}) {
+            PixelImage expected = new PixelImage(width, height);
+            PixelImage actual = new PixelImage(width, height);
+            Arrays.fill(expected.pixels, -1);
+            Arrays.fill(actual.pixels, -1);
+
+            new SauvolaBinarisationFilter(255, 0, expected, 256, 0.35, window).process(source);
+            new StreamingSauvolaBinarisationFilter(255, 0, actual, 256, 0.35, window).process(source);
+
+            assertTrue("window " + window, Arrays.equals(expected.pixels, actual.pixels));
+        }
+    }
+
+    public void testFilterCanBeReused() {
+        Random random = new Random(2);
+        PixelImage destination = new PixelImage(20, 20);
+        StreamingSauvolaBinarisationFilter filter = new StreamingSauvolaBinarisationFilter(1, 0, destination, 256, 0.35, 5);
+        for (int round = 0; round < 3; round++) {
+            int[] samples = new int[20 * 20];
+            for (int i = 0; i < samples.length; i++) {
+                samples[i] = random.nextInt(256);
+            }
+            PixelImage expected = new PixelImage(20, 20);
+            new SauvolaBinarisationFilter(1, 0, expected, 256, 0.35, 5).process(new PixelImage(samples, 20, 20));
+            filter.process(new PixelImage(samples, 20, 20));
+            assertTrue(Arrays.equals(expected.pixels, destination.pixels));
+        }
+    }
+
+    /**
+     * sum of squares over 200x200 window exceeds int range
+     */
+    public void testLargeWindowDoesNotOverflow() {
+        Random random = new Random(5);
+        int width = 206;
+        int height = 204;
+        int window = 200;
+        int[] samples = new int[width * height];
+        for (int i = 0; i < samples.length; i++) {
+            samples[i] = 240 + random.nextInt(16);
+        }
+        PixelImage destination = new PixelImage(width, height);
+        new StreamingSauvolaBinarisationFilter(255, 0, destination, 256, 0.5, window).process(new PixelImage(samples, width, height));
+
+        int half = window / 2;
+        long square = window * window;
+        for (int y = half; y < height - half; y++) {
+            for (int x = half; x < width - half; x++) {
+                long sum = 0;
+                long squares = 0;
+                for (int j = y - half + 1; j <= y + half; j++) {
+                    for (int i = x - half + 1; i <= x + half; i++) {
+                        long value = samples[j * width + i];
+                        sum += value;
+                        squares += value * value;
+                    }
+                }
+                assertTrue(squares > Integer.MAX_VALUE);
+                double mean = sum / square;
+                double variance = squares / square - mean * mean;
+                double thr = mean * (1 + 0.5 * (Math.sqrt(variance) / 128 - 1));
+                assertEquals(samples[y * width + x] > thr ? 255 : 0, destination.get(x, y));
+            }
+        }
+    }
+
+    public void testWindowShallBeAtLeastTwo() {
+        try {
+            new StreamingSauvolaBinarisationFilter(1, 0, new PixelImage(3, 3), 256, 0.35, 1);
+            fail("window of single pixel has no variance");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+}
@@ -35,6 +35,34 @@ public class ByteImageTest extends TestCase {
         assertEquals(1, chisel.getHeight());
     }
 
+    /**
+     * bulk row operations shall honor subimage bounds and work unsigned
+     */
+    public void testBulkRowAccess() {
+        byte[] data = new byte[]{0, 1, 2, 3, 4, 5, 6, 7, (byte) 200};
+        final Image chisel = new ByteImage(data, 3, 3).chisel(1, 1, 2, 2);
+
+        int[] row = new int[2];
+        chisel.readRow(1, row);
+        assertEquals(7, row[0]);
+        assertEquals(200, row[1]);
+
+        chisel.writeRow(0, new int[]{10, 11});
+        assertEquals(3, data[3]);
+        assertEquals(10, data[4]);
+        assertEquals(11, data[5]);
+
+        int[] lut = new int[256];
+        for (int i = 0; i < lut.length; i++) {
+            lut[i] = 255 - i;
+        }
+        chisel.applyLut(lut);
+        assertEquals(0, data[0]);
+        assertEquals(245, data[4] & 0xff);
+        assertEquals(6, data[6]);
+        assertEquals(55, data[8] & 0xff);
+    }
+
     /**
      * TODO:  this is only for performance testing and shall go somewhere more appropriate
      */
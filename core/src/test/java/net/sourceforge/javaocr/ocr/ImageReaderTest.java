@@ -0,0 +1,135 @@
+package net.sourceforge.javaocr.ocr;
+
+import junit.framework.TestCase;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * test streaming grayscale decoding
+ */
+public class ImageReaderTest extends TestCase {
+
+    private File file;
+    private BufferedImage source;
+
+    @Override
+    protected void setUp() throws Exception {
+        source = new BufferedImage(37, 23, BufferedImage.TYPE_INT_RGB);
+        Random random = new Random(5);
+        for (int y = 0; y < source.getHeight(); y++) {
+            for (int x = 0; x < source.getWidth(); x++) {
+                source.setRGB(x, y, random.nextInt(0x1000000));
+            }
+        }
+        file = File.createTempFile("imageReader", ".png");
+        ImageIO.write(source, "png", file);
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        file.delete();
+    }
+
+    /**
+     * grayscale bytes shall be the same as converting decoded image pixel by pixel
+     */
+    public void testGrayscaleMatchesDecodedImage() throws Exception {
+        ByteImage image = ImageReader.readGrayscale(file);
+        assertEquals(37, image.getWidth());
+        assertEquals(23, image.getHeight());
+        for (int y = 0; y < 23; y++) {
+            for (int x = 0; x < 37; x++) {
+                assertEquals(gray(source.getRGB(x, y)), image.get(x, y));
+            }
+        }
+    }
+
+    /**
+     * large images are subsampled while decoding
+     */
+    public void testSubsampling() throws Exception {
+        ByteImage image = ImageReader.readGrayscale(file, 10);
+        // every fourth pixel
+        assertEquals(10, image.getWidth());
+        assertEquals(6, image.getHeight());
+        for (int y = 0; y < 6; y++) {
+            for (int x = 0; x < 10; x++) {
+                assertEquals(gray(source.getRGB(x * 4, y * 4)), image.get(x, y));
+            }
+        }
+    }
+
+    /**
+     * grayscale sources are decoded into bytes as they are, and feed scanner pixel images
+     * the same way converted RGB images do
+     */
+    public void testGrayscaleSource() throws Exception {
+        BufferedImage graySource = new BufferedImage(37, 23, BufferedImage.TYPE_BYTE_GRAY);
+        Random random = new Random(7);
+        for (int y = 0; y < graySource.getHeight(); y++) {
+            for (int x = 0; x < graySource.getWidth(); x++) {
+                graySource.getRaster().setSample(x, y, 0, 30 + random.nextInt(200));
+            }
+        }
+        File grayFile = File.createTempFile("imageReader", ".png");
+        try {
+            ImageIO.write(graySource, "png", grayFile);
+            ByteImage image = ImageReader.readGrayscale(grayFile);
+            for (int y = 0; y < 23; y++) {
+                for (int x = 0; x < 37; x++) {
+                    assertEquals(graySource.getRaster().getSample(x, y, 0), image.get(x, y));
+                }
+            }
+
+            // java2d would gamma correct linear gray when converting to RGB, so build RGB pixels by hand
+            int[] rgb = new int[37 * 23];
+            for (int i = 0; i < rgb.length; i++) {
+                int v = graySource.getRaster().getSample(i % 37, i / 37, 0);
+                rgb[i] = 0xff000000 | (v << 16) | (v << 8) | v;
+            }
+            net.sourceforge.javaocr.scanner.PixelImage fromRGB = new net.sourceforge.javaocr.scanner.PixelImage(rgb, 37, 23);
+            fromRGB.toGrayScale(true);
+            net.sourceforge.javaocr.scanner.PixelImage fromBytes = new net.sourceforge.javaocr.scanner.PixelImage(image);
+            fromBytes.normalizeGrayScale();
+            assertTrue(Arrays.equals(fromRGB.pixels, fromBytes.pixels));
+        } finally {
+            grayFile.delete();
+        }
+    }
+
+    /**
+     * color JPEG is decoded straight to luminance, which is the same grayscale up to rounding
+     */
+    public void testColorJpegLuminance() throws Exception {
+        // smooth colors, so reconstructed RGB is not clipped
+        BufferedImage smooth = new BufferedImage(37, 23, BufferedImage.TYPE_INT_RGB);
+        for (int y = 0; y < smooth.getHeight(); y++) {
+            for (int x = 0; x < smooth.getWidth(); x++) {
+                smooth.setRGB(x, y, ((40 + x * 4) << 16) | ((60 + y * 6) << 8) | (200 - x * 2 - y * 2));
+            }
+        }
+        File jpegFile = File.createTempFile("imageReader", ".jpg");
+        try {
+            ImageIO.write(smooth, "jpg", jpegFile);
+            BufferedImage decoded = ImageIO.read(jpegFile);
+            ByteImage image = ImageReader.readGrayscale(jpegFile);
+            assertEquals(37, image.getWidth());
+            assertEquals(23, image.getHeight());
+            for (int y = 0; y < 23; y++) {
+                for (int x = 0; x < 37; x++) {
+                    assertTrue(Math.abs(gray(decoded.getRGB(x, y)) - image.get(x, y)) <= 2);
+                }
+            }
+        } finally {
+            jpegFile.delete();
+        }
+    }
+
+    private static int gray(int rgb) {
+        return (((rgb >> 16) & 0xff) * 306 + ((rgb >> 8) & 0xff) * 601 + (rgb & 0xff) * 117) >> 10;
+    }
+}
@@ -2,6 +2,7 @@ package net.sourceforge.javaocr.ocr;
 
 import junit.framework.TestCase;
 import net.sourceforge.javaocr.Image;
+import net.sourceforge.javaocr.SpanIterator;
 
 import java.util.ArrayList;
 
@@ -151,6 +152,51 @@ public class LinearImageTest extends TestCase {
 
      }
 
+    /**
+     * span iterators traverse the same pixels as image iterators
+     */
+    public void testSpanTraversal() {
+        final TestLinearImage testLinearImage = new TestLinearImage(10, 12, 2, 1, 4, 3);
+        SpanIterator span = testLinearImage.spanH(1);
+        for (testLinearImage.iterateH(1); testLinearImage.hasNext();) {
+            assertTrue(span.hasNext());
+            assertEquals(testLinearImage.next(), span.next());
+        }
+        assertFalse(span.hasNext());
+
+        span = testLinearImage.spanV(2, 1, 2);
+        for (testLinearImage.iterateV(2, 1, 2); testLinearImage.hasNext();) {
+            assertTrue(span.hasNext());
+            assertEquals(testLinearImage.next(), span.next());
+        }
+        assertFalse(span.hasNext());
+    }
+
+    /**
+     * spans and random access do not disturb image iterator
+     */
+    public void testSpansAreIndependent() {
+        final PixelImage image = new PixelImage(new int[]{0, 1, 2, 3, 4, 5}, 3, 2);
+        image.iterateH(1);
+        assertEquals(3, image.next());
+
+        SpanIterator first = image.spanH(0);
+        SpanIterator second = image.spanV(2);
+        assertEquals(0, first.next());
+        assertEquals(2, second.next());
+        first.next(7);
+        second.next(8);
+        assertEquals(7, image.get(1, 0));
+        assertEquals(8, image.get(2, 1));
+        image.put(0, 0, 9);
+
+        assertEquals(3, image.get());
+        assertEquals(4, image.next());
+        assertEquals(8, image.next());
+        assertFalse(image.hasNext());
+        assertEquals(9, image.pixels[0]);
+    }
+
     public class TestLinearImage extends AbstractLinearImage {
         ArrayList values = new ArrayList();
 
@@ -0,0 +1,75 @@
+package net.sourceforge.javaocr.scanner;
+
+import junit.framework.TestCase;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * fixed point filter shall produce exactly the same pixels as straight float filtering
+ */
+public class FirFilterTest extends TestCase {
+
+    public void testMatchesFloatFilter() {
+        Random random = new Random(3);
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            for (int n = 0; n < 200; n++) {
+                int width = 5 + random.nextInt(n < 150 ? 30 : 400);
+                int height = 5 + random.nextInt(n < 150 ? 30 : 150);
+                int[] pixels = new int[width * height];
+                for (int i = 0; i < pixels.length; i++) {
+                    // flat areas sum up close to integer boundaries, out of range values
+                    // have to be handled as well
+                    pixels[i] = n % 3 == 0 ? random.nextInt(4) * 85 : n % 7 == 0 ? random.nextInt() : random.nextInt(256);
+                }
+                int[] expected = reference(pixels, width, height);
+
+                int[] serial = pixels.clone();
+                new PixelImage(serial, width, height).filter();
+                assertTrue(Arrays.equals(expected, serial));
+
+                int[] parallel = pixels.clone();
+                new PixelImage(parallel, width, height).filter(executor);
+                assertTrue(Arrays.equals(expected, parallel));
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * filter sample by sample, the way it was always done
+     */
+    private static int[] reference(int[] pixels, int width, int height) {
+        int[] result = pixels.clone();
+        int[] line = new int[Math.max(width, height)];
+        for (int y = 0; y < height; y++) {
+            System.arraycopy(result, y * width, line, 0, width);
+            for (int x = 0; x < width; x++) {
+                result[y * width + x] = sample(line, width, x);
+            }
+        }
+        for (int x = 0; x < width; x++) {
+            for (int y = 0; y < height; y++) {
+                line[y] = result[y * width + x];
+            }
+            for (int y = 0; y < height; y++) {
+                result[y * width + x] = sample(line, height, y);
+            }
+        }
+        return result;
+    }
+
+    private static int sample(int[] line, int length, int pos) {
+        final float[] coeffs = PixelImage.FILTER_FIR_COEFFS;
+        float c = 0.0f;
+        for (int j = 0; j < coeffs.length; j++) {
+            int p = pos - coeffs.length / 2 + j;
+            c += ((p < 0 || p >= length ? 255.0f : (float) line[p]) * coeffs[j]);
+        }
+        return (int) Math.min(255.0f, Math.max(0.0f, c));
+    }
+}
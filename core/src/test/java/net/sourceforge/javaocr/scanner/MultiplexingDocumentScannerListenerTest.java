@@ -0,0 +1,89 @@
+package net.sourceforge.javaocr.scanner;
+
+import junit.framework.TestCase;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * every listener shall receive the same events a directly attached listener gets
+ */
+public class MultiplexingDocumentScannerListenerTest extends TestCase {
+
+    private static final int W = 60;
+    private static final int H = 40;
+
+    /**
+     * two rows of dark blocks on white page
+     */
+    private PixelImage page() {
+        int[] pixels = new int[W * H];
+        for (int y = 0; y < H; y++) {
+            for (int x = 0; x < W; x++) {
+                boolean row = (y >= 5 && y < 12) || (y >= 22 && y < 30);
+                boolean glyph = x % 10 >= 3 && x % 10 < 7 && x < 25 || x % 10 >= 2 && x % 10 < 8 && x > 40;
+                pixels[y * W + x] = row && glyph ? 0 : 255;
+            }
+        }
+        return new PixelImage(pixels, W, H);
+    }
+
+    public void testListenersGetTheSameEvents() {
+        PixelImage pixelImage = page();
+        DocumentScanner documentScanner = new DocumentScanner();
+        RecordingListener direct = new RecordingListener();
+        documentScanner.scan(pixelImage, direct, 0, 0, W, H);
+
+        MultiplexingDocumentScannerListener multiplexer = new MultiplexingDocumentScannerListener();
+        RecordingListener first = new RecordingListener();
+        RecordingListener second = new RecordingListener();
+        multiplexer.addListener(first);
+        multiplexer.addListener(second);
+        documentScanner.scan(pixelImage, multiplexer, 0, 0, W, H);
+        assertEquals(direct.events.size(), multiplexer.getEventCount());
+        assertTrue(first.events.isEmpty());
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            multiplexer.replay(executor);
+        } finally {
+            executor.shutdown();
+        }
+        assertTrue(direct.events.contains("char 3 5 7 12"));
+        assertEquals(direct.events, first.events);
+        assertEquals(direct.events, second.events);
+
+        multiplexer.clear();
+        assertEquals(0, multiplexer.getEventCount());
+    }
+
+    private static class RecordingListener implements DocumentScannerListener {
+        final List<String> events = new ArrayList<String>();
+
+        public void beginDocument(PixelImage pixelImage) {
+            events.add("begin");
+        }
+
+        public void beginRow(PixelImage pixelImage, int y1, int y2) {
+            events.add("row " + y1 + " " + y2);
+        }
+
+        public void processChar(PixelImage pixelImage, int x1, int y1, int x2, int y2, int rowY1, int rowY2) {
+            events.add("char " + x1 + " " + y1 + " " + x2 + " " + y2);
+        }
+
+        public void processSpace(PixelImage pixelImage, int x1, int y1, int x2, int y2) {
+            events.add("space " + x1 + " " + x2);
+        }
+
+        public void endRow(PixelImage pixelImage, int y1, int y2) {
+            events.add("end row " + y1 + " " + y2);
+        }
+
+        public void endDocument(PixelImage pixelImage) {
+            events.add("end");
+        }
+    }
+}
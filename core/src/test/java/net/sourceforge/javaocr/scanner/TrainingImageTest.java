@@ -0,0 +1,76 @@
+package net.sourceforge.javaocr.scanner;
+
+import junit.framework.TestCase;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * bounded error factor shall either be exactly the unbounded one, or exceed the bound
+ */
+public class TrainingImageTest extends TestCase {
+
+    /**
+     * match sitting exactly on the bound must not be abandoned - squared bound rounds
+     * below 65025 here, while the partial error factor of the first row equals the bound
+     */
+    public void testErrorOnBoundIsNotAbandoned() {
+        int[] white = new int[25];
+        Arrays.fill(white, 255);
+        TrainingImage template = new TrainingImage(white, 5, 5, 0, 0);
+        int[] glyph = white.clone();
+        glyph[0] = 0;
+        glyph[24] = 0;
+
+        double exact = template.calcMSE(glyph, 5, 5, 0, 0, 5, 5);
+        assertEquals(Math.sqrt(2 * 65025.0) / 25.0, exact, 0.0);
+        assertTrue(template.calcMSE(glyph, 5, 5, 0, 0, 5, 5, 10.2) > 10.2);
+        assertEquals(exact, template.calcMSE(glyph, 5, 5, 0, 0, 5, 5, exact), 0.0);
+    }
+
+    public void testBoundedAgreesWithUnbounded() {
+        Random random = new Random(5);
+        for (int n = 0; n < 2000; n++) {
+            int tw = 1 + random.nextInt(12);
+            int th = 1 + random.nextInt(12);
+            TrainingImage template = new TrainingImage(binary(random, tw * th), tw, th, random.nextInt(3), random.nextInt(3));
+
+            int w = 1 + random.nextInt(16);
+            int h = 1 + random.nextInt(16);
+            int[] glyph = binary(random, w * h);
+            int x1 = random.nextInt(w);
+            int y1 = random.nextInt(h);
+            int x2 = x1 + 1 + random.nextInt(w - x1);
+            int y2 = y1 + 1 + random.nextInt(h - y1);
+
+            double exact = template.calcMSE(glyph, w, h, x1, y1, x2, y2);
+            // bounds right on the error factor and next to it, binarized glyphs hit them on whole rows
+            double[] bounds = {exact, Math.nextUp(exact), Math.nextAfter(exact, 0), exact / 2, exact * 2, 0};
+            for (double bound : bounds) {
+                double bounded = template.calcMSE(glyph, w, h, x1, y1, x2, y2, bound);
+                if (exact <= bound) {
+                    assertEquals(exact, bounded, 0.0);
+                } else {
+                    assertTrue(bounded > bound);
+                }
+            }
+        }
+    }
+
+    public void testFromFractionsKeepsFractions() {
+        TrainingImage image = TrainingImage.fromFractions(new int[6], 2, 3, 0.25f, 0.125f);
+        assertEquals(0.25f, image.topWhiteSpaceFraction, 0.0f);
+        assertEquals(0.125f, image.bottomWhiteSpaceFraction, 0.0f);
+        // int arguments are white space pixel counts
+        TrainingImage counted = new TrainingImage(new int[6], 2, 3, 1, 0);
+        assertEquals(0.25f, counted.topWhiteSpaceFraction, 0.0f);
+    }
+
+    private static int[] binary(Random random, int size) {
+        int[] pixels = new int[size];
+        for (int i = 0; i < size; i++) {
+            pixels[i] = random.nextInt(4) == 0 ? 0 : 255;
+        }
+        return pixels;
+    }
+}
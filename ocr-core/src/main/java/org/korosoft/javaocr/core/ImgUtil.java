@@ -1,9 +1,15 @@
 package org.korosoft.javaocr.core;
 
 import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageTypeSpecifier;
+import javax.imageio.stream.ImageInputStream;
 import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.Iterator;
 
 /**
  * Utility class fot basic {@link MutableImage} manipulations.
@@ -20,14 +26,74 @@ public final class ImgUtil {
      * @throws IOException When UO exception occurs
      */
     public static MutableImage readMutableImageFromSupportedStream(InputStream stream) throws IOException {
-        final BufferedImage bufferedImage = ImageIO.read(stream);
+        return readMutableImage(stream, Integer.MAX_VALUE, false);
+    }
+
+    /**
+     * Loads mutable image from stream, decoding it straight to grayscale bytes. Images larger than
+     * <code>maxDimension</code> are subsampled by the image decoder, so full resolution raster is never built.
+     * Grayscale images are decoded into one byte per pixel and their stored samples are used as they are.
+     * Unlike {@link #readMutableImageFromSupportedStream(InputStream)}, they are not gamma-converted
+     * to sRGB on the way, so grayscale pixels come out darker than those read by that method.
+     *
+     * @param stream       Input stream.
+     * @param maxDimension Maximal width or height of resulting image.
+     * @return read {@link MutableImage}
+     * @throws IOException When IO exception occurs or image format is not supported
+     */
+    public static MutableImage readMutableImageFromSupportedStream(InputStream stream, int maxDimension) throws IOException {
+        return readMutableImage(stream, maxDimension, true);
+    }
+
+    /**
+     * @param rawGray whether grayscale images shall be decoded to their stored samples
+     */
+    private static MutableImage readMutableImage(InputStream stream, int maxDimension, boolean rawGray) throws IOException {
+        final ImageInputStream input = ImageIO.createImageInputStream(stream);
+        if (input == null) {
+            throw new IOException("Can not create image input stream");
+        }
+        final BufferedImage bufferedImage;
+        try {
+            final Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) {
+                throw new IOException("Unsupported image format");
+            }
+            final ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                final ImageReadParam param = reader.getDefaultReadParam();
+                final int dim = Math.max(reader.getWidth(0), reader.getHeight(0));
+                final int step = dim > maxDimension ? (dim + maxDimension - 1) / maxDimension : 1;
+                param.setSourceSubsampling(step, step, 0, 0);
+                final ImageTypeSpecifier rawType = reader.getRawImageType(0);
+                if (rawGray && rawType != null && rawType.getBufferedImageType() == BufferedImage.TYPE_BYTE_GRAY) {
+                    param.setDestinationType(rawType);
+                }
+                bufferedImage = reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        } finally {
+            input.close();
+        }
         final int w = bufferedImage.getWidth();
         final int h = bufferedImage.getHeight();
+        if (rawGray && bufferedImage.getType() == BufferedImage.TYPE_BYTE_GRAY
+                && bufferedImage.getRaster().getDataBuffer() instanceof DataBufferByte) {
+            // stored samples are taken as they are, getRGB would gamma-convert linear gray to sRGB
+            final byte[] gray = ((DataBufferByte) bufferedImage.getRaster().getDataBuffer()).getData();
+            if (gray.length == w * h && bufferedImage.getRaster().getDataBuffer().getOffset() == 0) {
+                return new MutableImage(gray, 0, 0, w, h);
+            }
+        }
         final byte[] pixels = new byte[w * h];
+        final int[] row = new int[w];
         int p = 0;
         for (int y = 0; y < h; y++) {
+            bufferedImage.getRGB(0, y, w, 1, row, 0, w);
             for (int x = 0; x < w; x++) {
-                int rgb = bufferedImage.getRGB(x, y);
+                int rgb = row[x];
                 int c1 = rgb & 0xff;
                 int c2 = (rgb >> 8) & 0xff;
                 int c3 = (rgb >> 16) & 0xff;
@@ -25,12 +25,26 @@ public final class MSEUtil {
      *         do not add these values together in long format. Just switch to floating point evaluation.
      */
     public static MSEResult compareSlow(MutableImage i1, MutableImage i2, int baseLine1, int baseLine2, int defaultColor) {
+        return compareSlow(i1, i2, baseLine1, baseLine2, defaultColor, Long.MAX_VALUE);
+    }
+
+    /**
+     * Same as {@link #compareSlow(MutableImage, MutableImage, int, int, int)}, but gives up as soon as square error
+     * exceeds specified bound.
+     *
+     * @param i1             One of two images to compare.
+     * @param i2             One of two images to compare.
+     * @param baseLine1      Base line for the first image
+     * @param baseLine2      Base line for the second image
+     * @param defaultColor   Default color for non-overlapping image parts
+     * @param maxSquareError Bound of square error. Use {@link #numPixels(MutableImage, MutableImage, int, int)} to
+     *                       convert mean square error bound.
+     * @return MSEResult object. If result.squareError exceeds maxSquareError, comparison was abandoned and
+     *         result contains partial values only.
+     */
+    public static MSEResult compareSlow(MutableImage i1, MutableImage i2, int baseLine1, int baseLine2, int defaultColor, long maxSquareError) {
         long squareError = 0;
         int numPixels = 0;
-
-        if (i2.width > i1.width) {
-            compareSlow(i2, i1, baseLine2, baseLine1, defaultColor);
-        }
         // i1 is wider of of equal width to i2
         final int virtHeight2 = i2.height * i1.width / i2.width;
         final int virtBaseLine2 = baseLine2 * i1.width / i2.width;
@@ -48,6 +62,9 @@ public final class MSEUtil {
                     p1++;
                 }
                 p1 += i1.lineSpan;
+                if (squareError > maxSquareError) {
+                    return new MSEResult(squareError, numPixels);
+                }
             }
         } else {
             // i2 exceeds i1 at the top
@@ -61,6 +78,9 @@ public final class MSEUtil {
                     squareError += (defaultColor - v2) * (defaultColor - v2);
                     numPixels++;
                 }
+                if (squareError > maxSquareError) {
+                    return new MSEResult(squareError, numPixels);
+                }
             }
         }
 
@@ -81,6 +101,9 @@ public final class MSEUtil {
             }
             p1 += i1.lineSpan;
             y1++;
+            if (squareError > maxSquareError) {
+                return new MSEResult(squareError, numPixels);
+            }
         }
 
         // Handle bottom not overlapped portion of images.
@@ -94,6 +117,9 @@ public final class MSEUtil {
                     p1++;
                 }
                 p1 += i1.lineSpan;
+                if (squareError > maxSquareError) {
+                    return new MSEResult(squareError, numPixels);
+                }
             }
         } else { // There is exceeding portion of i1
             final int p2end = i2.firstPixel + i2.height * i2.fullLine - i2.lineSpan;
@@ -109,11 +135,51 @@ public final class MSEUtil {
                     squareError += (defaultColor - v2) * (defaultColor - v2);
                     numPixels++;
                 }
+                if (squareError > maxSquareError) {
+                    return new MSEResult(squareError, numPixels);
+                }
             }
         }
         return new MSEResult(squareError, numPixels);
     }
 
+    /**
+     * Calculates number of pixels {@link #compareSlow(MutableImage, MutableImage, int, int, int)} would compare,
+     * without comparing them.
+     *
+     * @param i1        One of two images to compare.
+     * @param i2        One of two images to compare.
+     * @param baseLine1 Base line for the first image
+     * @param baseLine2 Base line for the second image
+     * @return result.numPixels of the comparison
+     */
+    public static int numPixels(MutableImage i1, MutableImage i2, int baseLine1, int baseLine2) {
+        final int virtHeight2 = i2.height * i1.width / i2.width;
+        final int virtBaseLine2 = baseLine2 * i1.width / i2.width;
+        final int bottom2 = baseLine1 + virtHeight2 - virtBaseLine2;
+
+        int rows;
+        // lines of i1 consumed so far
+        int y1 = 0;
+        if (virtBaseLine2 < baseLine1) {
+            y1 = baseLine1 - virtBaseLine2;
+            rows = y1;
+        } else {
+            rows = virtBaseLine2 - baseLine1;
+        }
+        final int overlapBottom = bottom2 > i1.height ? i1.height : bottom2;
+        if (overlapBottom > y1) {
+            rows += overlapBottom - y1;
+            y1 = overlapBottom;
+        }
+        if (i1.height - baseLine1 > virtHeight2 - virtBaseLine2) {
+            rows += Math.max(i1.height - y1, 0);
+        } else {
+            rows += Math.max(virtHeight2 - (virtBaseLine2 + i1.height - baseLine1), 0);
+        }
+        return rows * i1.width;
+    }
+
     /**
      * Calculates mean square difference between two images. This algorithm uses larger image as the base for
      * comparison, so it works slower but has better statistics.
@@ -125,6 +191,20 @@ public final class MSEUtil {
      *         do not add these values together in long format. Just switch to floating point evaluation.
      */
     public static MSEResult compareSlow(MutableImage i1, MutableImage i2) {
+        return compareSlow(i1, i2, Long.MAX_VALUE);
+    }
+
+    /**
+     * Same as {@link #compareSlow(MutableImage, MutableImage)}, but gives up as soon as square error exceeds
+     * specified bound. Number of compared pixels is always max(i1.width, i2.width) * max(i1.height, i2.height).
+     *
+     * @param i1             One of two images to compare.
+     * @param i2             One of two images to compare.
+     * @param maxSquareError Bound of square error.
+     * @return MSEResult object. If result.squareError exceeds maxSquareError, comparison was abandoned and
+     *         result contains partial values only.
+     */
+    public static MSEResult compareSlow(MutableImage i1, MutableImage i2, long maxSquareError) {
         long squareError = 0;
         int numPixels = 0;
 
@@ -134,7 +214,7 @@ public final class MSEUtil {
         }
         // Iterate through larger dimensions for better accuracy
         if (i1.width > i2.width) {
-            return compareSlow(i2, i1);
+            return compareSlow(i2, i1, maxSquareError);
         }
         if (i2.height >= i1.height) {
             // i2 is wider and taller
@@ -151,6 +231,9 @@ public final class MSEUtil {
                     p2++;
                 }
                 p2 += i2.lineSpan;
+                if (squareError > maxSquareError) {
+                    break;
+                }
             }
         } else {
             // i2 is wider but i1 is taller
@@ -165,6 +248,9 @@ public final class MSEUtil {
                     squareError += (v2 - v1) * (v2 - v1);
                     numPixels++;
                 }
+                if (squareError > maxSquareError) {
+                    break;
+                }
             }
         }
         return new MSEResult(squareError, numPixels);
@@ -181,6 +267,20 @@ public final class MSEUtil {
      *         do not add these values together in long format. Just switch to floating point evaluation.
      */
     public static MSEResult compareFast(MutableImage i1, MutableImage i2) {
+        return compareFast(i1, i2, Long.MAX_VALUE);
+    }
+
+    /**
+     * Same as {@link #compareFast(MutableImage, MutableImage)}, but gives up as soon as square error exceeds
+     * specified bound. Number of compared pixels is always min(i1.width, i2.width) * min(i1.height, i2.height).
+     *
+     * @param i1             One of two images to compare.
+     * @param i2             One of two images to compare.
+     * @param maxSquareError Bound of square error.
+     * @return MSEResult object. If result.squareError exceeds maxSquareError, comparison was abandoned and
+     *         result contains partial values only.
+     */
+    public static MSEResult compareFast(MutableImage i1, MutableImage i2, long maxSquareError) {
         long squareError = 0;
         int numPixels = 0;
 
@@ -190,7 +290,7 @@ public final class MSEUtil {
         }
         // Iterate through larger dimensions for better accuracy
         if (i1.width > i2.width) {
-            return compareFast(i2, i1);
+            return compareFast(i2, i1, maxSquareError);
         }
         if (i2.height >= i1.height) {
             // i2 is wider and taller
@@ -207,6 +307,9 @@ public final class MSEUtil {
                     p1++;
                 }
                 p1 += i1.lineSpan;
+                if (squareError > maxSquareError) {
+                    break;
+                }
             }
         } else {
             // i2 is wider but i1 is taller
@@ -221,6 +324,9 @@ public final class MSEUtil {
                     squareError += (v1 - v2) * (v1 - v2);
                     numPixels++;
                 }
+                if (squareError > maxSquareError) {
+                    break;
+                }
             }
         }
         return new MSEResult(squareError, numPixels);
@@ -0,0 +1,25 @@
+package org.korosoft.javaocr.core.api;
+
+import org.korosoft.javaocr.core.MutableImage;
+
+/**
+ * Image comparator able to give up comparison as soon as it is clear that score is not going to be below specified
+ * bound. {@link org.korosoft.javaocr.core.impl.OCRScanner} passes its recognition threshold, so clearly different
+ * reference images are rejected without comparing them completely.
+ *
+ * @since 1.0
+ */
+public interface BoundedImageComparator extends ImageComparator {
+    /**
+     * Compares images the same way {@link #compareImages(MutableImage, int, MutableImage, int)} does.
+     *
+     * @param image1    One of two images to compare.
+     * @param baseLine1 Base line for the first image.
+     * @param image2    One of two images to compare.
+     * @param baseLine2 Base line for the second image.
+     * @param maxScore  Score bound.
+     * @return Score equal to the one {@link #compareImages(MutableImage, int, MutableImage, int)} returns if that score
+     *         is below {@code maxScore}. Any value not below {@code maxScore} otherwise.
+     */
+    double compareImages(MutableImage image1, int baseLine1, MutableImage image2, int baseLine2, double maxScore);
+}
@@ -0,0 +1,24 @@
+package org.korosoft.javaocr.core.api;
+
+import org.korosoft.javaocr.core.MutableImage;
+
+import java.util.List;
+
+/**
+ * Reference image storage able to pick reference images which may match given symbol without comparing it to all of
+ * them. {@link org.korosoft.javaocr.core.impl.OCRScanner} compares symbols only to candidates returned by such storage.
+ *
+ * @since 1.0
+ */
+public interface IndexedReferenceImageStorage extends ReferenceImageStorage {
+    /**
+     * Returns reference images of shape similar to the one of specified symbol. Images are compared with widths
+     * equalized and base lines aligned, so height to width ratio and base line position relative to the image height
+     * are compared. Reference images of the closest shape come first.
+     *
+     * @param image    Symbol image.
+     * @param baseLine Symbol base line.
+     * @return reference images to compare symbol to.
+     */
+    List<ReferenceImage> getCandidateReferenceImages(MutableImage image, int baseLine);
+}
@@ -0,0 +1,45 @@
+package org.korosoft.javaocr.core.impl;
+
+import org.korosoft.javaocr.core.MSEUtil;
+import org.korosoft.javaocr.core.MutableImage;
+import org.korosoft.javaocr.core.api.BoundedImageComparator;
+
+/**
+ * Compares symbol images with {@link MSEUtil#compareSlow(MutableImage, MutableImage, int, int, int)}, aligning base
+ * lines. Score is Math.sqrt(result.squareError / result.numPixels).
+ *
+ * @since 1.0
+ */
+public class MSEImageComparator implements BoundedImageComparator {
+    private final int defaultColor;
+
+    /**
+     * Creates comparator.
+     *
+     * @param defaultColor Default color for non-overlapping image parts.
+     */
+    public MSEImageComparator(int defaultColor) {
+        this.defaultColor = defaultColor;
+    }
+
+    public double compareImages(MutableImage image1, int baseLine1, MutableImage image2, int baseLine2) {
+        MSEUtil.MSEResult result = MSEUtil.compareSlow(image1, image2, baseLine1, baseLine2, defaultColor);
+        return Math.sqrt(result.squareError / result.numPixels);
+    }
+
+    public double compareImages(MutableImage image1, int baseLine1, MutableImage image2, int baseLine2, double maxScore) {
+        if (Double.isInfinite(maxScore) || Double.isNaN(maxScore)) {
+            return compareImages(image1, baseLine1, image2, baseLine2);
+        }
+        // Score is not below maxScore once squareError / numPixels (integer division) reaches ceil(maxScore^2),
+        // that is once squareError reaches ceil(maxScore^2) * numPixels.
+        final long numPixels = MSEUtil.numPixels(image1, image2, baseLine1, baseLine2);
+        final double minSquareError = Math.ceil(maxScore * maxScore) * numPixels;
+        final long maxSquareError = minSquareError >= Long.MAX_VALUE ? Long.MAX_VALUE : (long) minSquareError - 1;
+        MSEUtil.MSEResult result = MSEUtil.compareSlow(image1, image2, baseLine1, baseLine2, defaultColor, maxSquareError);
+        if (result.squareError > maxSquareError) {
+            return Double.POSITIVE_INFINITY;
+        }
+        return Math.sqrt(result.squareError / result.numPixels);
+    }
+}
@@ -8,6 +8,9 @@ import java.util.List;
 
 /**
  * OCR scanner
+ * <p/>
+ * Every symbol is compared to reference images and the best one scoring below recognition threshold is picked. If
+ * storage implements {@link IndexedReferenceImageStorage}, only its candidates of similar shape are compared.
  *
  * @author Dmitry Korotkov
  * @since 1.0
@@ -15,19 +18,23 @@ import java.util.List;
 public class OCRScanner {
     private final ImageScanner imageScanner;
     private final ReferenceImageStorage referenceImageStorage;
+    private final IndexedReferenceImageStorage indexedReferenceImageStorage;
     private final ImageComparator imageComparator;
+    private final BoundedImageComparator boundedImageComparator;
     private final RecognitionSettings settings;
 
     public OCRScanner(ImageScanner imageScanner, ReferenceImageStorage referenceImageStorage, ImageComparator imageComparator, RecognitionSettings settings) {
         this.imageScanner = imageScanner;
         this.referenceImageStorage = referenceImageStorage;
+        this.indexedReferenceImageStorage = referenceImageStorage instanceof IndexedReferenceImageStorage ? (IndexedReferenceImageStorage) referenceImageStorage : null;
         this.imageComparator = imageComparator;
+        this.boundedImageComparator = imageComparator instanceof BoundedImageComparator ? (BoundedImageComparator) imageComparator : null;
         this.settings = settings;
     }
 
     public List<List<List<RecognizedSymbol>>> scan(MutableImage image) {
         final List<List<List<RecognizedSymbol>>> lines = new ArrayList<List<List<RecognizedSymbol>>>();
-        final List<ReferenceImage> allReferenceImages = referenceImageStorage.getAllReferenceImages();
+        final List<ReferenceImage> allReferenceImages = indexedReferenceImageStorage == null ? referenceImageStorage.getAllReferenceImages() : null;
         imageScanner.scan(image, new ImageScanner.Callback() {
             List<List<RecognizedSymbol>> currentLine = new ArrayList<List<RecognizedSymbol>>();
             List<RecognizedSymbol> currentWord = new ArrayList<RecognizedSymbol>();
@@ -48,14 +55,22 @@ public class OCRScanner {
             }
 
             private RecognizedSymbol processIncomingSymbol(MutableImage symbol, int x, int y, int baseLine) {
+                final List<ReferenceImage> referenceImages = indexedReferenceImageStorage != null
+                        ? indexedReferenceImageStorage.getCandidateReferenceImages(symbol, baseLine)
+                        : allReferenceImages;
                 double bestMatchScore = 0;
                 ReferenceImage bestMatchImage = null;
-                for (ReferenceImage referenceImage : allReferenceImages) {
-                    double imageScore = imageComparator.compareImages(referenceImage.getImage(), referenceImage.getBaseLine(), symbol, baseLine);
-                    if (imageScore < settings.symbolRecognitionThreshold) {
+                // Only images scoring better than the best one so far are of interest
+                double maxScore = settings.symbolRecognitionThreshold;
+                for (ReferenceImage referenceImage : referenceImages) {
+                    final double imageScore = boundedImageComparator != null
+                            ? boundedImageComparator.compareImages(referenceImage.getImage(), referenceImage.getBaseLine(), symbol, baseLine, maxScore)
+                            : imageComparator.compareImages(referenceImage.getImage(), referenceImage.getBaseLine(), symbol, baseLine);
+                    if (imageScore < maxScore) {
+                        maxScore = imageScore;
                         bestMatchScore = imageScore;
                         bestMatchImage = referenceImage;
-                        if (bestMatchScore > settings.exactMatchThreshold) {
+                        if (bestMatchScore < settings.exactMatchThreshold) {
                             break;
                         }
                     }
@@ -11,13 +11,17 @@ import java.util.concurrent.atomic.AtomicBoolean;
 public class SimpleLearningOCRScanner implements LearningOCRScanner {
     final ImageScanner imageScanner;
     final ReferenceImageStorage referenceImageStorage;
+    final IndexedReferenceImageStorage indexedReferenceImageStorage;
     final ImageComparator imageComparator;
+    final BoundedImageComparator boundedImageComparator;
     final RecognitionSettings recognitionSettings;
 
     public SimpleLearningOCRScanner(ImageScanner imageScanner, ReferenceImageStorage referenceImageStorage, ImageComparator imageComparator, RecognitionSettings recognitionSettings) {
         this.imageScanner = imageScanner;
         this.referenceImageStorage = referenceImageStorage;
+        this.indexedReferenceImageStorage = referenceImageStorage instanceof IndexedReferenceImageStorage ? (IndexedReferenceImageStorage) referenceImageStorage : null;
         this.imageComparator = imageComparator;
+        this.boundedImageComparator = imageComparator instanceof BoundedImageComparator ? (BoundedImageComparator) imageComparator : null;
         this.recognitionSettings = recognitionSettings;
     }
 
@@ -87,21 +91,29 @@ public class SimpleLearningOCRScanner implements LearningOCRScanner {
         }
 
         final List<List<List<RecognizedSymbol>>> recognizedLines = new ArrayList<List<List<RecognizedSymbol>>>();
-        List<ReferenceImage> allReferenceImages = referenceImageStorage.getAllReferenceImages();
+        List<ReferenceImage> allReferenceImages = indexedReferenceImageStorage == null ? referenceImageStorage.getAllReferenceImages() : null;
 
         for (List<List<DetectedSymbol>> line : linesToRecognize) {
             List<List<RecognizedSymbol>> recognizedLine = new ArrayList<List<RecognizedSymbol>>();
             for (List<DetectedSymbol> word : line) {
                 List<RecognizedSymbol> recognizedWord = new ArrayList<RecognizedSymbol>();
                 for (DetectedSymbol detectedSymbol : word) {
+                    final List<ReferenceImage> referenceImages = indexedReferenceImageStorage != null
+                            ? indexedReferenceImageStorage.getCandidateReferenceImages(detectedSymbol.image, detectedSymbol.baseLine)
+                            : allReferenceImages;
                     double bestMatchScore = 0;
                     ReferenceImage bestMatchImage = null;
-                    for (ReferenceImage referenceImage : allReferenceImages) {
-                        double imageScore = imageComparator.compareImages(referenceImage.getImage(), referenceImage.getBaseLine(), detectedSymbol.image, detectedSymbol.baseLine);
-                        if (imageScore < recognitionSettings.symbolRecognitionThreshold) {
+                    // Only images scoring better than the best one so far are of interest
+                    double maxScore = recognitionSettings.symbolRecognitionThreshold;
+                    for (ReferenceImage referenceImage : referenceImages) {
+                        final double imageScore = boundedImageComparator != null
+                                ? boundedImageComparator.compareImages(referenceImage.getImage(), referenceImage.getBaseLine(), detectedSymbol.image, detectedSymbol.baseLine, maxScore)
+                                : imageComparator.compareImages(referenceImage.getImage(), referenceImage.getBaseLine(), detectedSymbol.image, detectedSymbol.baseLine);
+                        if (imageScore < maxScore) {
+                            maxScore = imageScore;
                             bestMatchScore = imageScore;
                             bestMatchImage = referenceImage;
-                            if (bestMatchScore > recognitionSettings.exactMatchThreshold) {
+                            if (bestMatchScore < recognitionSettings.exactMatchThreshold) {
                                 break;
                             }
                         }
@@ -1,19 +1,45 @@
 package org.korosoft.javaocr.core.impl;
 
 import org.korosoft.javaocr.core.MutableImage;
+import org.korosoft.javaocr.core.api.IndexedReferenceImageStorage;
 import org.korosoft.javaocr.core.api.ReferenceImage;
 import org.korosoft.javaocr.core.api.ReferenceImageStorage;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * Trivial implementation of {@link ReferenceImageStorage}
+ * <p/>
+ * Reference images are also put into buckets by height to width ratio (logarithmic scale) and base line position
+ * relative to image height, so candidates for a symbol are looked up in its own and neighbouring buckets only.
+ * Reference images differing from the symbol by less than one bucket in both dimensions are always returned.
+ * <p/>
+ * Storage is thread safe. Reference images and buckets are kept in append only arrays, every append publishes new
+ * immutable snapshot of the array (sharing the array itself until it has to grow). Lists returned by
+ * {@link #getAllReferenceImages()} and {@link #getCandidateReferenceImages(MutableImage, int)} are such snapshots,
+ * so they are obtained without copying and without locking and are not affected by images added later. Only
+ * {@link #addReferenceImage(MutableImage, String, int)} calls are serialized. Detection statistics are kept in
+ * striped counters, so concurrent {@link ReferenceImage#registerDetection(boolean)} calls are neither lost nor
+ * blocking each other.
  *
  * @author Dmitry Korotkov
  * @since 1.0
  */
-public class SimpleReferenceImageStorage implements ReferenceImageStorage {
-    List<ReferenceImage> images = new ArrayList<ReferenceImage>();
+public class SimpleReferenceImageStorage implements IndexedReferenceImageStorage {
+    /**
+     * Bucket width for natural logarithm of height to width ratio, about 22%.
+     */
+    private static final double ASPECT_STEP = 0.2;
+    /**
+     * Bucket width for base line position, fraction of image height.
+     */
+    private static final double BASE_LINE_STEP = 0.125;
+
+    private final Object appendLock = new Object();
+    private volatile Snapshot images = Snapshot.EMPTY;
+    private final ConcurrentMap<Long, Snapshot> buckets = new ConcurrentHashMap<Long, Snapshot>();
 //    Set<ReferenceImage> images = new TreeSet<ReferenceImage>(new Comparator<ReferenceImage>() {
 //        public int compare(ReferenceImage o1, ReferenceImage o2) {
 //            double x1 = (double) o1.getCorrectDetections() / (double) o1.getAllDetections();
@@ -22,28 +48,122 @@ public class SimpleReferenceImageStorage implements ReferenceImageStorage {
 //        }
 //    });
 
+    /**
+     * Returns snapshot of reference images registered so far, in order of registration.
+     *
+     * @return unmodifiable list of reference images.
+     */
     public List<ReferenceImage> getAllReferenceImages() {
-        return new ArrayList<ReferenceImage>(images);
+        return images;
     }
 
     public ReferenceImage addReferenceImage(MutableImage image, String symbol, int baseLine) {
         ReferenceImage r = new ReferenceImageImpl(image, symbol, baseLine, 1, 1);
-        images.add(r);
+        final Long key = bucketKey(aspectBucket(image), baseLineBucket(image, baseLine));
+        synchronized (appendLock) {
+            images = images.append(r);
+            final Snapshot bucket = buckets.get(key);
+            buckets.put(key, (bucket == null ? Snapshot.EMPTY : bucket).append(r));
+        }
         return r;
     }
 
-    private class ReferenceImageImpl implements ReferenceImage {
+    public List<ReferenceImage> getCandidateReferenceImages(MutableImage image, int baseLine) {
+        final int aspect = aspectBucket(image);
+        final int base = baseLineBucket(image, baseLine);
+        final List<ReferenceImage> candidates = new ArrayList<ReferenceImage>();
+        addBucket(candidates, aspect, base);
+        for (int a = aspect - 1; a <= aspect + 1; a++) {
+            for (int b = base - 1; b <= base + 1; b++) {
+                if (a != aspect || b != base) {
+                    addBucket(candidates, a, b);
+                }
+            }
+        }
+        return candidates;
+    }
+
+    private void addBucket(List<ReferenceImage> candidates, int aspect, int base) {
+        final Snapshot bucket = buckets.get(bucketKey(aspect, base));
+        if (bucket != null) {
+            bucket.addTo(candidates);
+        }
+    }
+
+    static int aspectBucket(MutableImage image) {
+        final double ratio = (double) Math.max(image.height, 1) / (double) Math.max(image.width, 1);
+        return (int) Math.floor(Math.log(ratio) / ASPECT_STEP);
+    }
+
+    static int baseLineBucket(MutableImage image, int baseLine) {
+        return (int) Math.floor((double) baseLine / (double) Math.max(image.height, 1) / BASE_LINE_STEP);
+    }
+
+    private static Long bucketKey(int aspect, int base) {
+        return ((long) aspect << 32) | (base & 0xffffffffL);
+    }
+
+    /**
+     * Immutable view of the first {@code size} elements of append only array. Appending stores new element past the
+     * end of the latest snapshot, so elements seen by any existing snapshot never change.
+     */
+    private static final class Snapshot extends AbstractList<ReferenceImage> implements RandomAccess {
+        static final Snapshot EMPTY = new Snapshot(new ReferenceImage[0], 0);
+
+        private final ReferenceImage[] array;
+        private final int size;
+
+        private Snapshot(ReferenceImage[] array, int size) {
+            this.array = array;
+            this.size = size;
+        }
+
+        /**
+         * Must be called on the latest snapshot only, with appends serialized.
+         */
+        Snapshot append(ReferenceImage image) {
+            ReferenceImage[] target = array;
+            if (size == target.length) {
+                target = new ReferenceImage[Math.max(8, size * 2)];
+                System.arraycopy(array, 0, target, 0, size);
+            }
+            target[size] = image;
+            return new Snapshot(target, size + 1);
+        }
+
+        void addTo(List<ReferenceImage> list) {
+            for (int i = 0; i < size; i++) {
+                list.add(array[i]);
+            }
+        }
+
+        @Override
+        public ReferenceImage get(int index) {
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+            }
+            return array[index];
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+
+    private static class ReferenceImageImpl implements ReferenceImage {
         private final MutableImage image;
         private final String symbol;
         private final int baseLine;
-        private int correctDetections;
-        private int allDetections;
+        // All detections are counted before correct ones, so correct count read first never exceeds all count read next
+        private final StripedCounter correctDetections = new StripedCounter();
+        private final StripedCounter allDetections = new StripedCounter();
 
         private ReferenceImageImpl(MutableImage image, String symbol, int baseLine, int correctDetections, int allDetections) {
             this.image = image;
             this.symbol = symbol;
-            this.correctDetections = correctDetections;
-            this.allDetections = allDetections;
+            this.correctDetections.add(correctDetections);
+            this.allDetections.add(allDetections);
             this.baseLine = baseLine;
         }
 
@@ -60,18 +180,18 @@ public class SimpleReferenceImageStorage implements ReferenceImageStorage {
         }
 
         public int getCorrectDetections() {
-            return correctDetections;
+            return correctDetections.intValue();
         }
 
         public int getAllDetections() {
-            return allDetections;
+            return allDetections.intValue();
         }
 
         public void registerDetection(boolean correct) {
+            allDetections.add(1);
             if (correct) {
-                correctDetections++;
+                correctDetections.add(1);
             }
-            allDetections++;
         }
     }
 }
@@ -0,0 +1,74 @@
+package org.korosoft.javaocr.core.impl;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Counter for frequent concurrent updates and rare reads. Updates go to single atomic value until two threads collide
+ * on it, then every thread updates its own stripe (picked by thread id, stripes are spread over separate cache lines)
+ * and reads sum all the stripes. Counter only grows, and its sum is not an atomic snapshot, but it is never below
+ * the value counter had when reading started.
+ *
+ * @since 1.0
+ */
+final class StripedCounter {
+    private static final int STRIPES = stripes();
+    /**
+     * Distance between stripes in the array, 8 longs make 64 bytes.
+     */
+    private static final int PADDING = 8;
+
+    private final AtomicLong base = new AtomicLong();
+    private final AtomicReference<AtomicLongArray> stripes = new AtomicReference<AtomicLongArray>();
+
+    private static int stripes() {
+        int stripes = 1;
+        while (stripes < Runtime.getRuntime().availableProcessors()) {
+            stripes <<= 1;
+        }
+        return stripes;
+    }
+
+    /**
+     * @param delta non negative increment.
+     */
+    void add(long delta) {
+        AtomicLongArray array = stripes.get();
+        if (array == null) {
+            final long value = base.get();
+            if (base.compareAndSet(value, value + delta)) {
+                return;
+            }
+            // Contention, switch to stripes
+            stripes.compareAndSet(null, new AtomicLongArray(STRIPES * PADDING));
+            array = stripes.get();
+        }
+        array.addAndGet(stripe(), delta);
+    }
+
+    long sum() {
+        long sum = base.get();
+        final AtomicLongArray array = stripes.get();
+        if (array != null) {
+            for (int i = 0; i < STRIPES; i++) {
+                sum += array.get(i * PADDING);
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * @return sum limited to {@code int} range.
+     */
+    int intValue() {
+        final long sum = sum();
+        return sum > Integer.MAX_VALUE ? Integer.MAX_VALUE : (int) sum;
+    }
+
+    private static int stripe() {
+        final long id = Thread.currentThread().getId();
+        int h = (int) (id ^ (id >>> 32)) * 0x9e3779b9;
+        return ((h >>> 16) & (STRIPES - 1)) * PADDING;
+    }
+}
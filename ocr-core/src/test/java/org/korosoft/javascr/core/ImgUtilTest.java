@@ -0,0 +1,40 @@
+package org.korosoft.javascr.core;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.korosoft.javaocr.core.ImgUtil;
+import org.korosoft.javaocr.core.MutableImage;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+
+public class ImgUtilTest {
+    @Test
+    public void testGrayPngKeepsStoredSamples() throws Exception {
+        byte[] png = grayPng();
+        MutableImage image = ImgUtil.readMutableImageFromSupportedStream(new ByteArrayInputStream(png), 100);
+        Assert.assertEquals("Stored sample of left pixel", 128, image.pixels[0] & 255);
+        Assert.assertEquals("Stored sample of right pixel", 64, image.pixels[1] & 255);
+    }
+
+    @Test
+    public void testGrayPngIsGammaConvertedByDefault() throws Exception {
+        byte[] png = grayPng();
+        BufferedImage decoded = ImageIO.read(new ByteArrayInputStream(png));
+        MutableImage image = ImgUtil.readMutableImageFromSupportedStream(new ByteArrayInputStream(png));
+        Assert.assertEquals("Converted left pixel", decoded.getRGB(0, 0) & 255, image.pixels[0] & 255);
+        Assert.assertEquals("Converted right pixel", decoded.getRGB(1, 0) & 255, image.pixels[1] & 255);
+        Assert.assertTrue("Linear gray is brightened", (image.pixels[0] & 255) > 128);
+    }
+
+    private static byte[] grayPng() throws Exception {
+        BufferedImage gray = new BufferedImage(2, 1, BufferedImage.TYPE_BYTE_GRAY);
+        gray.getRaster().setSample(0, 0, 0, 128);
+        gray.getRaster().setSample(1, 0, 0, 64);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(gray, "png", out);
+        return out.toByteArray();
+    }
+}
@@ -78,4 +78,47 @@ public class MSEUtilTest {
         MutableImage i2 = ImgUtil.readMutableImageFromSupportedStream(getClass().getResourceAsStream("/a_45_scaled.png"));
         Assert.assertEquals("Square error for baseline compare of matching scaled images", 0, MSEUtil.compareSlow(i1, i2, 33, 45, 0xff).squareError);
     }
+
+    @Test
+    public void testBoundedBaseLineCompare() throws Exception {
+        MutableImage[] images = new MutableImage[]{
+                ImgUtil.readMutableImageFromSupportedStream(getClass().getResourceAsStream("/a_33.png")),
+                ImgUtil.readMutableImageFromSupportedStream(getClass().getResourceAsStream("/a_22.png")),
+                ImgUtil.readMutableImageFromSupportedStream(getClass().getResourceAsStream("/a_45_scaled.png"))};
+        for (MutableImage i1 : images) {
+            for (MutableImage i2 : images) {
+                for (int baseLine1 = 0; baseLine1 <= i1.height; baseLine1 += 5) {
+                    for (int baseLine2 = 0; baseLine2 <= i2.height; baseLine2 += 5) {
+                        MSEUtil.MSEResult full;
+                        try {
+                            full = MSEUtil.compareSlow(i1, i2, baseLine1, baseLine2, 0xff);
+                        } catch (ArrayIndexOutOfBoundsException e) {
+                            // Base lines too far apart to compare
+                            continue;
+                        }
+                        Assert.assertEquals("Number of pixels", full.numPixels, MSEUtil.numPixels(i1, i2, baseLine1, baseLine2));
+                        MSEUtil.MSEResult bounded = MSEUtil.compareSlow(i1, i2, baseLine1, baseLine2, 0xff, full.squareError);
+                        Assert.assertEquals("Square error within bound", full.squareError, bounded.squareError);
+                        Assert.assertEquals("Number of pixels within bound", full.numPixels, bounded.numPixels);
+                        if (full.squareError > 0) {
+                            bounded = MSEUtil.compareSlow(i1, i2, baseLine1, baseLine2, 0xff, full.squareError - 1);
+                            Assert.assertTrue("Square error of abandoned compare should exceed the bound", bounded.squareError > full.squareError - 1);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testBoundedCompare() throws Exception {
+        MutableImage i1 = ImgUtil.readMutableImageFromSupportedStream(getClass().getResourceAsStream("/a_33.png"));
+        MutableImage i2 = ImgUtil.readMutableImageFromSupportedStream(getClass().getResourceAsStream("/a_45_scaled.png"));
+        MSEUtil.MSEResult fast = MSEUtil.compareFast(i1, i2);
+        MSEUtil.MSEResult slow = MSEUtil.compareSlow(i1, i2);
+        Assert.assertEquals("Square error for bounded fast compare", fast.squareError, MSEUtil.compareFast(i1, i2, fast.squareError).squareError);
+        Assert.assertEquals("Square error for bounded slow compare", slow.squareError, MSEUtil.compareSlow(i1, i2, slow.squareError).squareError);
+        Assert.assertTrue("Abandoned fast compare", MSEUtil.compareFast(i1, i2, 0).numPixels < fast.numPixels);
+        Assert.assertTrue("Abandoned slow compare", MSEUtil.compareSlow(i1, i2, 0).numPixels < slow.numPixels);
+    }
 }
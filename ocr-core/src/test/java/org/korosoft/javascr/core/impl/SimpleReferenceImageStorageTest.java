@@ -0,0 +1,139 @@
+package org.korosoft.javascr.core.impl;
+
+import junit.framework.Assert;
+import org.junit.Test;
+import org.korosoft.javaocr.core.ImgUtil;
+import org.korosoft.javaocr.core.MutableImage;
+import org.korosoft.javaocr.core.api.RecognitionSettings;
+import org.korosoft.javaocr.core.api.RecognizedSymbol;
+import org.korosoft.javaocr.core.api.ReferenceImage;
+import org.korosoft.javaocr.core.api.ReferenceImageStorage;
+import org.korosoft.javaocr.core.impl.MSEImageComparator;
+import org.korosoft.javaocr.core.impl.OCRScanner;
+import org.korosoft.javaocr.core.impl.SimpleImageScanner;
+import org.korosoft.javaocr.core.impl.SimpleReferenceImageStorage;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class SimpleReferenceImageStorageTest {
+    @Test
+    public void testCandidates() throws Exception {
+        SimpleReferenceImageStorage storage = new SimpleReferenceImageStorage();
+        ReferenceImage square = storage.addReferenceImage(image(10, 10), "o", 10);
+        ReferenceImage similar = storage.addReferenceImage(image(20, 21), "o", 20);
+        ReferenceImage tall = storage.addReferenceImage(image(5, 20), "l", 20);
+        ReferenceImage raised = storage.addReferenceImage(image(10, 10), "'", 25);
+
+        List<ReferenceImage> candidates = storage.getCandidateReferenceImages(image(30, 30), 30);
+        Assert.assertEquals("Number of candidates", 2, candidates.size());
+        Assert.assertSame("Same bucket comes first", square, candidates.get(0));
+        Assert.assertSame("Neighbouring bucket", similar, candidates.get(1));
+
+        candidates = storage.getCandidateReferenceImages(image(6, 24), 24);
+        Assert.assertEquals("Number of candidates", 1, candidates.size());
+        Assert.assertSame("Tall image", tall, candidates.get(0));
+
+        candidates = storage.getCandidateReferenceImages(image(4, 4), 10);
+        Assert.assertEquals("Number of candidates", 1, candidates.size());
+        Assert.assertSame("Raised image", raised, candidates.get(0));
+
+        Assert.assertEquals("All images", 4, storage.getAllReferenceImages().size());
+    }
+
+    @Test
+    public void testScanSameAsWithoutIndex() throws Exception {
+        MutableImage image = ImgUtil.readMutableImageFromSupportedStream(getClass().getResourceAsStream("/test.png"));
+        RecognitionSettings settings = new RecognitionSettings(40, 0.2, 10);
+        final SimpleReferenceImageStorage indexed = new SimpleReferenceImageStorage();
+        // Hides the index, so scanner compares symbols to all the reference images
+        ReferenceImageStorage plain = new ReferenceImageStorage() {
+            public List<ReferenceImage> getAllReferenceImages() {
+                return indexed.getAllReferenceImages();
+            }
+
+            public ReferenceImage addReferenceImage(MutableImage image, String symbol, int baseLine) {
+                return indexed.addReferenceImage(image, symbol, baseLine);
+            }
+        };
+        OCRScanner indexedScanner = new OCRScanner(new SimpleImageScanner(), indexed, new MSEImageComparator(255), settings);
+        OCRScanner plainScanner = new OCRScanner(new SimpleImageScanner(), plain, new MSEImageComparator(255), settings);
+
+        int n = 0;
+        for (List<RecognizedSymbol> word : indexedScanner.scan(image).get(0)) {
+            for (RecognizedSymbol symbol : word) {
+                indexed.addReferenceImage(symbol.image, String.valueOf((char) ('a' + n++)), symbol.baseLine);
+            }
+        }
+
+        String expected = text(plainScanner.scan(image));
+        Assert.assertEquals("Recognized text", expected, text(indexedScanner.scan(image)));
+        Assert.assertTrue("Symbols recognized", expected.replace(" ", "").length() > n);
+    }
+
+    @Test
+    public void testConcurrentUpdates() throws Exception {
+        final SimpleReferenceImageStorage storage = new SimpleReferenceImageStorage();
+        final ReferenceImage shared = storage.addReferenceImage(image(10, 10), "o", 10);
+        final List<ReferenceImage> before = storage.getAllReferenceImages();
+        final int threads = 4;
+        final int updates = 10000;
+        final CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<Future<?>>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(new Callable<Object>() {
+                    public Object call() throws Exception {
+                        start.await();
+                        for (int i = 0; i < updates; i++) {
+                            shared.registerDetection(i % 2 == 0);
+                            if (i % 100 == 0) {
+                                storage.addReferenceImage(image(10, 10), "x", 10);
+                            }
+                            List<ReferenceImage> snapshot = storage.getAllReferenceImages();
+                            Assert.assertSame("First image", shared, snapshot.get(0));
+                            Assert.assertNotNull("Last image", snapshot.get(snapshot.size() - 1));
+                        }
+                        return null;
+                    }
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        Assert.assertEquals("Snapshot is not changed", 1, before.size());
+        Assert.assertEquals("All images", 1 + threads * updates / 100, storage.getAllReferenceImages().size());
+        Assert.assertEquals("All detections", 1 + threads * updates, shared.getAllDetections());
+        Assert.assertEquals("Correct detections", 1 + threads * updates / 2, shared.getCorrectDetections());
+        Assert.assertEquals("Candidates", 1 + threads * updates / 100, storage.getCandidateReferenceImages(image(10, 10), 10).size());
+    }
+
+    private static MutableImage image(int width, int height) {
+        return new MutableImage(new byte[width * height], 0, 0, width, height);
+    }
+
+    private static String text(List<List<List<RecognizedSymbol>>> lines) {
+        StringBuilder builder = new StringBuilder();
+        for (List<List<RecognizedSymbol>> line : lines) {
+            for (List<RecognizedSymbol> word : line) {
+                for (RecognizedSymbol symbol : word) {
+                    builder.append(symbol.referenceImage == null ? " " : symbol.referenceImage.getSymbol());
+                }
+                builder.append(' ');
+            }
+            builder.append('\n');
+        }
+        return builder.toString();
+    }
+}
@@ -6,7 +6,6 @@
 // Please see the accompanying LICENSE.txt for details.
 package net.sourceforge.javaocr.ocrPlugins.OCRDemo;
 
-import java.awt.Image;
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
@@ -15,9 +14,11 @@ import java.util.List;
 import java.util.logging.Logger;
 import javax.imageio.ImageIO;
 
+import net.sourceforge.javaocr.ocr.ByteImage;
 import net.sourceforge.javaocr.ocr.ImageReader;
 import net.sourceforge.javaocr.ocrPlugins.mseOCR.CharacterRange;
 import net.sourceforge.javaocr.ocrPlugins.mseOCR.OCRScanner;
+import net.sourceforge.javaocr.ocrPlugins.mseOCR.TemplateLibrary;
 import net.sourceforge.javaocr.scanner.FoundWord;
 import net.sourceforge.javaocr.scanner.TrainingImage;
 import net.sourceforge.javaocr.ocrPlugins.mseOCR.TrainingImageLoader;
@@ -32,7 +33,6 @@ public class OCRScannerDemo
 
     private static final long serialVersionUID = 1L;
     private boolean debug = true;
-    private Image image;
     private OCRScanner scanner;
 
     public OCRScannerDemo()
@@ -45,49 +45,59 @@ public class OCRScannerDemo
      * @param trainingImageDir The directory from which to load the images.
      */
     public void loadTrainingImages(String trainingImageDir)
+    {
+        loadTrainingImages(trainingImageDir, null);
+    }
+
+    /**
+     * Load demo training images, compiled into template library.  Library is
+     * compiled from the training images on the first run and memory mapped on
+     * subsequent runs, so training images are not decoded again and characters
+     * are matched straight against the mapping.
+     * @param trainingImageDir The directory from which to load the images, if
+     * library does not exist yet.  May be <code>null</code> if it does.
+     * @param libraryFile The template library file, or <code>null</code> to
+     * load training images every time.
+     */
+    public void loadTrainingImages(String trainingImageDir, File libraryFile)
     {
         if (debug)
         {
-            System.err.println("loadTrainingImages(" + trainingImageDir + ")");
-        }
-        if (!trainingImageDir.endsWith(File.separator))
-        {
-            trainingImageDir += File.separator;
+            System.err.println("loadTrainingImages(" + trainingImageDir + ", " + libraryFile + ")");
         }
         try
         {
             scanner.clearTrainingImages();
-            TrainingImageLoader loader = new TrainingImageLoader();
-            HashMap<Character, ArrayList<TrainingImage>> trainingImageMap = new HashMap<Character, ArrayList<TrainingImage>>();
-            if (debug)
+            if (libraryFile != null && libraryFile.exists())
             {
-                System.err.println("ascii.png");
+                if (debug)
+                {
+                    System.err.println("opening " + libraryFile);
+                }
+                scanner.setTemplateLibrary(TemplateLibrary.open(libraryFile));
             }
-            loader.load(
-                    trainingImageDir + "ascii.png",
-                    new CharacterRange('!', '~'),
-                    trainingImageMap);
-            if (debug)
+            else
             {
-                System.err.println("hpljPica.jpg");
+                if (trainingImageDir == null)
+                {
+                    System.err.println("Cannot find template library: " + libraryFile);
+                    System.exit(2);
+                }
+                HashMap<Character, ArrayList<TrainingImage>> trainingImageMap = loadTrainingImageMap(trainingImageDir);
+                if (libraryFile != null)
+                {
+                    if (debug)
+                    {
+                        System.err.println("compiling " + libraryFile);
+                    }
+                    TemplateLibrary.compile(trainingImageMap, libraryFile);
+                }
+                if (debug)
+                {
+                    System.err.println("adding images");
+                }
+                scanner.addTrainingImages(trainingImageMap);
             }
-            loader.load(
-                    trainingImageDir + "hpljPica.jpg",
-                    new CharacterRange('!', '~'),
-                    trainingImageMap);
-            if (debug)
-            {
-                System.err.println("digits.jpg");
-            }
-            loader.load(
-                    trainingImageDir + "digits.jpg",
-                    new CharacterRange('0', '9'),
-                    trainingImageMap);
-            if (debug)
-            {
-                System.err.println("adding images");
-            }
-            scanner.addTrainingImages(trainingImageMap);
             if (debug)
             {
                 System.err.println("loadTrainingImages() done");
@@ -100,22 +110,59 @@ public class OCRScannerDemo
         }
     }
 
+    private HashMap<Character, ArrayList<TrainingImage>> loadTrainingImageMap(String trainingImageDir)
+            throws IOException
+    {
+        if (!trainingImageDir.endsWith(File.separator))
+        {
+            trainingImageDir += File.separator;
+        }
+        TrainingImageLoader loader = new TrainingImageLoader();
+        HashMap<Character, ArrayList<TrainingImage>> trainingImageMap = new HashMap<Character, ArrayList<TrainingImage>>();
+        if (debug)
+        {
+            System.err.println("ascii.png");
+        }
+        loader.load(
+                trainingImageDir + "ascii.png",
+                new CharacterRange('!', '~'),
+                trainingImageMap);
+        if (debug)
+        {
+            System.err.println("hpljPica.jpg");
+        }
+        loader.load(
+                trainingImageDir + "hpljPica.jpg",
+                new CharacterRange('!', '~'),
+                trainingImageMap);
+        if (debug)
+        {
+            System.err.println("digits.jpg");
+        }
+        loader.load(
+                trainingImageDir + "digits.jpg",
+                new CharacterRange('0', '9'),
+                trainingImageMap);
+        return trainingImageMap;
+    }
+
     public void process(String imageFilename)
     {
         if (debug)
         {
             System.err.println("process(" + imageFilename + ")");
         }
+        ByteImage grayImage = null;
         try
         {
-            image = ImageReader.read(new File(imageFilename));
+            grayImage = ImageReader.readGrayscale(new File(imageFilename));
         }
         catch (IOException e)
         {
             e.printStackTrace();
         }
 
-        if (image == null)
+        if (grayImage == null)
         {
             System.err.println("Cannot find image file: " + imageFilename);
             return;
@@ -126,24 +173,10 @@ public class OCRScannerDemo
             System.err.println("constructing new PixelImage");
         }
 
-        PixelImage pixelImage = new PixelImage(image);
-        if (debug)
-        {
-            System.err.println("converting PixelImage to grayScale");
-        }
-        pixelImage.toGrayScale(true);
-        if (debug)
-        {
-            System.err.println("filtering");
-        }
-        pixelImage.filter();
-        if (debug)
-        {
-            System.err.println("setting image for display");
-        }
+        PixelImage pixelImage = new PixelImage(grayImage);
        
         System.out.println(imageFilename + ":");
-        List<FoundWord> words = scanner.scan(image, 0, 0, 0, 0, null);
+        List<FoundWord> words = scanner.scan(pixelImage, 0, 0, 0, 0, null);
         StringBuilder text = new StringBuilder();
         for (FoundWord word : words) {
             text.append(word.getRecognizedString());
@@ -160,14 +193,19 @@ public class OCRScannerDemo
             System.exit(1);
         }
         String trainingImageDir = System.getProperty("TRAINING_IMAGE_DIR");
-        if (trainingImageDir == null)
+        String templateLibrary = System.getProperty("TEMPLATE_LIBRARY");
+        File libraryFile = templateLibrary == null ? null : new File(templateLibrary);
+        if (trainingImageDir == null && (libraryFile == null || !libraryFile.exists()))
         {
             System.err.println("Please specify -DTRAINING_IMAGE_DIR=<dir> on "
-                    + "the java command line.");
+                    + "the java command line.  Optionally, specify "
+                    + "-DTEMPLATE_LIBRARY=<file> to compile training images "
+                    + "into template library on the first run and load them "
+                    + "from it afterwards.");
             return;
         }
         OCRScannerDemo demo = new OCRScannerDemo();
-        demo.loadTrainingImages(trainingImageDir);
+        demo.loadTrainingImages(trainingImageDir, libraryFile);
         for (int i = 0; i < args.length; i++)
         {
             demo.process(args[i]);
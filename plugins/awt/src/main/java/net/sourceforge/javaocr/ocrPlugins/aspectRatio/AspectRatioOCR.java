@@ -14,6 +14,7 @@ import net.sourceforge.javaocr.scanner.accuracy.AccuracyProviderInterface;
 import net.sourceforge.javaocr.scanner.accuracy.OCRComp;
 import net.sourceforge.javaocr.scanner.accuracy.OCRIdentification;
 
+import java.awt.Image;
 import java.awt.image.BufferedImage;
 import java.util.*;
 import java.util.logging.Logger;
@@ -28,7 +29,8 @@ public class AspectRatioOCR extends DocumentScannerListenerAdaptor implements Ac
 
     private AccuracyListenerInterface listener;
     private final HashMap<Character, ArrayList<TrainingImage>> trainingImages;
-    private final ArrayList<CharacterRatio> charRatioList = new ArrayList<CharacterRatio>();
+    private static final int MAX_CANDIDATES = 5;
+    private CharacterRatioIndex ratioIndex;
     private DocumentScanner documentScanner = new DocumentScanner();
 
     public AspectRatioOCR(HashMap<Character, ArrayList<TrainingImage>> trainingImages)
@@ -40,13 +42,24 @@ public class AspectRatioOCR extends DocumentScannerListenerAdaptor implements Ac
 
     public void scan(BufferedImage targetBfImage)
     {
-        PixelImage pixelImage = new PixelImage(targetBfImage);
-        pixelImage.toGrayScale(true);
-        pixelImage.filter();
+        PixelImage pixelImage = prepareImage(targetBfImage);
         documentScanner.scan(pixelImage, this, 0, 0, pixelImage.width, pixelImage.height);
 
     }
 
+    /**
+     * Convert image to grayscale and filter it for document scanner.
+     * @param image image to be scanned
+     * @return prepared grayscale image
+     */
+    public PixelImage prepareImage(Image image)
+    {
+        PixelImage pixelImage = new PixelImage(image);
+        pixelImage.toGrayScale(true);
+        pixelImage.filter();
+        return pixelImage;
+    }
+
     public void acceptAccuracyListener(AccuracyListenerInterface listener)
     {
         this.listener = listener;
@@ -91,6 +104,7 @@ public class AspectRatioOCR extends DocumentScannerListenerAdaptor implements Ac
 
     private void processTrainingImages()
     {
+        ArrayList<CharacterRatio> charRatioList = new ArrayList<CharacterRatio>();
         for (Iterator<Character> it = trainingImages.keySet().iterator(); it.hasNext();)
         {
             Character key = it.next();
@@ -106,7 +120,7 @@ public class AspectRatioOCR extends DocumentScannerListenerAdaptor implements Ac
             }
         }
 
-        Collections.sort(charRatioList);
+        ratioIndex = new CharacterRatioIndex(charRatioList);
     }
     private static final Logger LOG = Logger.getLogger(AspectRatioOCR.class.getName());
 
@@ -117,26 +131,14 @@ public class AspectRatioOCR extends DocumentScannerListenerAdaptor implements Ac
 
     private OCRIdentification determineCharacterPossibilities(double targetRatio)
     {
-        double smallestError = Double.MAX_VALUE;
-        Stack<CharacterRatio> bestResults = new Stack<CharacterRatio>();
-        for (CharacterRatio currChar : charRatioList)
-        {
-            if (Math.abs(currChar.getRatio() - targetRatio) < smallestError)
-            {
-                smallestError = Math.abs(currChar.getRatio() - targetRatio);
-                bestResults.push(currChar);
-            }
-        }
+        char[] chars = new char[MAX_CANDIDATES];
+        double[] errors = new double[MAX_CANDIDATES];
+        int count = ratioIndex.nearest(targetRatio, chars, errors);
 
         OCRIdentification newIdent = new OCRIdentification(OCRComp.ASPECT_RATIO);
-
-        int count = 0;
-        while (!bestResults.isEmpty() && count < 5)
+        for (int i = 0; i < count; i++)
         {
-            CharacterRatio currChar = bestResults.pop();
-            double errorAmount = Math.abs(targetRatio - currChar.getRatio());
-            newIdent.addChar(currChar.getCharacter(), errorAmount);
-            count++;
+            newIdent.addChar(chars[i], errors[i]);
         }
 
         return newIdent;
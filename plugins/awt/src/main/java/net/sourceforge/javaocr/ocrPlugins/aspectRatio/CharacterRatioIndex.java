@@ -0,0 +1,89 @@
+package net.sourceforge.javaocr.ocrPlugins.aspectRatio;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Sorted aspect ratios of training images for looking up characters with nearest ratios.
+ * Lookup binary searches the ratio and walks outwards from there, so it takes
+ * logarithmic time plus time proportional to the amount of found ratios.
+ * <p/>
+ * Index is immutable and can be shared between threads.
+ */
+public class CharacterRatioIndex
+{
+
+    private final double[] ratios;
+    private final char[] characters;
+
+    public CharacterRatioIndex(List<CharacterRatio> characterRatios)
+    {
+        ArrayList<CharacterRatio> sorted = new ArrayList<CharacterRatio>(characterRatios);
+        Collections.sort(sorted);
+        ratios = new double[sorted.size()];
+        characters = new char[sorted.size()];
+        for (int i = 0; i < ratios.length; i++)
+        {
+            ratios[i] = sorted.get(i).getRatio();
+            characters[i] = sorted.get(i).getCharacter();
+        }
+    }
+
+    /**
+     * @return amount of indexed ratios
+     */
+    public int size()
+    {
+        return ratios.length;
+    }
+
+    /**
+     * Find characters whose ratios are nearest to the target, every character once with its
+     * smallest error.
+     * @param targetRatio ratio to look for
+     * @param dstCharacters receives found characters, nearest first. Its length is the most
+     * characters to look for
+     * @param dstErrors receives distances of found characters from the target ratio, at least
+     * as long as <code>dstCharacters</code>
+     * @return amount of found characters
+     */
+    public int nearest(double targetRatio, char[] dstCharacters, double[] dstErrors)
+    {
+        final int k = dstCharacters.length;
+        int hi = Arrays.binarySearch(ratios, targetRatio);
+        if (hi < 0)
+        {
+            hi = -hi - 1;
+        }
+        int lo = hi - 1;
+        int count = 0;
+        while (count < k && (lo >= 0 || hi < ratios.length))
+        {
+            int idx;
+            if (hi >= ratios.length || (lo >= 0 && targetRatio - ratios[lo] <= ratios[hi] - targetRatio))
+            {
+                idx = lo--;
+            }
+            else
+            {
+                idx = hi++;
+            }
+            // ratios are visited in order of growing distance, so first one of a character is its best
+            final char ch = characters[idx];
+            boolean seen = false;
+            for (int i = 0; i < count && !seen; i++)
+            {
+                seen = dstCharacters[i] == ch;
+            }
+            if (!seen)
+            {
+                dstCharacters[count] = ch;
+                dstErrors[count] = Math.abs(targetRatio - ratios[idx]);
+                count++;
+            }
+        }
+        return count;
+    }
+}
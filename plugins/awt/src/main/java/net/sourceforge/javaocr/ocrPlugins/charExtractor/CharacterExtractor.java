@@ -12,103 +12,183 @@ import net.sourceforge.javaocr.scanner.PixelImage;
 
 import javax.imageio.ImageIO;
 import java.awt.*;
-import java.awt.geom.AffineTransform;
-import java.awt.image.AffineTransformOp;
 import java.awt.image.BufferedImage;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 /**
- * Saves all the characters in an image to an output directory individually. 
+ * Saves all the characters in an image to an output directory individually,
+ * or packs them all into a single dataset file.
+ * <p/>
+ * Characters are cut from the grayscale image before it is filtered for scanning,
+ * normalized to standard size by {@link GlyphNormalizer} and written out in batches.
  * @author William Whitney
  */
 public class CharacterExtractor extends DocumentScannerListenerAdaptor
 {
 
+    /**
+     * first int of dataset file, followed by standard width and height
+     * and then grayscale bytes of every glyph
+     */
+    public static final int DATASET_MAGIC = 0x4a474c59;
+    private static final int BATCH_SIZE = 256;
+
     private int num = 0;
     private DocumentScanner documentScanner = new DocumentScanner();
     private File outputDir = null;
-    private File inputImage = null;
-    private int std_width;
-    private int std_height;
+    private DataOutputStream dataset = null;
+    private PixelImage glyphSource = null;
+    private GlyphNormalizer normalizer = null;
+    // normalized glyphs waiting to be written
+    private byte[] batch = null;
+    private int batchCount = 0;
+    // first failure to write dataset, rethrown once scan is over
+    private IOException datasetError = null;
 
+    /**
+     * Save characters as <code>char_N.png</code> images of standard size.
+     */
     public void slice(File inputImage, File outputDir, int std_width, int std_height)
     {
         try
         {
-            this.std_width = std_width;
-            this.std_height = std_height;
-            this.inputImage = inputImage;
             this.outputDir = outputDir;
-            Image img = ImageReader.read(inputImage);
-            PixelImage pixelImage = new PixelImage(img);
-            pixelImage.toGrayScale(true);
-            pixelImage.filter();
-            documentScanner.scan(pixelImage, this, 0, 0, pixelImage.width, pixelImage.height);
+            extract(inputImage, std_width, std_height);
         }
         catch (IOException ex)
         {
-            Logger.getLogger(CharacterExtractor.class.getName()).log(Level.SEVERE, null, ex);
+            LOG.log(Level.SEVERE, null, ex);
+        }
+        finally
+        {
+            this.outputDir = null;
         }
     }
 
-    @Override
-    public void processChar(PixelImage pixelImage, int x1, int y1, int x2, int y2, int rowY1, int rowY2)
+    /**
+     * Save characters into single dataset file: {@link #DATASET_MAGIC}, standard width and
+     * height as ints, then <code>std_width * std_height</code> grayscale bytes of every character
+     * row by row.
+     */
+    public void sliceToDataset(File inputImage, File datasetFile, int std_width, int std_height) throws IOException
     {
+        dataset = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(datasetFile)));
         try
         {
-            int areaW = x2 - x1;
-            int areaH = y2 - y1;
-
-            //Extract the character
-            BufferedImage characterImage = ImageReader.read(inputImage);
-            characterImage = characterImage.getSubimage(x1, y1, areaW, areaH);
+            dataset.writeInt(DATASET_MAGIC);
+            dataset.writeInt(std_width);
+            dataset.writeInt(std_height);
+            extract(inputImage, std_width, std_height);
+        }
+        finally
+        {
+            dataset.close();
+            dataset = null;
+        }
+    }
 
-            //Scale image so that both the arrayHeight and arrayWidth are less than std size
-            if (characterImage.getWidth() > std_width)
+    private void extract(File inputImage, int std_width, int std_height) throws IOException
+    {
+        Image img = ImageReader.read(inputImage);
+        PixelImage pixelImage = new PixelImage(img);
+        pixelImage.toGrayScale(true);
+        glyphSource = new PixelImage(pixelImage.pixels.clone(), pixelImage.width, pixelImage.height);
+        if (normalizer == null || normalizer.getStdWidth() != std_width || normalizer.getStdHeight() != std_height)
+        {
+            normalizer = new GlyphNormalizer(std_width, std_height);
+            batch = new byte[BATCH_SIZE * std_width * std_height];
+        }
+        pixelImage.filter();
+        try
+        {
+            documentScanner.scan(pixelImage, this, 0, 0, pixelImage.width, pixelImage.height);
+            if (datasetError != null)
             {
-                //Make image always std_width wide
-                double scaleAmount = (double) std_width / (double) characterImage.getWidth();
-                AffineTransform tx = new AffineTransform();
-                tx.scale(scaleAmount, scaleAmount);
-                AffineTransformOp op = new AffineTransformOp(tx, AffineTransformOp.TYPE_BILINEAR);
-                characterImage = op.filter(characterImage, null);
+                throw datasetError;
             }
+            flush();
+        }
+        finally
+        {
+            glyphSource = null;
+            batchCount = 0;
+            datasetError = null;
+        }
+    }
 
-            if (characterImage.getHeight() > std_height)
+    @Override
+    public void processChar(PixelImage pixelImage, int x1, int y1, int x2, int y2, int rowY1, int rowY2)
+    {
+        if (datasetError != null)
+        {
+            // dataset is broken anyway
+            return;
+        }
+        final int[] glyph = normalizer.normalize(glyphSource, x1, y1, x2, y2);
+        final int offset = batchCount * glyph.length;
+        for (int i = 0; i < glyph.length; i++)
+        {
+            batch[offset + i] = (byte) glyph[i];
+        }
+        if (++batchCount == BATCH_SIZE)
+        {
+            try
             {
-                //Make image always std_height tall
-                double scaleAmount = (double) std_height / (double) characterImage.getHeight();
-                AffineTransform tx = new AffineTransform();
-                tx.scale(scaleAmount, scaleAmount);
-                AffineTransformOp op = new AffineTransformOp(tx, AffineTransformOp.TYPE_BILINEAR);
-                characterImage = op.filter(characterImage, null);
+                flush();
             }
+            catch (IOException ex)
+            {
+                if (dataset == null)
+                {
+                    LOG.log(Level.SEVERE, null, ex);
+                }
+                else
+                {
+                    datasetError = ex;
+                }
+            }
+        }
+    }
 
-            //Paint the scaled image on a white background
-            BufferedImage normalizedImage = new BufferedImage(std_width, std_height, BufferedImage.TYPE_INT_RGB);
-            Graphics2D g = normalizedImage.createGraphics();
-            g.setColor(Color.WHITE);
-            g.fillRect(0, 0, std_width, std_height);
-
-            //Center scaled image on new canvas
-            int x_offset = (std_width - characterImage.getWidth()) / 2;
-            int y_offset = (std_height - characterImage.getHeight()) / 2;
-
-            g.drawImage(characterImage, x_offset, y_offset, null);
-            g.dispose();
-
-            //Save new image to file
-            File outputfile = new File(outputDir + File.separator + "char_" + num + ".png");
-            ImageIO.write(normalizedImage, "png", outputfile);
-            num++;
+    /**
+     * write out collected glyphs
+     */
+    private void flush() throws IOException
+    {
+        final int size = normalizer.getStdWidth() * normalizer.getStdHeight();
+        final int count = batchCount;
+        batchCount = 0;
+        if (dataset != null)
+        {
+            dataset.write(batch, 0, count * size);
+            return;
         }
-        catch (Exception ex)
+        final int w = normalizer.getStdWidth();
+        final int h = normalizer.getStdHeight();
+        BufferedImage normalizedImage = new BufferedImage(w, h, BufferedImage.TYPE_BYTE_GRAY);
+        byte[] data = new byte[size];
+        for (int i = 0; i < count; i++)
         {
-            Logger.getLogger(CharacterExtractor.class.getName()).log(Level.SEVERE, null, ex);
+            System.arraycopy(batch, i * size, data, 0, size);
+            normalizedImage.getRaster().setDataElements(0, 0, w, h, data);
+            File outputfile = new File(outputDir + File.separator + "char_" + num + ".png");
+            num++;
+            try
+            {
+                ImageIO.write(normalizedImage, "png", outputfile);
+            }
+            catch (IOException ex)
+            {
+                LOG.log(Level.SEVERE, null, ex);
+            }
         }
     }
+
     private static final Logger LOG = Logger.getLogger(CharacterExtractor.class.getName());
 }
@@ -0,0 +1,167 @@
+package net.sourceforge.javaocr.ocrPlugins.charExtractor;
+
+import net.sourceforge.javaocr.scanner.PixelImage;
+
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * Normalizes glyphs of a grayscale {@link PixelImage} to standard size.  Glyph is cropped,
+ * shrunk keeping its aspect ratio if it does not fit (area averaging, glyphs are never enlarged)
+ * and centered on a white canvas of standard size.
+ * <p/>
+ * Resampling kernels are computed once for every source / destination length pair and reused,
+ * all work buffers are reused as well, so normalizing a glyph does not allocate anything
+ * once the normalizer has seen glyphs of similar size.  Normalizer is not thread safe.
+ */
+public class GlyphNormalizer
+{
+
+    private static final int SHIFT = 16;
+    private static final int ONE = 1 << SHIFT;
+
+    private final int stdWidth;
+    private final int stdHeight;
+    private final int[] glyph;
+    private int[] horizontal = new int[0];
+    private final HashMap<Integer, Kernel> kernels = new HashMap<Integer, Kernel>();
+
+    public GlyphNormalizer(int stdWidth, int stdHeight)
+    {
+        if (stdWidth <= 0 || stdHeight <= 0)
+        {
+            throw new IllegalArgumentException("standard size must be positive");
+        }
+        this.stdWidth = stdWidth;
+        this.stdHeight = stdHeight;
+        glyph = new int[stdWidth * stdHeight];
+    }
+
+    public int getStdWidth()
+    {
+        return stdWidth;
+    }
+
+    public int getStdHeight()
+    {
+        return stdHeight;
+    }
+
+    /**
+     * Normalize glyph occupying area from <code>x1,y1</code> (inclusive)
+     * to <code>x2,y2</code> (exclusive).
+     * @param image grayscale image
+     * @return grayscale pixels of normalized glyph, <code>stdWidth * stdHeight</code>
+     * row by row.  Buffer is reused by next call.
+     */
+    public int[] normalize(PixelImage image, int x1, int y1, int x2, int y2)
+    {
+        final int areaW = x2 - x1;
+        final int areaH = y2 - y1;
+        final double scale = Math.min(1.0, Math.min((double) stdWidth / areaW, (double) stdHeight / areaH));
+        final int w = Math.max(1, Math.min(stdWidth, (int) Math.round(areaW * scale)));
+        final int h = Math.max(1, Math.min(stdHeight, (int) Math.round(areaH * scale)));
+        final Kernel kx = kernel(areaW, w);
+        final Kernel ky = kernel(areaH, h);
+
+        // horizontal pass, every source row of the area to w samples
+        if (horizontal.length < w * areaH)
+        {
+            horizontal = new int[w * areaH];
+        }
+        final int[] pixels = image.pixels;
+        for (int y = 0; y < areaH; y++)
+        {
+            kx.apply(pixels, (y1 + y) * image.width + x1, 1, horizontal, y * w, 1);
+        }
+
+        // vertical pass straight into the centered glyph
+        Arrays.fill(glyph, 255);
+        final int offset = ((stdHeight - h) / 2) * stdWidth + (stdWidth - w) / 2;
+        for (int x = 0; x < w; x++)
+        {
+            ky.apply(horizontal, x, w, glyph, offset + x, stdWidth);
+        }
+        return glyph;
+    }
+
+    private Kernel kernel(int from, int to)
+    {
+        Integer key = (from << 16) ^ to;
+        Kernel kernel = kernels.get(key);
+        if (kernel == null || kernel.from != from || kernel.to != to)
+        {
+            kernel = new Kernel(from, to);
+            kernels.put(key, kernel);
+        }
+        return kernel;
+    }
+
+    /**
+     * area averaging weights shrinking <code>from</code> samples to <code>to</code> samples,
+     * in fixed point adding up to one for every destination sample
+     */
+    private static final class Kernel
+    {
+
+        final int from;
+        final int to;
+        final int[] start;
+        final int[] count;
+        final int[] weights;
+        final int taps;
+
+        Kernel(int from, int to)
+        {
+            this.from = from;
+            this.to = to;
+            taps = (from + to - 1) / to + 1;
+            start = new int[to];
+            count = new int[to];
+            weights = new int[to * taps];
+            final double step = (double) from / to;
+            for (int i = 0; i < to; i++)
+            {
+                final double lo = i * step;
+                final double hi = Math.min(from, (i + 1) * step);
+                final int first = (int) Math.floor(lo);
+                final int last = Math.min(from, (int) Math.ceil(hi));
+                start[i] = first;
+                count[i] = last - first;
+                int sum = 0;
+                int heaviest = 0;
+                for (int j = 0; j < count[i]; j++)
+                {
+                    final double overlap = Math.min(hi, first + j + 1) - Math.max(lo, first + j);
+                    final int weight = (int) Math.round(overlap / step * ONE);
+                    weights[i * taps + j] = weight;
+                    sum += weight;
+                    if (weight > weights[i * taps + heaviest])
+                    {
+                        heaviest = j;
+                    }
+                }
+                weights[i * taps + heaviest] += ONE - sum;
+            }
+        }
+
+        /**
+         * resample one line of samples
+         */
+        void apply(int[] src, int srcOffset, int srcStep, int[] dst, int dstOffset, int dstStep)
+        {
+            for (int i = 0; i < to; i++)
+            {
+                int p = srcOffset + start[i] * srcStep;
+                final int base = i * taps;
+                long acc = 0;
+                for (int j = 0; j < count[i]; j++)
+                {
+                    acc += (long) weights[base + j] * src[p];
+                    p += srcStep;
+                }
+                dst[dstOffset + i * dstStep] = (int) ((acc + (ONE >> 1)) >> SHIFT);
+            }
+        }
+    }
+}
@@ -8,9 +8,14 @@ package net.sourceforge.javaocr.ocrPlugins.handWriting;
 import java.awt.image.BufferedImage;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.logging.Logger;
 import net.sourceforge.javaocr.ocrPlugins.aspectRatio.AspectRatioOCR;
 import net.sourceforge.javaocr.ocrPlugins.mseOCR.OCRScanner;
+import net.sourceforge.javaocr.scanner.DocumentScanner;
+import net.sourceforge.javaocr.scanner.MultiplexingDocumentScannerListener;
+import net.sourceforge.javaocr.scanner.PixelImage;
 import net.sourceforge.javaocr.scanner.TrainingImage;
 import net.sourceforge.javaocr.scanner.accuracy.AccuracyListenerInterface;
 import net.sourceforge.javaocr.scanner.accuracy.OCRComp;
@@ -37,18 +42,66 @@ public class HandwritingOCR implements AccuracyListenerInterface
       
     }
 
+    /**
+     * Recognize image with enabled recognizers, running them at the same time.
+     */
     public String scan(BufferedImage targetBfImage)
     {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try
+        {
+            return scan(targetBfImage, executor);
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Recognize image with enabled recognizers.  Image is prepared and segmented once, every
+     * recognizer gets the same characters and spaces, so their results line up glyph by glyph.
+     * When MSE recognizer is enabled, image is prepared the way it does it, otherwise it is just
+     * converted to grayscale and filtered.
+     * @param executor executor to run recognizers on, or <code>null</code> to run them one after
+     * another on the calling thread.  It is not shut down.
+     */
+    public String scan(BufferedImage targetBfImage, ExecutorService executor)
+    {
+        MultiplexingDocumentScannerListener multiplexer = new MultiplexingDocumentScannerListener();
+        DocumentScanner documentScanner;
+        PixelImage pixelImage;
         if (isDoMSE)
         {
-            //Make scan pass using MSE OCR
-            doMSEScan(targetBfImage);
+            OCRScanner ocrScanner = new OCRScanner();
+            ocrScanner.acceptAccuracyListener(this);
+            ocrScanner.addTrainingImages(trainingImages);
+            documentScanner = ocrScanner.getDocumentScanner();
+            pixelImage = ocrScanner.prepareImage(targetBfImage, executor);
+            ocrScanner.beginScan(null);
+            multiplexer.addListener(ocrScanner);
+        }
+        else
+        {
+            documentScanner = new DocumentScanner();
+            pixelImage = null;
         }
 
         if (isDoAspect)
         {
-            //Make aspect ratio pass
-            doAspectRatioScan(targetBfImage);
+            AspectRatioOCR ocrScanner = new AspectRatioOCR(trainingImages);
+            ocrScanner.acceptAccuracyListener(this);
+            if (pixelImage == null)
+            {
+                pixelImage = ocrScanner.prepareImage(targetBfImage);
+            }
+            multiplexer.addListener(ocrScanner);
+        }
+
+        if (pixelImage != null)
+        {
+            documentScanner.scan(pixelImage, multiplexer, 0, 0, pixelImage.width, pixelImage.height);
+            multiplexer.replay(executor);
         }
 
         //Analyze the info that came back from processCharOrSpace
@@ -57,7 +110,10 @@ public class HandwritingOCR implements AccuracyListenerInterface
 
     }
 
-    public void processCharOrSpace(OCRIdentification charIdent)
+    /**
+     * recognizers may call this concurrently
+     */
+    public synchronized void processCharOrSpace(OCRIdentification charIdent)
     {
         if (charIdent.getOCRType() == OCRComp.MSE)
         {
@@ -70,23 +126,6 @@ public class HandwritingOCR implements AccuracyListenerInterface
        
     }
 
-   
-
-    private void doMSEScan(BufferedImage targetBfImage)
-    {
-        OCRScanner ocrScanner = new OCRScanner();
-        ocrScanner.acceptAccuracyListener(this);
-        ocrScanner.addTrainingImages(trainingImages);
-        ocrScanner.scan(targetBfImage, 0, 0, 0, 0, null);
-    }
-
-    private void doAspectRatioScan(BufferedImage targetBfImage)
-    {
-        AspectRatioOCR ocrScanner = new AspectRatioOCR(trainingImages);
-        ocrScanner.acceptAccuracyListener(this);
-        ocrScanner.scan(targetBfImage);
-    }
-
     public void setEnableMSEOCR(boolean enable)
     {
         this.isDoMSE = enable;
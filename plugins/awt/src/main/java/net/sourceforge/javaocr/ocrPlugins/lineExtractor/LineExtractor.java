@@ -11,15 +11,23 @@ import net.sourceforge.javaocr.scanner.DocumentScannerListenerAdaptor;
 import net.sourceforge.javaocr.scanner.PixelImage;
 
 import javax.imageio.ImageIO;
-import java.awt.*;
 import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 /**
- * Saves all the characters in an image to an output directory individually.
+ * Saves all the text lines in an image to an output directory individually.
+ * Image is decoded only once, lines are sub-images sharing its raster, and
+ * PNG encoding of the lines runs in parallel.
  * @author William Whitney
  */
 public class LineExtractor extends DocumentScannerListenerAdaptor
@@ -27,20 +35,34 @@ public class LineExtractor extends DocumentScannerListenerAdaptor
 
     private int num = 0;
     private DocumentScanner documentScanner = new DocumentScanner();
-    private File outputDir = null;
-    private File inputImage = null;
+    private BufferedImage source = null;
+    private List<BufferedImage> lines = null;
 
+    /**
+     * Extract lines and write them as PNG files, encoding on a thread per processor.
+     */
     public void slice(File inputImage, File outputDir)
     {
+        ExecutorService executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
         try
         {
-            this.inputImage = inputImage;
-            this.outputDir = outputDir;
-            Image img = ImageReader.read(inputImage);
-            PixelImage pixelImage = new PixelImage(img);
-            pixelImage.toGrayScale(true);
-            pixelImage.filter();
-            documentScanner.scan(pixelImage, this, 0, 0, pixelImage.width, pixelImage.height);
+            slice(inputImage, outputDir, executor);
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Extract lines and write them as PNG files named <code>line_N.png</code>.
+     * @param executor executor to encode lines on. It is not shut down.
+     */
+    public void slice(File inputImage, File outputDir, ExecutorService executor)
+    {
+        try
+        {
+            write(extract(inputImage), outputDir, executor);
         }
         catch (IOException ex)
         {
@@ -48,23 +70,88 @@ public class LineExtractor extends DocumentScannerListenerAdaptor
         }
     }
 
+    /**
+     * @param inputImage image file
+     * @return text lines in document order
+     */
+    public List<BufferedImage> extract(File inputImage) throws IOException
+    {
+        return extract(ImageReader.read(inputImage));
+    }
 
-    public void beginRow(PixelImage pixelImage, int y1, int y2)
+    /**
+     * @param img decoded image
+     * @return text lines in document order, sharing raster with the image
+     */
+    public List<BufferedImage> extract(BufferedImage img)
     {
+        source = img;
+        lines = new ArrayList<BufferedImage>();
         try
         {
-            int areaH = y2 - y1;
-            BufferedImage img = ImageReader.read(inputImage);
-            int areaW = img.getWidth();
-            img = img.getSubimage(0, y1, areaW, areaH);
-            File outputfile = new File(outputDir + File.separator + "line_" + num + ".png");
-            ImageIO.write(img, "png", outputfile);
+            PixelImage pixelImage = new PixelImage(img);
+            pixelImage.toGrayScale(true);
+            pixelImage.filter();
+            documentScanner.scan(pixelImage, this, 0, 0, pixelImage.width, pixelImage.height);
+            return lines;
+        }
+        finally
+        {
+            source = null;
+            lines = null;
+        }
+    }
+
+    /**
+     * encode lines in parallel, failure of one line does not stop the others
+     */
+    private void write(List<BufferedImage> images, File outputDir, ExecutorService executor)
+    {
+        List<Future<?>> results = new ArrayList<Future<?>>(images.size());
+        for (final BufferedImage img : images)
+        {
+            final File outputfile = new File(outputDir + File.separator + "line_" + num + ".png");
             num++;
+            results.add(executor.submit(new Callable<Object>()
+            {
+                public Object call() throws IOException
+                {
+                    ImageIO.write(img, "png", outputfile);
+                    return null;
+                }
+            }));
+        }
+        try
+        {
+            for (Future<?> result : results)
+            {
+                try
+                {
+                    result.get();
+                }
+                catch (ExecutionException ex)
+                {
+                    LOG.log(Level.SEVERE, null, ex.getCause());
+                }
+            }
         }
-        catch (Exception ex)
+        catch (InterruptedException e)
         {
-            LOG.log(Level.SEVERE, null, ex);
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("interrupted while writing lines", e);
+        }
+        finally
+        {
+            for (Future<?> result : results)
+            {
+                result.cancel(true);
+            }
         }
     }
+
+    public void beginRow(PixelImage pixelImage, int y1, int y2)
+    {
+        lines.add(source.getSubimage(0, y1, source.getWidth(), y2 - y1));
+    }
     private static final Logger LOG = Logger.getLogger(LineExtractor.class.getName());
 }
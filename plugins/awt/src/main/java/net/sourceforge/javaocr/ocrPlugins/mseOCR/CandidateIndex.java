@@ -0,0 +1,356 @@
+package net.sourceforge.javaocr.ocrPlugins.mseOCR;
+
+import net.sourceforge.javaocr.scanner.TrainingImage;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Three dimensional grid over aspect ratio, top and bottom white space fractions of training images.
+ * Cell sizes equal the candidate tolerances of {@link TrainingImage}, so training images within
+ * tolerance of a character are found in a few neighbouring cells instead of walking
+ * the whole training set.  Lookup is conservative: it may return some images outside of
+ * the tolerance, but never misses one inside, so exact candidate check still has to be applied
+ * to the results.
+ * <p/>
+ * Templates of a {@link TemplateLibrary} can be indexed along with training images.  They are
+ * matched straight from the library, so their pixels are not copied.
+ * <p/>
+ * Training images are numbered grouped by character, in the order of the training image lists,
+ * followed by library templates of the same character in library order.  Characters having
+ * library templates only come last.  {@link NormalizedTemplateIndex} built from the index numbers
+ * them the same way.
+ * <p/>
+ * Index is immutable once built and can be shared between threads.
+ */
+public class CandidateIndex
+{
+
+    private static final float ASPECT_CELL = (float) Math.log(1.0 + TrainingImage.ASPECT_RATIO_TOLERANCE);
+    private static final float TOP_CELL = TrainingImage.TOP_WHITE_SPACE_FRACTION_TOLERANCE;
+    private static final float BOTTOM_CELL = TrainingImage.BOTTOM_WHITE_SPACE_FRACTION_TOLERANCE;
+
+    // training images, and those copied out of the library so far
+    private final AtomicReferenceArray<TrainingImage> images;
+    // library template for every library entry, null for training images
+    private final TemplateLibrary.Template[] templates;
+    private final float[] aspectRatios;
+    private final float[] topFractions;
+    private final float[] bottomFractions;
+    private final int[] widths;
+    private final int[] heights;
+    // character slot and position in the character list for every training image
+    private final int[] slots;
+    private final int[] positions;
+    private final HashMap<Character, Integer> slotMap = new HashMap<Character, Integer>();
+    private final ArrayList<Character> slotChars = new ArrayList<Character>();
+
+    private final float minAspect;
+    private final float minTop;
+    private final float minBottom;
+    private final int aspectCells;
+    private final int topCells;
+    private final int bottomCells;
+    // training images of cell i are cellImages[cellStart[i]] .. cellImages[cellStart[i + 1] - 1]
+    private final int[] cellStart;
+    private final int[] cellImages;
+
+    public CandidateIndex(Map<Character, ArrayList<TrainingImage>> trainingImages)
+    {
+        this(trainingImages, null);
+    }
+
+    /**
+     * @param trainingImages training images, keyed by character
+     * @param library        library of templates to index as well, or <code>null</code>
+     */
+    public CandidateIndex(Map<Character, ArrayList<TrainingImage>> trainingImages, TemplateLibrary library)
+    {
+        // library templates by character, in library order
+        LinkedHashMap<Character, ArrayList<TemplateLibrary.Template>> libraryTemplates =
+                new LinkedHashMap<Character, ArrayList<TemplateLibrary.Template>>();
+        int count = 0;
+        if (library != null)
+        {
+            for (int i = 0; i < library.size(); i++)
+            {
+                TemplateLibrary.Template template = library.get(i);
+                ArrayList<TemplateLibrary.Template> al = libraryTemplates.get(template.getCharacter());
+                if (al == null)
+                {
+                    al = new ArrayList<TemplateLibrary.Template>();
+                    libraryTemplates.put(template.getCharacter(), al);
+                }
+                al.add(template);
+            }
+            count += library.size();
+        }
+        for (ArrayList<TrainingImage> al : trainingImages.values())
+        {
+            count += al.size();
+        }
+        images = new AtomicReferenceArray<TrainingImage>(count);
+        templates = new TemplateLibrary.Template[count];
+        aspectRatios = new float[count];
+        topFractions = new float[count];
+        bottomFractions = new float[count];
+        widths = new int[count];
+        heights = new int[count];
+        slots = new int[count];
+        positions = new int[count];
+        ArrayList<Character> chars = new ArrayList<Character>(trainingImages.keySet());
+        for (Character ch : libraryTemplates.keySet())
+        {
+            if (!trainingImages.containsKey(ch))
+            {
+                chars.add(ch);
+            }
+        }
+        int idx = 0;
+        for (Character ch : chars)
+        {
+            int slot = slotChars.size();
+            slotMap.put(ch, slot);
+            slotChars.add(ch);
+            int position = 0;
+            ArrayList<TrainingImage> al = trainingImages.get(ch);
+            if (al != null)
+            {
+                for (TrainingImage ti : al)
+                {
+                    images.set(idx, ti);
+                    add(idx++, slot, position++, ti.width, ti.height, ti.aspectRatio,
+                            ti.topWhiteSpaceFraction, ti.bottomWhiteSpaceFraction);
+                }
+            }
+            ArrayList<TemplateLibrary.Template> tl = libraryTemplates.get(ch);
+            if (tl != null)
+            {
+                for (TemplateLibrary.Template template : tl)
+                {
+                    templates[idx] = template;
+                    add(idx++, slot, position++, template.getWidth(), template.getHeight(), template.getAspectRatio(),
+                            template.getTopWhiteSpaceFraction(), template.getBottomWhiteSpaceFraction());
+                }
+            }
+        }
+        float minA = Float.MAX_VALUE, maxA = -Float.MAX_VALUE;
+        float minT = Float.MAX_VALUE, maxT = -Float.MAX_VALUE;
+        float minB = Float.MAX_VALUE, maxB = -Float.MAX_VALUE;
+        for (int i = 0; i < count; i++)
+        {
+            float a = (float) Math.log(aspectRatios[i]);
+            minA = Math.min(minA, a);
+            maxA = Math.max(maxA, a);
+            minT = Math.min(minT, topFractions[i]);
+            maxT = Math.max(maxT, topFractions[i]);
+            minB = Math.min(minB, bottomFractions[i]);
+            maxB = Math.max(maxB, bottomFractions[i]);
+        }
+        if (count == 0)
+        {
+            minA = maxA = minT = maxT = minB = maxB = 0;
+        }
+        minAspect = minA;
+        minTop = minT;
+        minBottom = minB;
+        aspectCells = (int) ((maxA - minA) / ASPECT_CELL) + 1;
+        topCells = (int) ((maxT - minT) / TOP_CELL) + 1;
+        bottomCells = (int) ((maxB - minB) / BOTTOM_CELL) + 1;
+
+        // counting sort of training images into cells
+        int[] cellOf = new int[count];
+        cellStart = new int[aspectCells * topCells * bottomCells + 1];
+        for (int i = 0; i < count; i++)
+        {
+            cellOf[i] = cell(
+                    clamp((int) (((float) Math.log(aspectRatios[i]) - minAspect) / ASPECT_CELL), aspectCells),
+                    clamp((int) ((topFractions[i] - minTop) / TOP_CELL), topCells),
+                    clamp((int) ((bottomFractions[i] - minBottom) / BOTTOM_CELL), bottomCells));
+            cellStart[cellOf[i] + 1]++;
+        }
+        for (int i = 1; i < cellStart.length; i++)
+        {
+            cellStart[i] += cellStart[i - 1];
+        }
+        cellImages = new int[count];
+        int[] fill = new int[cellStart.length - 1];
+        for (int i = 0; i < count; i++)
+        {
+            cellImages[cellStart[cellOf[i]] + fill[cellOf[i]]++] = i;
+        }
+    }
+
+    private void add(int idx, int slot, int position, int width, int height, float aspectRatio,
+                     float topWhiteSpaceFraction, float bottomWhiteSpaceFraction)
+    {
+        slots[idx] = slot;
+        positions[idx] = position;
+        widths[idx] = width;
+        heights[idx] = height;
+        aspectRatios[idx] = aspectRatio;
+        topFractions[idx] = topWhiteSpaceFraction;
+        bottomFractions[idx] = bottomWhiteSpaceFraction;
+    }
+
+    /**
+     * @return amount of indexed training images
+     */
+    public int size()
+    {
+        return images.length();
+    }
+
+    /**
+     * @return amount of characters having training images
+     */
+    public int getSlotCount()
+    {
+        return slotChars.size();
+    }
+
+    /**
+     * @param ch character
+     * @return slot of this character, or <code>-1</code> if there are no training images for it
+     */
+    public int getSlot(Character ch)
+    {
+        Integer slot = slotMap.get(ch);
+        return slot == null ? -1 : slot;
+    }
+
+    /**
+     * @param slot character slot
+     * @return character of this slot
+     */
+    public Character getCharacter(int slot)
+    {
+        return slotChars.get(slot);
+    }
+
+    /**
+     * Library templates are copied into training images on first request, and the same
+     * copy is returned afterwards.
+     *
+     * @param idx training image number
+     * @return training image
+     */
+    public TrainingImage getImage(int idx)
+    {
+        TrainingImage ti = images.get(idx);
+        if (ti == null)
+        {
+            images.compareAndSet(idx, null, templates[idx].toTrainingImage());
+            ti = images.get(idx);
+        }
+        return ti;
+    }
+
+    /**
+     * @param idx training image number
+     * @return library template, or <code>null</code> if this is a training image
+     */
+    public TemplateLibrary.Template getTemplate(int idx)
+    {
+        return templates[idx];
+    }
+
+    public int getWidth(int idx)
+    {
+        return widths[idx];
+    }
+
+    public int getHeight(int idx)
+    {
+        return heights[idx];
+    }
+
+    public float getAspectRatio(int idx)
+    {
+        return aspectRatios[idx];
+    }
+
+    public float getTopWhiteSpaceFraction(int idx)
+    {
+        return topFractions[idx];
+    }
+
+    public float getBottomWhiteSpaceFraction(int idx)
+    {
+        return bottomFractions[idx];
+    }
+
+    /**
+     * @param idx training image number
+     * @return slot of the character this training image belongs to
+     */
+    public int getSlotOf(int idx)
+    {
+        return slots[idx];
+    }
+
+    /**
+     * @param idx training image number
+     * @return position of training image in the list of its character
+     */
+    public int getPosition(int idx)
+    {
+        return positions[idx];
+    }
+
+    /**
+     * Collect training images which may be within tolerance of the character.
+     *
+     * @param aspectRatio              aspect ratio of the character
+     * @param topWhiteSpaceFraction    top white space fraction of the character
+     * @param bottomWhiteSpaceFraction bottom white space fraction of the character
+     * @param dst                      receives numbers of training images, at least {@link #size()} long
+     * @return amount of collected training images
+     */
+    public int lookup(float aspectRatio, float topWhiteSpaceFraction, float bottomWhiteSpaceFraction, int[] dst)
+    {
+        if (images.length() == 0)
+        {
+            return 0;
+        }
+        // tolerance box spans about one cell in every direction, one more cell on each
+        // side takes care of rounding errors
+        float a = ((float) Math.log(aspectRatio) - minAspect) / ASPECT_CELL;
+        float t = (topWhiteSpaceFraction - minTop) / TOP_CELL;
+        float b = (bottomWhiteSpaceFraction - minBottom) / BOTTOM_CELL;
+        int a1 = (int) Math.max(Math.floor(a) - 2, 0), a2 = (int) Math.min(Math.floor(a) + 2, aspectCells - 1);
+        int t1 = (int) Math.max(Math.floor(t) - 2, 0), t2 = (int) Math.min(Math.floor(t) + 2, topCells - 1);
+        int b1 = (int) Math.max(Math.floor(b) - 2, 0), b2 = (int) Math.min(Math.floor(b) + 2, bottomCells - 1);
+        if (a1 > a2 || t1 > t2 || b1 > b2)
+        {
+            return 0;
+        }
+        int count = 0;
+        for (int ai = a1; ai <= a2; ai++)
+        {
+            for (int ti = t1; ti <= t2; ti++)
+            {
+                int cell = cell(ai, ti, b1);
+                final int end = cellStart[cell + (b2 - b1) + 1];
+                for (int i = cellStart[cell]; i < end; i++)
+                {
+                    dst[count++] = cellImages[i];
+                }
+            }
+        }
+        return count;
+    }
+
+    private int cell(int a, int t, int b)
+    {
+        return (a * topCells + t) * bottomCells + b;
+    }
+
+    private static int clamp(int value, int cells)
+    {
+        return Math.min(Math.max(value, 0), cells - 1);
+    }
+}
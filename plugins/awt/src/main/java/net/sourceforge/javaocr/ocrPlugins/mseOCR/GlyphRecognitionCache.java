@@ -0,0 +1,315 @@
+package net.sourceforge.javaocr.ocrPlugins.mseOCR;
+
+import net.sourceforge.javaocr.scanner.FoundChar;
+import net.sourceforge.javaocr.scanner.RecognizedChar;
+import net.sourceforge.javaocr.scanner.TrainingImage;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Best matches of recently recognized characters, so characters printed over and over again
+ * by the same device are compared with training images only once.  Character area is
+ * split into {@link #GRID_SIZE} square grid of cells, every cell is averaged over all of its pixels
+ * and binarized against the mean of the cells, giving 256 bit fingerprint.  Fingerprint together with size of the area, its white space above and
+ * below within the row and characters acceptable for the scan identify the character.
+ * Different areas with the same fingerprint and geometry are taken for the same character, so
+ * results may occasionally differ from comparing every character.
+ * <p/>
+ * Cache is bounded and evicts least recently used entries.  It is split into segments with
+ * their own locks, so it can be shared by concurrently recognized rows and documents, but only by
+ * scanners with the same training images.  {@link OCRScanner} invalidates its cache when
+ * training images change.
+ */
+public class GlyphRecognitionCache
+{
+
+    /**
+     * width and height of fingerprint grid
+     */
+    public static final int GRID_SIZE = 16;
+    private static final int SEGMENTS = 16;
+
+    private final int maxEntries;
+    private final Segment[] segments;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * @param maxEntries maximal amount of cached characters
+     */
+    public GlyphRecognitionCache(int maxEntries)
+    {
+        if (maxEntries <= 0)
+        {
+            throw new IllegalArgumentException("cache shall hold at least one entry");
+        }
+        this.maxEntries = maxEntries;
+        segments = new Segment[Math.min(SEGMENTS, maxEntries)];
+        for (int i = 0; i < segments.length; i++)
+        {
+            segments[i] = new Segment(maxEntries / segments.length + (i < maxEntries % segments.length ? 1 : 0));
+        }
+    }
+
+    public int getMaxEntries()
+    {
+        return maxEntries;
+    }
+
+    /**
+     * @return amount of cached characters
+     */
+    public int size()
+    {
+        int size = 0;
+        for (Segment segment : segments)
+        {
+            synchronized (segment)
+            {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * @return amount of lookups which found cached matches
+     */
+    public long getHits()
+    {
+        return hits.get();
+    }
+
+    /**
+     * @return amount of lookups which did not find cached matches
+     */
+    public long getMisses()
+    {
+        return misses.get();
+    }
+
+    /**
+     * @return fraction of lookups which found cached matches, <code>0</code> if there were none
+     */
+    public double getHitRate()
+    {
+        final long hits = this.hits.get();
+        final long lookups = hits + misses.get();
+        return lookups == 0 ? 0 : (double) hits / (double) lookups;
+    }
+
+    /**
+     * forget all cached characters, counters are kept
+     */
+    public void invalidate()
+    {
+        for (Segment segment : segments)
+        {
+            synchronized (segment)
+            {
+                segment.clear();
+            }
+        }
+    }
+
+    /**
+     * compute key of character area
+     *
+     * @param pixels     grayscale pixels of the document
+     * @param w          width of the document
+     * @param characters characters acceptable for the scan, in the order matches are collected
+     */
+    static Key key(int[] pixels, int w, int x1, int y1, int x2, int y2, int rowY1, int rowY2, String characters)
+    {
+        final int areaW = x2 - x1;
+        final int areaH = y2 - y1;
+        // every pixel of the area falls into some cell, so thin strokes always count
+        final double[] cells = new double[GRID_SIZE * GRID_SIZE];
+        double sum = 0;
+        for (int gy = 0, p = 0; gy < GRID_SIZE; gy++)
+        {
+            final int top = y1 + (gy * areaH) / GRID_SIZE;
+            final int bottom = Math.max(top + 1, y1 + ((gy + 1) * areaH) / GRID_SIZE);
+            for (int gx = 0; gx < GRID_SIZE; gx++, p++)
+            {
+                final int left = x1 + (gx * areaW) / GRID_SIZE;
+                final int right = Math.max(left + 1, x1 + ((gx + 1) * areaW) / GRID_SIZE);
+                long cell = 0;
+                for (int y = top; y < bottom; y++)
+                {
+                    for (int i = y * w + left, end = y * w + right; i < end; i++)
+                    {
+                        cell += pixels[i];
+                    }
+                }
+                cells[p] = (double) cell / ((bottom - top) * (right - left));
+                sum += cells[p];
+            }
+        }
+        // cells darker than the mean are set
+        final double mean = sum / cells.length;
+        final long[] bits = new long[cells.length / 64];
+        for (int p = 0; p < cells.length; p++)
+        {
+            if (cells[p] < mean)
+            {
+                bits[p >> 6] |= 1L << (p & 63);
+            }
+        }
+        return new Key(bits, x2 - x1, y2 - y1, y1 - rowY1, rowY2 - y2, characters);
+    }
+
+    /**
+     * @return cached matches, or <code>null</code>
+     */
+    Matches get(Key key)
+    {
+        final Segment segment = segmentOf(key);
+        Matches matches;
+        synchronized (segment)
+        {
+            matches = segment.get(key);
+        }
+        if (matches == null)
+        {
+            misses.incrementAndGet();
+        }
+        else
+        {
+            hits.incrementAndGet();
+        }
+        return matches;
+    }
+
+    void put(Key key, Matches matches)
+    {
+        final Segment segment = segmentOf(key);
+        synchronized (segment)
+        {
+            segment.put(key, matches);
+        }
+    }
+
+    private Segment segmentOf(Key key)
+    {
+        return segments[(key.hashCode() & 0x7fffffff) % segments.length];
+    }
+
+    /**
+     * access ordered map dropping least recently used entry once it is full
+     */
+    private static final class Segment extends LinkedHashMap<Key, Matches>
+    {
+        private static final long serialVersionUID = 0;
+        private final int capacity;
+
+        Segment(int capacity)
+        {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, Matches> eldest)
+        {
+            return size() > capacity;
+        }
+    }
+
+    /**
+     * fingerprint and row relative geometry of character area
+     */
+    static final class Key
+    {
+        private final long[] bits;
+        private final int width;
+        private final int height;
+        private final int top;
+        private final int bottom;
+        private final String characters;
+        private final int hash;
+
+        Key(long[] bits, int width, int height, int top, int bottom, String characters)
+        {
+            this.bits = bits;
+            this.width = width;
+            this.height = height;
+            this.top = top;
+            this.bottom = bottom;
+            this.characters = characters;
+            int h = characters.hashCode();
+            for (long b : bits)
+            {
+                h = 31 * h + (int) (b ^ (b >>> 32));
+            }
+            h = 31 * h + width;
+            h = 31 * h + height;
+            h = 31 * h + top;
+            hash = 31 * h + bottom;
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object o)
+        {
+            if (this == o)
+            {
+                return true;
+            }
+            if (!(o instanceof Key))
+            {
+                return false;
+            }
+            Key key = (Key) o;
+            return hash == key.hash && width == key.width && height == key.height
+                    && top == key.top && bottom == key.bottom
+                    && Arrays.equals(bits, key.bits) && characters.equals(key.characters);
+        }
+    }
+
+    /**
+     * best matching characters with their training images and errors, best match first
+     */
+    static final class Matches
+    {
+        private final char[] chars;
+        private final TrainingImage[] images;
+        private final double[] mses;
+
+        Matches(RecognizedChar[] bestChars, double[] bestMSEs, int bestCount)
+        {
+            chars = new char[bestCount];
+            images = new TrainingImage[bestCount];
+            mses = new double[bestCount];
+            for (int i = 0; i < bestCount; i++)
+            {
+                chars[i] = bestChars[i].getRecognizedChar();
+                images[i] = bestChars[i].getTrainingImage();
+                mses[i] = bestMSEs[i];
+            }
+        }
+
+        /**
+         * fill match buffers for character found at another place
+         *
+         * @return amount of matches
+         */
+        int copyTo(RecognizedChar[] bestChars, double[] bestMSEs, FoundChar foundChar)
+        {
+            for (int i = 0; i < chars.length; i++)
+            {
+                bestChars[i] = new RecognizedChar(chars[i], images[i], foundChar);
+                bestMSEs[i] = mses[i];
+            }
+            return chars.length;
+        }
+    }
+}
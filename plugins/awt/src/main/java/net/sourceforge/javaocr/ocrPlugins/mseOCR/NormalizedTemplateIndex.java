@@ -0,0 +1,197 @@
+package net.sourceforge.javaocr.ocrPlugins.mseOCR;
+
+import net.sourceforge.javaocr.scanner.TrainingImage;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Training images resampled once to fixed square grid and stored in one flat byte array.
+ * Character areas are resampled to the same grid once per character, so matching is a plain
+ * sum of squared differences over contiguous memory, regardless of image sizes.
+ * <p/>
+ * Templates are numbered the same way as in {@link CandidateIndex}, so training images of a character
+ * occupy the index range returned by {@link #getRange(Character)}.
+ * <p/>
+ * Index is immutable once built and can be shared between threads.
+ */
+public class NormalizedTemplateIndex
+{
+
+    private final int gridSize;
+    private final int cellCount;
+    private final CandidateIndex candidates;
+    private final byte[] cells;
+    private final HashMap<Character, int[]> ranges = new HashMap<Character, int[]>();
+
+    /**
+     * Resample all the training images to the grid.
+     *
+     * @param trainingImages training images, keyed by character
+     * @param gridSize       width and height of the grid, in cells
+     */
+    public NormalizedTemplateIndex(Map<Character, ArrayList<TrainingImage>> trainingImages, int gridSize)
+    {
+        this(new CandidateIndex(trainingImages), gridSize);
+    }
+
+    /**
+     * Resample all the training images and library templates of candidate index to the grid.
+     *
+     * @param candidates index of training images and library templates
+     * @param gridSize   width and height of the grid, in cells
+     */
+    public NormalizedTemplateIndex(CandidateIndex candidates, int gridSize)
+    {
+        if (gridSize < 2)
+        {
+            throw new IllegalArgumentException("grid size must be at least 2");
+        }
+        this.gridSize = gridSize;
+        this.cellCount = gridSize * gridSize;
+        this.candidates = candidates;
+        final int count = candidates.size();
+        cells = new byte[count * cellCount];
+        for (int idx = 0; idx < count; idx++)
+        {
+            TemplateLibrary.Template template = candidates.getTemplate(idx);
+            if (template != null)
+            {
+                resample(template, cells, idx * cellCount);
+            }
+            else
+            {
+                TrainingImage ti = candidates.getImage(idx);
+                resample(ti.pixels, ti.width, 0, 0, ti.width, ti.height, cells, idx * cellCount);
+            }
+            Character ch = candidates.getCharacter(candidates.getSlotOf(idx));
+            int[] range = ranges.get(ch);
+            if (range == null)
+            {
+                ranges.put(ch, new int[]{idx, idx + 1});
+            }
+            else
+            {
+                range[1] = idx + 1;
+            }
+        }
+    }
+
+    /**
+     * @return width and height of the grid
+     */
+    public int getGridSize()
+    {
+        return gridSize;
+    }
+
+    /**
+     * @return amount of grid cells per image
+     */
+    public int getCellCount()
+    {
+        return cellCount;
+    }
+
+    /**
+     * @return amount of indexed training images
+     */
+    public int size()
+    {
+        return candidates.size();
+    }
+
+    /**
+     * @param idx template index
+     * @return training image stored under this index
+     */
+    public TrainingImage getImage(int idx)
+    {
+        return candidates.getImage(idx);
+    }
+
+    /**
+     * @param ch character
+     * @return <code>{from, to}</code> template index range (to is exclusive) of training images
+     *         for this character, or <code>null</code> if there are none
+     */
+    public int[] getRange(Character ch)
+    {
+        return ranges.get(ch);
+    }
+
+    /**
+     * Resample character area to the grid.
+     *
+     * @param pixels grayscale pixels of the document
+     * @param w      width of the document
+     * @param x1     left border of the area
+     * @param y1     top border of the area
+     * @param x2     right border of the area (exclusive)
+     * @param y2     bottom border of the area (exclusive)
+     * @param dst    destination buffer, at least {@link #getCellCount()} long
+     */
+    public void normalize(int[] pixels, int w, int x1, int y1, int x2, int y2, byte[] dst)
+    {
+        resample(pixels, w, x1, y1, x2, y2, dst, 0);
+    }
+
+    /**
+     * Calculate the error factor between normalized character area and template.
+     * Errors are comparable between templates for the same area, but not with
+     * {@link TrainingImage#calcMSE(int[], int, int, int, int, int, int)}.
+     *
+     * @param idx   template index
+     * @param glyph character area produced by {@link #normalize}
+     * @return root of sum of square errors divided by cell count. Lower numbers indicate a better match.
+     */
+    public double calcMSE(int idx, byte[] glyph)
+    {
+        final byte[] cells = this.cells;
+        long totalError = 0L;
+        for (int i = 0, p = idx * cellCount; i < cellCount; i++, p++)
+        {
+            final int error = (glyph[i] & 0xff) - (cells[p] & 0xff);
+            totalError += error * error;
+        }
+        return Math.sqrt((double) totalError) / (double) cellCount;
+    }
+
+    /**
+     * nearest neighbour resampling, maps corner pixels onto corner cells
+     * the same way training image comparison does
+     */
+    private void resample(int[] pixels, int w, int x1, int y1, int x2, int y2, byte[] dst, int offset)
+    {
+        final int maxX = Math.max((x2 - x1) - 1, 0);
+        final int maxY = Math.max((y2 - y1) - 1, 0);
+        final int maxCell = gridSize - 1;
+        for (int gy = 0, p = offset; gy < gridSize; gy++)
+        {
+            final int lineIdx = (y1 + (gy * maxY) / maxCell) * w + x1;
+            for (int gx = 0; gx < gridSize; gx++, p++)
+            {
+                dst[p] = (byte) pixels[lineIdx + (gx * maxX) / maxCell];
+            }
+        }
+    }
+
+    /**
+     * the same resampling, reading pixels straight from the library
+     */
+    private void resample(TemplateLibrary.Template template, byte[] dst, int offset)
+    {
+        final int maxX = template.getWidth() - 1;
+        final int maxY = template.getHeight() - 1;
+        final int maxCell = gridSize - 1;
+        for (int gy = 0, p = offset; gy < gridSize; gy++)
+        {
+            final int y = (gy * maxY) / maxCell;
+            for (int gx = 0; gx < gridSize; gx++, p++)
+            {
+                dst[p] = (byte) template.getPixel((gx * maxX) / maxCell, y);
+            }
+        }
+    }
+}
@@ -20,6 +20,10 @@ import java.awt.image.BufferedImage;
 import java.awt.image.WritableRaster;
 import java.util.*;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.logging.Logger;
 
 /**
@@ -35,12 +39,16 @@ public class OCRScanner extends DocumentScannerListenerAdaptor implements Accura
     //    private boolean firstRow = false;
     private String newline = System.getProperty("line.separator");
     private HashMap<Character, ArrayList<TrainingImage>> trainingImages = new HashMap<Character, ArrayList<TrainingImage>>();
-    private RecognizedChar[] bestChars = new RecognizedChar[BEST_MATCH_STORE_COUNT];
-    private double[] bestMSEs = new double[BEST_MATCH_STORE_COUNT];
+    private TemplateLibrary templateLibrary;
     private DocumentScanner documentScanner = new DocumentScanner();
     private AccuracyListenerInterface accListener;
     private FoundWord currentWord;
     private List<FoundWord> words;
+    private int normalizedGridSize = 0;
+    private CandidateIndex candidateIndex;
+    private NormalizedTemplateIndex templateIndex;
+    private MatchBuffers buffers;
+    private GlyphRecognitionCache recognitionCache;
 
     public void acceptAccuracyListener(AccuracyListenerInterface listener) {
         accListener = listener;
@@ -59,6 +67,64 @@ public class OCRScanner extends DocumentScannerListenerAdaptor implements Accura
      */
     public void clearTrainingImages() {
         trainingImages.clear();
+        templateLibrary = null;
+        candidateIndex = null;
+        templateIndex = null;
+        buffers = null;
+        invalidateRecognitionCache();
+    }
+
+    /**
+     * @return cache of recently recognized characters, or <code>null</code> if every character is
+     *         compared with training images
+     */
+    public GlyphRecognitionCache getRecognitionCache() {
+        return recognitionCache;
+    }
+
+    /**
+     * Reuse best matches of characters recognized before, within the scan and across scans.
+     * Worth it when the same characters are printed over and over again the same way, e.g. receipts
+     * of the same printer.  Cache is invalidated whenever training images change.
+     *
+     * @param recognitionCache cache to use, or <code>null</code> to compare every character with
+     *                         training images (default)
+     */
+    public void setRecognitionCache(GlyphRecognitionCache recognitionCache) {
+        this.recognitionCache = recognitionCache;
+        invalidateRecognitionCache();
+    }
+
+    private void invalidateRecognitionCache() {
+        if (recognitionCache != null) {
+            recognitionCache.invalidate();
+        }
+    }
+
+    /**
+     * @return size of the grid training images and characters are normalized to before
+     *         comparison, or <code>0</code> if training images are rescaled for every character
+     */
+    public int getNormalizedGridSize() {
+        return normalizedGridSize;
+    }
+
+    /**
+     * Compare characters with training images on fixed square grid instead of rescaling every
+     * training image to the size of every character.  Training images are resampled once
+     * when scan begins, every character is resampled once, so comparison cost no longer
+     * depends on image sizes.  This is considerably faster on large training sets, but
+     * coarser: errors are computed on different scale and best matches may differ from
+     * exact comparison.
+     *
+     * @param normalizedGridSize width and height of the grid (16 is reasonable choice), or
+     *                           <code>0</code> to use exact comparison (default)
+     */
+    public void setNormalizedGridSize(int normalizedGridSize) {
+        this.normalizedGridSize = normalizedGridSize;
+        templateIndex = null;
+        buffers = null;
+        invalidateRecognitionCache();
     }
 
     /**
@@ -81,6 +147,32 @@ public class OCRScanner extends DocumentScannerListenerAdaptor implements Accura
                 oldAl.add(anAl);
             }
         }
+        candidateIndex = null;
+        templateIndex = null;
+        buffers = null;
+        invalidateRecognitionCache();
+    }
+
+    /**
+     * @return template library matched along with training images, or <code>null</code>
+     */
+    public TemplateLibrary getTemplateLibrary() {
+        return templateLibrary;
+    }
+
+    /**
+     * Match characters against templates of the library as well as against training images.
+     * Templates are compared straight from the library, so they are not copied to the heap,
+     * besides those reported as best matches.  Library is dropped by {@link #clearTrainingImages()}.
+     *
+     * @param templateLibrary library to use, or <code>null</code> to use training images only
+     */
+    public void setTemplateLibrary(TemplateLibrary templateLibrary) {
+        this.templateLibrary = templateLibrary;
+        candidateIndex = null;
+        templateIndex = null;
+        buffers = null;
+        invalidateRecognitionCache();
     }
 
     /**
@@ -108,14 +200,212 @@ public class OCRScanner extends DocumentScannerListenerAdaptor implements Accura
             int y2,
             CharacterRange[] acceptableChars) {
 
+        return scanPrepared(prepareImage(image, null), x1, y1, x2, y2, acceptableChars);
+    }
+
+    /**
+     * Scan grayscale image and return the decoded text.  Same as
+     * {@link #scan(java.awt.Image, int, int, int, int, CharacterRange[])}, for images decoded
+     * straight to grayscale, e.g. by {@link net.sourceforge.javaocr.ocr.ImageReader#readGrayscale(java.io.File)},
+     * so no RGB copy of the image has to be made.
+     *
+     * @param grayImage       The grayscale image to be scanned.  Its pixels are modified.
+     * @param x1              The leftmost pixel position of the area to be scanned, or
+     *                        <code>0</code> to start scanning at the left boundary of the image.
+     * @param y1              The topmost pixel position of the area to be scanned, or
+     *                        <code>0</code> to start scanning at the top boundary of the image.
+     * @param x2              The rightmost pixel position of the area to be scanned, or
+     *                        <code>0</code> to stop scanning at the right boundary of the image.
+     * @param y2              The bottommost pixel position of the area to be scanned, or
+     *                        <code>0</code> to stop scanning at the bottom boundary of the image.
+     * @param acceptableChars An array of <code>CharacterRange</code> objects
+     *                        representing the ranges of characters which are allowed to be decoded,
+     *                        or <code>null</code> to not limit which characters can be decoded.
+     * @return The decoded text.
+     */
+    public java.util.List<FoundWord> scan(
+            PixelImage grayImage,
+            int x1,
+            int y1,
+            int x2,
+            int y2,
+            CharacterRange[] acceptableChars) {
+
+        return scanPrepared(prepareGrayscaleImage(grayImage, null), x1, y1, x2, y2, acceptableChars);
+    }
+
+    private java.util.List<FoundWord> scanPrepared(
+            PixelImage pixelImage,
+            int x1,
+            int y1,
+            int x2,
+            int y2,
+            CharacterRange[] acceptableChars) {
+
+        beginScan(acceptableChars);
+
+        documentScanner.scan(pixelImage, this, x1, y1, x2, y2);
+        return words;
+    }
+
+    /**
+     * Get ready to recognize a document segmented elsewhere, e.g. by a document scanner shared
+     * with other recognizers.  After this call scanner can be fed with document scanner events
+     * of an image brought into shape by {@link #prepareImage(java.awt.Image, ExecutorService)}.
+     *
+     * @param acceptableChars An array of <code>CharacterRange</code> objects
+     *                        representing the ranges of characters which are allowed to be decoded,
+     *                        or <code>null</code> to not limit which characters can be decoded.
+     * @return list receiving decoded words as events arrive
+     */
+    public java.util.List<FoundWord> beginScan(CharacterRange[] acceptableChars) {
         currentWord = new FoundWord();
         words = new LinkedList<FoundWord>();
 
         this.acceptableChars = acceptableChars;
+        prepareIndexes();
+        return words;
+    }
+
+    /**
+     * Scan an image and return the decoded text, recognizing rows of text in parallel.
+     * Document preprocessing and row detection are done once on the calling thread, then
+     * every row is recognized as a separate task on supplied executor (a fork-join pool
+     * or any other executor service will do).  Results are put back together in document
+     * order, so returned words and accuracy notifications are exactly the same as
+     * those of {@link #scan(java.awt.Image, int, int, int, int, CharacterRange[])}.
+     * Accuracy listener is notified on the calling thread.
+     * <p/>
+     * Training images must not be modified while scan is in progress.
+     *
+     * @param image           The <code>Image</code> to be scanned.
+     * @param x1              The leftmost pixel position of the area to be scanned, or
+     *                        <code>0</code> to start scanning at the left boundary of the image.
+     * @param y1              The topmost pixel position of the area to be scanned, or
+     *                        <code>0</code> to start scanning at the top boundary of the image.
+     * @param x2              The rightmost pixel position of the area to be scanned, or
+     *                        <code>0</code> to stop scanning at the right boundary of the image.
+     * @param y2              The bottommost pixel position of the area to be scanned, or
+     *                        <code>0</code> to stop scanning at the bottom boundary of the image.
+     * @param acceptableChars An array of <code>CharacterRange</code> objects
+     *                        representing the ranges of characters which are allowed to be decoded,
+     *                        or <code>null</code> to not limit which characters can be decoded.
+     * @param executor        executor to run row recognition tasks on. It is not shut down.
+     * @return The decoded text.
+     */
+    public java.util.List<FoundWord> scan(
+            Image image,
+            int x1,
+            int y1,
+            int x2,
+            int y2,
+            CharacterRange[] acceptableChars,
+            ExecutorService executor) {
+
+        return scanPrepared(prepareImage(image, executor), x1, y1, x2, y2, acceptableChars, executor);
+    }
+
+    /**
+     * Scan grayscale image and return the decoded text, recognizing rows of text in parallel.
+     * Same as {@link #scan(java.awt.Image, int, int, int, int, CharacterRange[], ExecutorService)},
+     * for images decoded straight to grayscale.
+     *
+     * @param grayImage       The grayscale image to be scanned.  Its pixels are modified.
+     * @param x1              The leftmost pixel position of the area to be scanned, or
+     *                        <code>0</code> to start scanning at the left boundary of the image.
+     * @param y1              The topmost pixel position of the area to be scanned, or
+     *                        <code>0</code> to start scanning at the top boundary of the image.
+     * @param x2              The rightmost pixel position of the area to be scanned, or
+     *                        <code>0</code> to stop scanning at the right boundary of the image.
+     * @param y2              The bottommost pixel position of the area to be scanned, or
+     *                        <code>0</code> to stop scanning at the bottom boundary of the image.
+     * @param acceptableChars An array of <code>CharacterRange</code> objects
+     *                        representing the ranges of characters which are allowed to be decoded,
+     *                        or <code>null</code> to not limit which characters can be decoded.
+     * @param executor        executor to run row recognition tasks on. It is not shut down.
+     * @return The decoded text.
+     */
+    public java.util.List<FoundWord> scan(
+            PixelImage grayImage,
+            int x1,
+            int y1,
+            int x2,
+            int y2,
+            CharacterRange[] acceptableChars,
+            ExecutorService executor) {
+
+        return scanPrepared(prepareGrayscaleImage(grayImage, executor), x1, y1, x2, y2, acceptableChars, executor);
+    }
+
+    private java.util.List<FoundWord> scanPrepared(
+            PixelImage pixelImage,
+            int x1,
+            int y1,
+            int x2,
+            int y2,
+            CharacterRange[] acceptableChars,
+            ExecutorService executor) {
+
+        beginScan(acceptableChars);
+
+        int[] block = documentScanner.clipBlock(pixelImage, x1, y1, x2, y2);
+        ArrayList<Integer> rows = documentScanner.extractRows(pixelImage, block[0], block[1], block[2], block[3]);
+
+        List<Future<RowRecognizer>> results = new ArrayList<Future<RowRecognizer>>(rows.size() / 2);
+        for (int i = 0; (i + 1) < rows.size(); i += 2) {
+            results.add(executor.submit(new RowRecognizer(pixelImage, block[0], rows.get(i), block[2], rows.get(i + 1))));
+        }
+        try {
+            for (Future<RowRecognizer> result : results) {
+                result.get().replay();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("interrupted while waiting for row recognition", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new RuntimeException("row recognition failed", e.getCause());
+        } finally {
+            for (Future<RowRecognizer> result : results) {
+                result.cancel(true);
+            }
+        }
+        return words;
+    }
+
+    /**
+     * Convert image to grayscale and bring it into shape for document scanner: levels are
+     * corrected, image is filtered, surroundings of receipt are whitened and image is sheared.
+     *
+     * @param image    The <code>Image</code> to be scanned.
+     * @param executor executor to filter image on, or <code>null</code> to do it on calling thread
+     * @return prepared grayscale image
+     */
+    public PixelImage prepareImage(Image image, ExecutorService executor) {
         PixelImage pixelImage = new PixelImage(image);
-        pixelImage.toGrayScale(true);
+        pixelImage.toGrayScale(false);
+        return prepareGrayscaleImage(pixelImage, executor);
+    }
+
+    /**
+     * Bring grayscale image into shape for document scanner, the same way
+     * {@link #prepareImage(java.awt.Image, ExecutorService)} does after converting to grayscale.
+     *
+     * @param grayImage image with pixels in range 0-255, modified in place
+     * @param executor  executor to filter image on, or <code>null</code> to do it on calling thread
+     * @return prepared grayscale image
+     */
+    public PixelImage prepareGrayscaleImage(PixelImage grayImage, ExecutorService executor) {
+        PixelImage pixelImage = grayImage;
+        pixelImage.normalizeGrayScale();
         new LevelsCorrector().adjustImageLevels(pixelImage);
-        pixelImage.filter();
+        if (executor == null) {
+            pixelImage.filter();
+        } else {
+            pixelImage.filter(executor);
+        }
         new ReceiptFinder().findReceipt(documentScanner, pixelImage);
         pixelImage = new ImageShearer().shearImage(documentScanner, pixelImage);
 
@@ -123,9 +413,25 @@ public class OCRScanner extends DocumentScannerListenerAdaptor implements Accura
         WritableRaster raster = (WritableRaster) newImage.getData();
         raster.setPixels(0, 0, pixelImage.width, pixelImage.height, pixelImage.pixels);
         newImage.setData(raster);
+        return pixelImage;
+    }
 
-        documentScanner.scan(pixelImage, this, x1, y1, x2, y2);
-        return words;
+    /**
+     * build training image indexes if training images changed since last scan
+     */
+    private void prepareIndexes() {
+        if (candidateIndex == null) {
+            candidateIndex = new CandidateIndex(trainingImages, templateLibrary);
+            templateIndex = null;
+        }
+        if (normalizedGridSize > 0) {
+            if (templateIndex == null) {
+                templateIndex = new NormalizedTemplateIndex(candidateIndex, normalizedGridSize);
+            }
+        } else {
+            templateIndex = null;
+        }
+        buffers = new MatchBuffers();
     }
 
     @Override
@@ -160,6 +466,69 @@ public class OCRScanner extends DocumentScannerListenerAdaptor implements Accura
             int rowY1,
             int rowY2) {
 
+        if (buffers == null) {
+            prepareIndexes();
+        }
+        int bestCount = recognize(pixelImage, x1, y1, x2, y2, rowY1, rowY2, buffers);
+        if (bestCount > 0) {
+            currentWord.addRecognizedChar(buffers.bestChars[0]);
+        }
+        //Send accuracy of this identification to the listener
+        if (accListener != null) {
+            accListener.processCharOrSpace(identification(buffers.bestChars, buffers.bestMSEs, bestCount));
+        }
+    }
+
+    /**
+     * take best matches of character area from recognition cache, or find them and put them there
+     *
+     * @param buffers receives best matching characters, best match first, and their errors
+     * @return amount of collected matches
+     */
+    private int recognize(
+            PixelImage pixelImage,
+            int x1,
+            int y1,
+            int x2,
+            int y2,
+            int rowY1,
+            int rowY2,
+            MatchBuffers buffers) {
+
+        GlyphRecognitionCache cache = recognitionCache;
+        if (cache == null) {
+            return findBestMatches(pixelImage, x1, y1, x2, y2, rowY1, rowY2, buffers);
+        }
+        GlyphRecognitionCache.Key key = GlyphRecognitionCache.key(
+                pixelImage.pixels, pixelImage.width, x1, y1, x2, y2, rowY1, rowY2, buffers.characters);
+        GlyphRecognitionCache.Matches matches = cache.get(key);
+        if (matches != null) {
+            final FoundChar foundChar = new FoundChar(pixelImage, x1, y1, x2, y2, rowY1, rowY2);
+            return matches.copyTo(buffers.bestChars, buffers.bestMSEs, foundChar);
+        }
+        int bestCount = findBestMatches(pixelImage, x1, y1, x2, y2, rowY1, rowY2, buffers);
+        cache.put(key, new GlyphRecognitionCache.Matches(buffers.bestChars, buffers.bestMSEs, bestCount));
+        return bestCount;
+    }
+
+    /**
+     * compare character area with candidate training images and collect best matching characters.
+     * does not touch scanner state besides reading training image indexes, so it is safe to call
+     * concurrently with distinct buffers
+     *
+     * @param buffers receives best matching characters, best match first, and their errors
+     * @return amount of collected matches
+     */
+    private int findBestMatches(
+            PixelImage pixelImage,
+            int x1,
+            int y1,
+            int x2,
+            int y2,
+            int rowY1,
+            int rowY2,
+            MatchBuffers buffers) {
+
         int[] pixels = pixelImage.pixels;
         int w = pixelImage.width;
         int h = pixelImage.height;
@@ -168,98 +537,117 @@ public class OCRScanner extends DocumentScannerListenerAdaptor implements Accura
         int rowHeight = rowY2 - rowY1;
         float topWhiteSpaceFraction = (float) (y1 - rowY1) / (float) rowHeight;
         float bottomWhiteSpaceFraction = (float) (rowY2 - y2) / (float) rowHeight;
-        Iterator<Character> it;
-        if (acceptableChars != null) {
-            ArrayList<Character> al = new ArrayList<Character>();
-            for (CharacterRange cr : acceptableChars) {
-                for (int c = cr.min; c <= cr.max; c++) {
-                    Character ch = (char) c;
-                    if (al.indexOf(ch) < 0) {
-                        al.add(ch);
-                    }
+        CandidateIndex candidates = buffers.candidateIndex;
+        NormalizedTemplateIndex index = buffers.templateIndex;
+        if (index != null) {
+            index.normalize(pixels, w, x1, y1, x2, y2, buffers.glyphCells);
+        }
+
+        // best matching training image of every character, earliest in the list wins ties
+        int[] found = buffers.candidates;
+        int[] charImages = buffers.charImages;
+        double[] charMSEs = buffers.charMSEs;
+        buffers.resetLeaders();
+        int foundCount = candidates.lookup(aspectRatio, topWhiteSpaceFraction, bottomWhiteSpaceFraction, found);
+        for (int i = 0; i < foundCount; i++) {
+            int t = found[i];
+            int slot = candidates.getSlotOf(t);
+            if (!buffers.acceptable[slot]) {
+                continue;
+            }
+            if (isTrainingImageACandidate(
+                    aspectRatio,
+                    areaW,
+                    areaH,
+                    topWhiteSpaceFraction,
+                    bottomWhiteSpaceFraction,
+                    candidates,
+                    t)) {
+                // matches worse than best image of the same character, or worse than
+                // best matches of BEST_MATCH_STORE_COUNT other characters, are of no interest
+                int best = charImages[slot];
+                double bound = buffers.leaderBound();
+                if ((best >= 0) && (charMSEs[slot] < bound)) {
+                    bound = charMSEs[slot];
+                }
+                double thisMSE;
+                if (index != null) {
+                    thisMSE = index.calcMSE(t, buffers.glyphCells);
+                } else {
+                    TemplateLibrary.Template template = candidates.getTemplate(t);
+                    thisMSE = template != null
+                            ? template.calcMSE(pixels, w, h, x1, y1, x2, y2, bound)
+                            : candidates.getImage(t).calcMSE(pixels, w, h, x1, y1, x2, y2, bound);
+                }
+                if (thisMSE > bound) {
+                    continue;
+                }
+                if ((best < 0)
+                        || (thisMSE < charMSEs[slot])
+                        || ((thisMSE == charMSEs[slot]) && (candidates.getPosition(t) < candidates.getPosition(best)))) {
+                    charImages[slot] = t;
+                    charMSEs[slot] = thisMSE;
+                    buffers.updateLeaders(slot, thisMSE);
                 }
             }
-            it = al.iterator();
-        } else {
-            it = trainingImages.keySet().iterator();
         }
+
+        RecognizedChar[] bestChars = buffers.bestChars;
+        double[] bestMSEs = buffers.bestMSEs;
         int bestCount = 0;
-        while (it.hasNext()) {
-            Character ch = it.next();
-            ArrayList<TrainingImage> al = trainingImages.get(ch);
-            int nimg = al.size();
-            if (nimg > 0) {
-                double mse = 0.0;
-                TrainingImage mseImg = null;
-                boolean gotAny = false;
-                for (TrainingImage ti : al) {
-                    if (isTrainingImageACandidate(
-                            aspectRatio,
-                            areaW,
-                            areaH,
-                            topWhiteSpaceFraction,
-                            bottomWhiteSpaceFraction,
-                            ti)) {
-                        double thisMSE = ti.calcMSE(pixels, w, h, x1, y1, x2, y2);
-                        if ((!gotAny) || (thisMSE < mse)) {
-                            gotAny = true;
-                            mse = thisMSE;
-                            mseImg = ti;
-                        }
-                    }
-                }
+        for (int n = 0; n < buffers.order.length; n++) {
+            int slot = buffers.order[n];
+            if (charImages[slot] >= 0) {
+                Character ch = buffers.orderChars[n];
+                double mse = charMSEs[slot];
+                TrainingImage mseImg = candidates.getImage(charImages[slot]);
 /// Maybe mse should be required to be below a certain threshold before we store it.
 /// That would help us to handle things like welded characters, and characters that get improperly
 /// split into two or more characters.
-                if (gotAny) {
-                    boolean inserted = false;
-                    for (int i = 0; i < bestCount; i++) {
-                        if (mse < bestMSEs[i]) {
-                            for (int j = Math.min(bestCount, BEST_MATCH_STORE_COUNT - 1); j > i; j--) {
-                                int k = j - 1;
-                                bestChars[j] = bestChars[k];
-                                bestMSEs[j] = bestMSEs[k];
-                            }
-                            final FoundChar foundChar = new FoundChar(pixelImage, x1, y1, x2, y2, rowY1, rowY2);
-                            bestChars[i] = new RecognizedChar(ch, mseImg, foundChar);
-                            bestMSEs[i] = mse;
-                            if (bestCount < BEST_MATCH_STORE_COUNT) {
-                                bestCount++;
-                            }
-                            inserted = true;
-                            break;
+                boolean inserted = false;
+                for (int i = 0; i < bestCount; i++) {
+                    if (mse < bestMSEs[i]) {
+                        for (int j = Math.min(bestCount, BEST_MATCH_STORE_COUNT - 1); j > i; j--) {
+                            int k = j - 1;
+                            bestChars[j] = bestChars[k];
+                            bestMSEs[j] = bestMSEs[k];
                         }
-                    }
-                    if ((!inserted) && (bestCount < BEST_MATCH_STORE_COUNT)) {
                         final FoundChar foundChar = new FoundChar(pixelImage, x1, y1, x2, y2, rowY1, rowY2);
-                        bestChars[bestCount] = new RecognizedChar(ch, mseImg, foundChar);
-                        bestMSEs[bestCount] = mse;
-                        bestCount++;
+                        bestChars[i] = new RecognizedChar(ch, mseImg, foundChar);
+                        bestMSEs[i] = mse;
+                        if (bestCount < BEST_MATCH_STORE_COUNT) {
+                            bestCount++;
+                        }
+                        inserted = true;
+                        break;
                     }
                 }
+                if ((!inserted) && (bestCount < BEST_MATCH_STORE_COUNT)) {
+                    final FoundChar foundChar = new FoundChar(pixelImage, x1, y1, x2, y2, rowY1, rowY2);
+                    bestChars[bestCount] = new RecognizedChar(ch, mseImg, foundChar);
+                    bestMSEs[bestCount] = mse;
+                    bestCount++;
+                }
             }
         }
+        for (int i = 0; i < foundCount; i++) {
+            charImages[candidates.getSlotOf(found[i])] = -1;
+        }
 /// We could also put some aspect ratio range checking into the page scanning logic (but only when
 /// decoding; not when loading training images) so that the aspect ratio of a non-empty character
 /// block is limited to within the min and max of the aspect ratios in the training set.
-        if (bestCount > 0) {
-            currentWord.addRecognizedChar(bestChars[0]);
-
-            //Send accuracy of this identification to the listener
-            if (accListener != null) {
-                OCRIdentification identAccuracy = new OCRIdentification(OCRComp.MSE);
-                for (int i = 0; i < bestCount; i++) {
-                    identAccuracy.addChar(bestChars[i].getRecognizedChar(), bestMSEs[i]);
-                }
-                accListener.processCharOrSpace(identAccuracy);
-            }
+        return bestCount;
+    }
 
-        } else {
-            if (accListener != null) {
-                OCRIdentification identAccuracy = new OCRIdentification(OCRComp.MSE);
-                accListener.processCharOrSpace(identAccuracy);
-            }
+    /**
+     * build accuracy notification out of collected matches
+     */
+    private OCRIdentification identification(RecognizedChar[] bestChars, double[] bestMSEs, int bestCount) {
+        OCRIdentification identAccuracy = new OCRIdentification(OCRComp.MSE);
+        for (int i = 0; i < bestCount; i++) {
+            identAccuracy.addChar(bestChars[i].getRecognizedChar(), bestMSEs[i]);
         }
+        return identAccuracy;
     }
 
     private boolean isTrainingImageACandidate(
@@ -268,40 +656,44 @@ public class OCRScanner extends DocumentScannerListenerAdaptor implements Accura
             int h,
             float topWhiteSpaceFraction,
             float bottomWhiteSpaceFraction,
-            TrainingImage ti) {
+            CandidateIndex candidates,
+            int t) {
+        final float tiAspectRatio = candidates.getAspectRatio(t);
+        final int tiWidth = candidates.getWidth(t);
+        final int tiHeight = candidates.getHeight(t);
         // The aspect ratios must be within tolerance.
-        if (((aspectRatio / ti.aspectRatio) - 1.0f) > TrainingImage.ASPECT_RATIO_TOLERANCE) {
+        if (((aspectRatio / tiAspectRatio) - 1.0f) > TrainingImage.ASPECT_RATIO_TOLERANCE) {
             return false;
         }
-        if (((ti.aspectRatio / aspectRatio) - 1.0f) > TrainingImage.ASPECT_RATIO_TOLERANCE) {
+        if (((tiAspectRatio / aspectRatio) - 1.0f) > TrainingImage.ASPECT_RATIO_TOLERANCE) {
             return false;
         }
         // The top whitespace fractions must be within tolerance.
-        if (Math.abs(topWhiteSpaceFraction - ti.topWhiteSpaceFraction)
+        if (Math.abs(topWhiteSpaceFraction - candidates.getTopWhiteSpaceFraction(t))
                 > TrainingImage.TOP_WHITE_SPACE_FRACTION_TOLERANCE) {
             return false;
         }
         // The bottom whitespace fractions must be within tolerance.
-        if (Math.abs(bottomWhiteSpaceFraction - ti.bottomWhiteSpaceFraction)
+        if (Math.abs(bottomWhiteSpaceFraction - candidates.getBottomWhiteSpaceFraction(t))
                 > TrainingImage.BOTTOM_WHITE_SPACE_FRACTION_TOLERANCE) {
             return false;
         }
         // If the area being scanned is really small and we
         // are about to crunch down a training image by a huge
         // factor in order to compare to it, then don't do that.
-        if ((w <= 4) && (ti.width >= (w * 10))) {
+        if ((w <= 4) && (tiWidth >= (w * 10))) {
             return false;
         }
-        if ((h <= 4) && (ti.height >= (h * 10))) {
+        if ((h <= 4) && (tiHeight >= (h * 10))) {
             return false;
         }
         // If the area being scanned is really large and we
         // are about to expand a training image by a huge
         // factor in order to compare to it, then don't do that.
-        if ((ti.width <= 4) && (w >= (ti.width * 10))) {
+        if ((tiWidth <= 4) && (w >= (tiWidth * 10))) {
             return false;
         }
-        if ((ti.height <= 4) && (h >= (ti.height * 10))) {
+        if ((tiHeight <= 4) && (h >= (tiHeight * 10))) {
             return false;
         }
         return true;
@@ -318,5 +710,185 @@ public class OCRScanner extends DocumentScannerListenerAdaptor implements Accura
         }
     }
 
+    /**
+     * working storage of character matching for single thread, sized for indexes of current scan
+     */
+    private class MatchBuffers {
+        final CandidateIndex candidateIndex = OCRScanner.this.candidateIndex;
+        final NormalizedTemplateIndex templateIndex = OCRScanner.this.templateIndex;
+        final RecognizedChar[] bestChars = new RecognizedChar[BEST_MATCH_STORE_COUNT];
+        final double[] bestMSEs = new double[BEST_MATCH_STORE_COUNT];
+        final int[] candidates = new int[candidateIndex.size()];
+        final int[] charImages = new int[candidateIndex.getSlotCount()];
+        final double[] charMSEs = new double[candidateIndex.getSlotCount()];
+        final byte[] glyphCells = templateIndex != null ? new byte[templateIndex.getCellCount()] : null;
+        // slots of acceptable characters, in the order best matches are collected
+        final int[] order;
+        final Character[] orderChars;
+        // acceptable characters in the same order, part of recognition cache keys
+        final String characters;
+        final boolean[] acceptable = new boolean[candidateIndex.getSlotCount()];
+        // slots with smallest errors among characters matched so far
+        final int[] leaderSlots = new int[BEST_MATCH_STORE_COUNT];
+        final double[] leaderMSEs = new double[BEST_MATCH_STORE_COUNT];
+        int leaderCount;
+
+        MatchBuffers() {
+            Arrays.fill(charImages, -1);
+            ArrayList<Character> chars = new ArrayList<Character>();
+            if (acceptableChars != null) {
+                for (CharacterRange cr : acceptableChars) {
+                    for (int c = cr.min; c <= cr.max; c++) {
+                        Character ch = (char) c;
+                        if (chars.indexOf(ch) < 0) {
+                            chars.add(ch);
+                        }
+                    }
+                }
+            } else {
+                for (int slot = 0; slot < candidateIndex.getSlotCount(); slot++) {
+                    chars.add(candidateIndex.getCharacter(slot));
+                }
+            }
+            ArrayList<Character> known = new ArrayList<Character>();
+            for (Character ch : chars) {
+                if (candidateIndex.getSlot(ch) >= 0) {
+                    known.add(ch);
+                }
+            }
+            order = new int[known.size()];
+            orderChars = known.toArray(new Character[known.size()]);
+            StringBuilder builder = new StringBuilder(orderChars.length);
+            for (Character ch : orderChars) {
+                builder.append(ch.charValue());
+            }
+            characters = builder.toString();
+            for (int i = 0; i < order.length; i++) {
+                order[i] = candidateIndex.getSlot(orderChars[i]);
+                acceptable[order[i]] = true;
+            }
+        }
+
+        void resetLeaders() {
+            leaderCount = 0;
+        }
+
+        /**
+         * @return error of the worst leader once there are enough of them, infinity otherwise
+         */
+        double leaderBound() {
+            if (leaderCount < BEST_MATCH_STORE_COUNT) {
+                return Double.POSITIVE_INFINITY;
+            }
+            double bound = leaderMSEs[0];
+            for (int i = 1; i < leaderCount; i++) {
+                bound = Math.max(bound, leaderMSEs[i]);
+            }
+            return bound;
+        }
+
+        /**
+         * character errors only decrease, so leaders stay leaders
+         */
+        void updateLeaders(int slot, double mse) {
+            int worst = 0;
+            for (int i = 0; i < leaderCount; i++) {
+                if (leaderSlots[i] == slot) {
+                    leaderMSEs[i] = mse;
+                    return;
+                }
+                if (leaderMSEs[i] > leaderMSEs[worst]) {
+                    worst = i;
+                }
+            }
+            if (leaderCount < BEST_MATCH_STORE_COUNT) {
+                worst = leaderCount++;
+            } else if (mse >= leaderMSEs[worst]) {
+                return;
+            }
+            leaderSlots[worst] = slot;
+            leaderMSEs[worst] = mse;
+        }
+    }
+
+    /**
+     * recognizes single row of text on worker thread. recognized characters and accuracy notifications
+     * are buffered and replayed into scanner state afterwards, in document order
+     */
+    private class RowRecognizer extends DocumentScannerListenerAdaptor implements Callable<RowRecognizer> {
+        private final PixelImage pixelImage;
+        private final int x1;
+        private final int y1;
+        private final int x2;
+        private final int y2;
+        private final MatchBuffers rowBuffers = new MatchBuffers();
+        // recognized characters in row order, null marks end of word
+        private final List<RecognizedChar> recognized = new ArrayList<RecognizedChar>();
+        private final List<OCRIdentification> identifications = new ArrayList<OCRIdentification>();
+
+        RowRecognizer(PixelImage pixelImage, int x1, int y1, int x2, int y2) {
+            this.pixelImage = pixelImage;
+            this.x1 = x1;
+            this.y1 = y1;
+            this.x2 = x2;
+            this.y2 = y2;
+        }
+
+        public RowRecognizer call() {
+            documentScanner.scanRow(pixelImage, this, x1, y1, x2, y2);
+            return this;
+        }
+
+        @Override
+        public void processChar(PixelImage pixelImage, int x1, int y1, int x2, int y2, int rowY1, int rowY2) {
+            int bestCount = recognize(pixelImage, x1, y1, x2, y2, rowY1, rowY2, rowBuffers);
+            if (bestCount > 0) {
+                recognized.add(rowBuffers.bestChars[0]);
+            }
+            if (accListener != null) {
+                identifications.add(identification(rowBuffers.bestChars, rowBuffers.bestMSEs, bestCount));
+            }
+        }
+
+        @Override
+        public void processSpace(PixelImage pixelImage, int x1, int y1, int x2, int y2) {
+            recognized.add(null);
+            if (accListener != null) {
+                OCRIdentification identAccuracy = new OCRIdentification(OCRComp.MSE);
+                identAccuracy.addChar(' ', 0.0);
+                identifications.add(identAccuracy);
+            }
+        }
+
+        @Override
+        public void endRow(PixelImage pixelImage, int y1, int y2) {
+            if (accListener != null) {
+                OCRIdentification identAccuracy = new OCRIdentification(OCRComp.MSE);
+                identAccuracy.addChar('\n', 0.0);
+                identifications.add(identAccuracy);
+            }
+        }
+
+        /**
+         * feed buffered results into scanner state the same way serial scan would do
+         */
+        void replay() {
+            // serial scan closes current word when row begins
+            endWord();
+            for (RecognizedChar recognizedChar : recognized) {
+                if (recognizedChar == null) {
+                    endWord();
+                } else {
+                    currentWord.addRecognizedChar(recognizedChar);
+                }
+            }
+            if (accListener != null) {
+                for (OCRIdentification identification : identifications) {
+                    accListener.processCharOrSpace(identification);
+                }
+            }
+        }
+    }
+
     private static final Logger LOG = Logger.getLogger(OCRScanner.class.getName());
 }
@@ -0,0 +1,372 @@
+package net.sourceforge.javaocr.ocrPlugins.mseOCR;
+
+import net.sourceforge.javaocr.scanner.TrainingImage;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Training images compiled into single binary file, so they do not have to be decoded
+ * and scanned from training sheets on every start.  File is memory mapped when opened.
+ * {@link OCRScanner#setTemplateLibrary(TemplateLibrary)} matches characters against templates
+ * read straight from the mapping, so opening costs the same regardless of library size and
+ * several processes using the same library share the page cache.  Only templates reported as
+ * best matches are copied into training images.
+ * <p/>
+ * File layout, all numbers big endian:
+ * <ul>
+ * <li>header: magic, format version, amount of templates, size of index entry (4 bytes each)</li>
+ * <li>index entry per template: character (2 bytes), 2 bytes padding, width, height (4 bytes each),
+ * top and bottom white space fractions (4 byte floats), offset of pixels from the file start (4 bytes)</li>
+ * <li>pixels of all templates, one unsigned byte per pixel, row after row</li>
+ * </ul>
+ * Templates are stored grouped by character, in the order of the training image lists.
+ * <p/>
+ * Library is immutable and can be shared between threads.
+ */
+public class TemplateLibrary
+{
+
+    static final int MAGIC = 0x4a4f434c;
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 16;
+    static final int ENTRY_SIZE = 24;
+
+    private final ByteBuffer buffer;
+    private final int count;
+
+    /**
+     * Write training images to library file.
+     *
+     * @param trainingImages training images, keyed by character
+     * @param file           file to write, replaced if it exists
+     * @throws IOException if file can not be written
+     * @throws IllegalArgumentException if some pixel is outside of 0-255 range
+     */
+    public static void compile(Map<Character, ? extends List<TrainingImage>> trainingImages, File file)
+            throws IOException
+    {
+        int count = 0;
+        for (List<TrainingImage> images : trainingImages.values())
+        {
+            count += images.size();
+        }
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+        try
+        {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(count);
+            out.writeInt(ENTRY_SIZE);
+            long offset = HEADER_SIZE + (long) count * ENTRY_SIZE;
+            for (Map.Entry<Character, ? extends List<TrainingImage>> entry : trainingImages.entrySet())
+            {
+                for (TrainingImage ti : entry.getValue())
+                {
+                    if (offset + ti.npix > Integer.MAX_VALUE)
+                    {
+                        throw new IOException("Template library exceeds 2GB: " + file);
+                    }
+                    out.writeChar(entry.getKey());
+                    out.writeShort(0);
+                    out.writeInt(ti.width);
+                    out.writeInt(ti.height);
+                    out.writeFloat(ti.topWhiteSpaceFraction);
+                    out.writeFloat(ti.bottomWhiteSpaceFraction);
+                    out.writeInt((int) offset);
+                    offset += ti.npix;
+                }
+            }
+            for (Map.Entry<Character, ? extends List<TrainingImage>> entry : trainingImages.entrySet())
+            {
+                for (TrainingImage ti : entry.getValue())
+                {
+                    final byte[] packed = new byte[ti.npix];
+                    for (int i = 0; i < packed.length; i++)
+                    {
+                        if ((ti.pixels[i] & ~0xff) != 0)
+                        {
+                            throw new IllegalArgumentException("pixel value " + ti.pixels[i] + " is not 8 bit gray scale");
+                        }
+                        packed[i] = (byte) ti.pixels[i];
+                    }
+                    out.write(packed);
+                }
+            }
+        }
+        finally
+        {
+            out.close();
+        }
+    }
+
+    /**
+     * Compile training sheets into library file.  Arguments are the library file followed
+     * by training sheet file name, first and last character on the sheet for every sheet,
+     * as for {@link TrainingImageLoader#load(String, CharacterRange, HashMap)}.
+     */
+    public static void main(String[] args) throws IOException
+    {
+        if (args.length < 4 || (args.length - 1) % 3 != 0)
+        {
+            System.err.println("Usage: TemplateLibrary <library> <sheet> <first char> <last char> "
+                    + "[<sheet> <first char> <last char> ...]");
+            System.exit(1);
+        }
+        TrainingImageLoader loader = new TrainingImageLoader();
+        HashMap<Character, ArrayList<TrainingImage>> trainingImages = new HashMap<Character, ArrayList<TrainingImage>>();
+        for (int i = 1; i < args.length; i += 3)
+        {
+            if (args[i + 1].length() != 1 || args[i + 2].length() != 1)
+            {
+                System.err.println("Characters shall be given as single characters: " + args[i + 1] + " " + args[i + 2]);
+                System.exit(1);
+            }
+            loader.load(args[i], new CharacterRange(args[i + 1].charAt(0), args[i + 2].charAt(0)), trainingImages);
+        }
+        compile(trainingImages, new File(args[0]));
+    }
+
+    /**
+     * Memory map library file.  File shall not be modified while library is in use.
+     *
+     * @param file library file
+     * @return library
+     * @throws IOException if file can not be read or is not a template library
+     */
+    public static TemplateLibrary open(File file) throws IOException
+    {
+        FileInputStream in = new FileInputStream(file);
+        try
+        {
+            FileChannel channel = in.getChannel();
+            return new TemplateLibrary(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+        finally
+        {
+            in.close();
+        }
+    }
+
+    /**
+     * Use library already loaded or mapped into buffer.  Buffer content shall not be modified.
+     *
+     * @param buffer buffer containing whole library file, position and limit are ignored
+     * @throws IOException if buffer does not contain template library
+     */
+    public TemplateLibrary(ByteBuffer buffer) throws IOException
+    {
+        this.buffer = buffer.duplicate();
+        this.buffer.clear();
+        final int capacity = this.buffer.capacity();
+        if (capacity < HEADER_SIZE || this.buffer.getInt(0) != MAGIC)
+        {
+            throw new IOException("Not a template library");
+        }
+        if (this.buffer.getInt(4) != VERSION || this.buffer.getInt(12) != ENTRY_SIZE)
+        {
+            throw new IOException("Unsupported template library version " + this.buffer.getInt(4));
+        }
+        count = this.buffer.getInt(8);
+        if (count < 0 || HEADER_SIZE + (long) count * ENTRY_SIZE > capacity)
+        {
+            throw new IOException("Template library index is truncated");
+        }
+        for (int i = 0; i < count; i++)
+        {
+            final int entry = HEADER_SIZE + i * ENTRY_SIZE;
+            final long width = this.buffer.getInt(entry + 4);
+            final long height = this.buffer.getInt(entry + 8);
+            final long offset = this.buffer.getInt(entry + 20);
+            if (width <= 0 || height <= 0 || offset < HEADER_SIZE || offset + width * height > capacity)
+            {
+                throw new IOException("Template " + i + " is outside of template library");
+            }
+        }
+    }
+
+    /**
+     * @return amount of templates in the library
+     */
+    public int size()
+    {
+        return count;
+    }
+
+    /**
+     * @param idx template index
+     * @return view of the template, reading straight from the library
+     */
+    public Template get(int idx)
+    {
+        if (idx < 0 || idx >= count)
+        {
+            throw new IndexOutOfBoundsException("template " + idx + " of " + count);
+        }
+        return new Template(HEADER_SIZE + idx * ENTRY_SIZE);
+    }
+
+    /**
+     * Copy templates into training images, for recognizers which can not use library directly.
+     *
+     * @return training images keyed by character, in library order
+     */
+    public HashMap<Character, ArrayList<TrainingImage>> toTrainingImages()
+    {
+        HashMap<Character, ArrayList<TrainingImage>> images = new HashMap<Character, ArrayList<TrainingImage>>();
+        for (int i = 0; i < count; i++)
+        {
+            Template template = get(i);
+            ArrayList<TrainingImage> al = images.get(template.getCharacter());
+            if (al == null)
+            {
+                al = new ArrayList<TrainingImage>();
+                images.put(template.getCharacter(), al);
+            }
+            al.add(template.toTrainingImage());
+        }
+        return images;
+    }
+
+    /**
+     * Single template of the library.  Offers the same data and comparison as
+     * {@link TrainingImage}, without copying pixels out of the library.
+     */
+    public final class Template
+    {
+
+        private final int entry;
+        private final int width;
+        private final int height;
+        private final int offset;
+
+        private Template(int entry)
+        {
+            this.entry = entry;
+            this.width = buffer.getInt(entry + 4);
+            this.height = buffer.getInt(entry + 8);
+            this.offset = buffer.getInt(entry + 20);
+        }
+
+        public char getCharacter()
+        {
+            return buffer.getChar(entry);
+        }
+
+        public int getWidth()
+        {
+            return width;
+        }
+
+        public int getHeight()
+        {
+            return height;
+        }
+
+        public float getAspectRatio()
+        {
+            return ((float) width) / ((float) height);
+        }
+
+        /**
+         * @see TrainingImage#topWhiteSpaceFraction
+         */
+        public float getTopWhiteSpaceFraction()
+        {
+            return buffer.getFloat(entry + 12);
+        }
+
+        /**
+         * @see TrainingImage#bottomWhiteSpaceFraction
+         */
+        public float getBottomWhiteSpaceFraction()
+        {
+            return buffer.getFloat(entry + 16);
+        }
+
+        /**
+         * @return gray scale value of pixel in range 0-255
+         */
+        public int getPixel(int x, int y)
+        {
+            return buffer.get(offset + y * width + x) & 0xff;
+        }
+
+        /**
+         * Calculate the error factor between a block of pixels and this template.  Result is
+         * exactly the same as that of {@link TrainingImage#calcMSE(int[], int, int, int, int, int, int, double)}
+         * for the training image this template was compiled from.
+         *
+         * @param theirPixels An array of grayscale pixels which contains the block to be compared
+         * @param w           The arrayWidth of the pixel array.
+         * @param h           The arrayHeight of the pixel array.
+         * @param x1          The position of the left border of the rectangle to be compared.
+         * @param y1          The position of the top border of the rectangle to be compared.
+         * @param x2          The position of the right border of the rectangle to be compared.
+         * @param y2          The position of the bottom border of the rectangle to be compared.
+         * @param maxMSE      The bound.  Comparison stops once partial error factor exceeds it.
+         * @return The average per-pixel mean square error, or <code>Double.POSITIVE_INFINITY</code>
+         *         if comparison was abandoned.
+         */
+        public double calcMSE(int[] theirPixels, int w, int h, int x1, int y1, int x2, int y2, double maxMSE)
+        {
+            final ByteBuffer buffer = TemplateLibrary.this.buffer;
+            final int myMaxX = width - 1;
+            final int myMaxY = height - 1;
+            final int theirXRange = Math.max((x2 - x1) - 1, 1);
+            final int theirYRange = Math.max((y2 - y1) - 1, 1);
+            final int theirNPix = (theirXRange + 1) * (theirYRange + 1);
+            final boolean bounded = maxMSE < Double.POSITIVE_INFINITY;
+            long totalError = 0L;
+
+            for (int theirY = y1, yScan = 0; theirY < y2; theirY++, yScan++)
+            {
+                int theirIdx = (theirY * w) + x1;
+                final int myY = ((yScan * myMaxY) / theirYRange);
+                final int myLineIdx = offset + myY * width;
+                for (int xScan = 0; xScan < x2 - x1; theirIdx++, xScan++)
+                {
+                    final int myX = ((xScan * myMaxX) / theirXRange);
+                    final long thisError;
+                    if ((myX < 0) || (myX > myMaxX) || (myY < 0) || (myY > myMaxY))
+                    {
+                        thisError = theirPixels[theirIdx] - 255;
+                    }
+                    else
+                    {
+                        thisError = theirPixels[theirIdx] - (buffer.get(myLineIdx + myX) & 0xff);
+                    }
+                    totalError += (thisError * thisError);
+                }
+                if (bounded && Math.sqrt((double) totalError) / (double) theirNPix > maxMSE)
+                {
+                    return Double.POSITIVE_INFINITY;
+                }
+            }
+            return Math.sqrt((double) totalError) / (double) theirNPix;
+        }
+
+        /**
+         * @return training image with copy of template pixels
+         */
+        public TrainingImage toTrainingImage()
+        {
+            final int[] pixels = new int[width * height];
+            for (int i = 0; i < pixels.length; i++)
+            {
+                pixels[i] = buffer.get(offset + i) & 0xff;
+            }
+            return TrainingImage.fromFractions(pixels, width, height, getTopWhiteSpaceFraction(), getBottomWhiteSpaceFraction());
+        }
+    }
+}
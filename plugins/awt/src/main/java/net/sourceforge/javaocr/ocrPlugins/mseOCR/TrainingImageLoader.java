@@ -58,19 +58,23 @@ public class TrainingImageLoader extends DocumentScannerListenerAdaptor
      * data.  Multiple calls to this method may be made with the same
      * <code>Map</code> to populate it with the data from several training
      * images.
+     * Image is read with {@link ImageReader#readGrayscale(File)}, the same way
+     * <code>OCRScannerDemo</code> reads documents, so grayscale files give templates
+     * and documents the same pixel values.
      * @throws IOException
      */
     public void load(String imageFilename, CharacterRange charRange, HashMap<Character, ArrayList<TrainingImage>> dest)
             throws IOException
     {
 
-        Image image = ImageReader.read(new File(imageFilename));
-
-        if (image == null)
+        File file = new File(imageFilename);
+        if (!file.exists())
         {
             throw new IOException("Cannot find training image file: " + imageFilename);
         }
-        load(image, charRange, dest, imageFilename);
+        PixelImage pixelImage = new PixelImage(ImageReader.readGrayscale(file));
+        pixelImage.normalizeGrayScale();
+        load(pixelImage, charRange, dest, imageFilename);
     }
 
     public void load(
@@ -83,6 +87,16 @@ public class TrainingImageLoader extends DocumentScannerListenerAdaptor
       
         PixelImage pixelImage = new PixelImage(image);
         pixelImage.toGrayScale(true);
+        load(pixelImage, charRange, dest, imageFilename);
+    }
+
+    private void load(
+            PixelImage pixelImage,
+            CharacterRange charRange,
+            HashMap<Character, ArrayList<TrainingImage>> dest,
+            String imageFilename)
+            throws IOException
+    {
         pixelImage.filter();
         charValue = charRange.min;
         this.dest = dest;
@@ -8,8 +8,6 @@ package net.sourceforge.javaocr.ocrPlugins.receiptFinder;
 import net.sourceforge.javaocr.scanner.DocumentScanner;
 import net.sourceforge.javaocr.scanner.PixelImage;
 
-import java.awt.*;
-import java.util.Queue;
 import java.util.Random;
 
 /**
@@ -29,6 +27,9 @@ public class ReceiptFinder {
 
     private int attempts = 50;
     private int threshold = 64;
+    // packed pixel indices of flood fill seeds
+    private int[] stack;
+    private int stackSize;
 
     public double getCentralSquareDimension() {
         return centralSquareDimension;
@@ -46,80 +47,120 @@ public class ReceiptFinder {
         this.attempts = attempts;
     }
 
-    private void tryAdd(Queue<Point> queue, PixelImage image, boolean mask[], int x, int y) {
-        if (x < 0 || y < 0 || x >= image.width || y >= image.height) {
+    /**
+     * Scanline flood fill of white area around the seed, 8-connected.  Filled pixels are set in the
+     * mask. Black pixels are never set, so the mask is also the set of visited white pixels.
+     */
+    private void fillMask(PixelImage source, long mask[], int x, int y) {
+        final int[] pixels = source.pixels;
+        final int width = source.width;
+        final int height = source.height;
+        final int seed = y * width + x;
+        if (isSet(mask, seed) || pixels[seed] < threshold) {
+            // already filled or black
             return;
         }
-        int index = y * image.width + x;
-        if (mask[index]) {
-            return;
-        }
-        mask[index] = true;
-        if (image.pixels[index] < threshold) {
-            return;
+        stackSize = 0;
+        push(seed);
+        while (stackSize > 0) {
+            final int index = stack[--stackSize];
+            if (isSet(mask, index)) {
+                continue;
+            }
+            final int row = index / width;
+            final int base = row * width;
+            int left = index - base;
+            int right = left;
+            while (left > 0 && isOpen(pixels, mask, base + left - 1)) {
+                left--;
+            }
+            while (right < width - 1 && isOpen(pixels, mask, base + right + 1)) {
+                right++;
+            }
+            for (int i = base + left; i <= base + right; i++) {
+                mask[i >>> 6] |= 1L << i;
+            }
+            // diagonal neighbours count as well
+            final int from = Math.max(0, left - 1);
+            final int to = Math.min(width - 1, right + 1);
+            if (row > 0) {
+                pushRuns(pixels, mask, base - width, from, to);
+            }
+            if (row < height - 1) {
+                pushRuns(pixels, mask, base + width, from, to);
+            }
         }
-        queue.add(new Point(x, y));
     }
 
-    private void fillMask(PixelImage source, int mask[], boolean visitMask[], int x, int y) {
-        Queue<Point> pointQueue = new ArrayQueue<Point>(10000, source.width * source.height);
-        pointQueue.add(new Point(x, y));
-
-        while (!pointQueue.isEmpty()) {
-            Point p = pointQueue.remove();
-            int index = p.y * source.width + p.x;
-            if (index < 0 || index > source.pixels.length) {
-                continue;
+    /**
+     * push one seed for every run of open pixels in the row between from and to (inclusive)
+     */
+    private void pushRuns(int[] pixels, long[] mask, int base, int from, int to) {
+        boolean inRun = false;
+        for (int i = base + from; i <= base + to; i++) {
+            final boolean open = isOpen(pixels, mask, i);
+            if (open && !inRun) {
+                push(i);
             }
-            visitMask[index] = true;
-            if (source.pixels[index] < threshold) {
-                // point is black
-                continue;
-            }
-            mask[index] = WHITE;
-            //add neighbours to processing queue
-            tryAdd(pointQueue, source, visitMask, p.x + 1, p.y);
-            tryAdd(pointQueue, source, visitMask, p.x - 1, p.y);
-            tryAdd(pointQueue, source, visitMask, p.x, p.y + 1);
-            tryAdd(pointQueue, source, visitMask, p.x, p.y - 1);
-            tryAdd(pointQueue, source, visitMask, p.x + 1, p.y + 1);
-            tryAdd(pointQueue, source, visitMask, p.x - 1, p.y - 1);
-            tryAdd(pointQueue, source, visitMask, p.x + 1, p.y - 1);
-            tryAdd(pointQueue, source, visitMask, p.x - 1, p.y + 1);
+            inRun = open;
+        }
+    }
+
+    private void push(int index) {
+        if (stackSize == stack.length) {
+            int[] newStack = new int[stack.length * 2];
+            System.arraycopy(stack, 0, newStack, 0, stackSize);
+            stack = newStack;
         }
+        stack[stackSize++] = index;
+    }
+
+    private boolean isOpen(int[] pixels, long[] mask, int index) {
+        return pixels[index] >= threshold && !isSet(mask, index);
+    }
+
+    private static boolean isSet(long[] mask, int index) {
+        return (mask[index >>> 6] & (1L << index)) != 0;
     }
 
     public void findReceipt(DocumentScanner documentScanner, PixelImage pixelImage) {
-        int mask[] = new int[pixelImage.pixels.length];
-        boolean visitMask[] = new boolean[pixelImage.pixels.length];
+        findReceipt(documentScanner, pixelImage, new Random());
+    }
+
+    /**
+     * same as {@link #findReceipt(DocumentScanner, PixelImage)}, with supplied source of seed points
+     */
+    void findReceipt(DocumentScanner documentScanner, PixelImage pixelImage, Random random) {
+        long mask[] = new long[(pixelImage.pixels.length + 63) >>> 6];
         int xMin = (int) (pixelImage.width * (1 - centralSquareDimension) / 2);
         int yMin = (int) (pixelImage.height * (1 - centralSquareDimension) / 2);
         int xMax = pixelImage.width - xMin;
         int yMax = pixelImage.height - yMin;
         threshold = documentScanner.getWhiteThreshold();
 
-        final Random random = new Random();
+        stack = new int[256];
         for (int i = 0; i < attempts; i++) {
-            fillMask(pixelImage, mask, visitMask, xMin + random.nextInt(xMax - xMin), yMin + random.nextInt(yMax - yMin));
+            fillMask(pixelImage, mask, xMin + random.nextInt(xMax - xMin), yMin + random.nextInt(yMax - yMin));
         }
+        stack = null;
 
         // copy mask
 
         // fill white from sides
         for (int y = 0; y < pixelImage.height; y++) {
-            for (int x = 0; x < pixelImage.width && mask[y * pixelImage.width + x] == 0; x++) {
+            for (int x = 0; x < pixelImage.width && !isSet(mask, y * pixelImage.width + x); x++) {
                 pixelImage.pixels[y * pixelImage.width + x] = WHITE;
             }
-            for (int x = pixelImage.width - 1; x >= 0 && mask[y * pixelImage.width + x] == 0; x--) {
+            for (int x = pixelImage.width - 1; x >= 0 && !isSet(mask, y * pixelImage.width + x); x--) {
                 pixelImage.pixels[y * pixelImage.width + x] = WHITE;
             }
         }
         // fill white from top and bottom
         for (int x = 0; x < pixelImage.width; x++) {
-            for (int y = 0; y < pixelImage.height && mask[y * pixelImage.width + x] == 0; y++) {
+            for (int y = 0; y < pixelImage.height && !isSet(mask, y * pixelImage.width + x); y++) {
                 pixelImage.pixels[y * pixelImage.width + x] = WHITE;
             }
-            for (int y = pixelImage.height - 1; y >= 0 && mask[y * pixelImage.width + x] == 0; y--) {
+            for (int y = pixelImage.height - 1; y >= 0 && !isSet(mask, y * pixelImage.width + x); y--) {
                 pixelImage.pixels[y * pixelImage.width + x] = WHITE;
             }
         }
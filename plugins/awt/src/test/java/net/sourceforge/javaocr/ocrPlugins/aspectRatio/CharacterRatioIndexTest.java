@@ -0,0 +1,63 @@
+package net.sourceforge.javaocr.ocrPlugins.aspectRatio;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Random;
+
+public class CharacterRatioIndexTest {
+
+    @Test
+    public void testFindsNearestCharacters() throws Exception {
+        List<CharacterRatio> ratios = new ArrayList<CharacterRatio>();
+        ratios.add(new CharacterRatio('a', 1.0));
+        ratios.add(new CharacterRatio('b', 0.5));
+        ratios.add(new CharacterRatio('a', 0.9));
+        ratios.add(new CharacterRatio('c', 2.0));
+        CharacterRatioIndex index = new CharacterRatioIndex(ratios);
+        char[] chars = new char[2];
+        double[] errors = new double[2];
+        Assert.assertEquals(2, index.nearest(0.8, chars, errors));
+        Assert.assertEquals('a', chars[0]);
+        Assert.assertEquals(0.1, errors[0], 1e-9);
+        Assert.assertEquals('b', chars[1]);
+        Assert.assertEquals(0.3, errors[1], 1e-9);
+    }
+
+    @Test
+    public void testMatchesBruteForce() throws Exception {
+        Random random = new Random(11);
+        List<CharacterRatio> ratios = new ArrayList<CharacterRatio>();
+        for (int i = 0; i < 500; i++) {
+            ratios.add(new CharacterRatio((char) ('a' + random.nextInt(26)), random.nextInt(300) / 100.0));
+        }
+        CharacterRatioIndex index = new CharacterRatioIndex(ratios);
+        char[] chars = new char[5];
+        double[] errors = new double[5];
+        for (int n = 0; n < 1000; n++) {
+            double target = random.nextDouble() * 3.5;
+            // smallest error of every character
+            HashMap<Character, Double> best = new HashMap<Character, Double>();
+            for (CharacterRatio ratio : ratios) {
+                double error = Math.abs(target - ratio.getRatio());
+                Double known = best.get(ratio.getCharacter());
+                if (known == null || error < known) {
+                    best.put(ratio.getCharacter(), error);
+                }
+            }
+            List<Double> sorted = new ArrayList<Double>(best.values());
+            Collections.sort(sorted);
+
+            int count = index.nearest(target, chars, errors);
+            Assert.assertEquals(5, count);
+            for (int i = 0; i < count; i++) {
+                Assert.assertEquals(sorted.get(i), errors[i], 1e-12);
+                Assert.assertEquals(best.get(chars[i]), errors[i], 1e-12);
+            }
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package net.sourceforge.javaocr.ocrPlugins.charExtractor;
+
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+
+public class CharacterExtractorTest {
+
+    private static final int COLUMNS = 20;
+    private static final int ROWS = 15;
+    private static final int STD_WIDTH = 8;
+    private static final int STD_HEIGHT = 10;
+
+    /**
+     * white page with rows of black blocks, more of them than fit into one batch
+     */
+    private File document() throws IOException {
+        BufferedImage img = new BufferedImage(COLUMNS * 10 + 10, ROWS * 20 + 10, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = img.createGraphics();
+        g.setColor(Color.WHITE);
+        g.fillRect(0, 0, img.getWidth(), img.getHeight());
+        g.setColor(Color.BLACK);
+        for (int row = 0; row < ROWS; row++) {
+            for (int column = 0; column < COLUMNS; column++) {
+                g.fillRect(10 + column * 10, 10 + row * 20, 6, 8);
+            }
+        }
+        g.dispose();
+        File file = File.createTempFile("document", ".png");
+        ImageIO.write(img, "png", file);
+        return file;
+    }
+
+    @Test
+    public void testDatasetHoldsEveryGlyph() throws Exception {
+        File document = document();
+        File dataset = File.createTempFile("glyphs", ".dat");
+        try {
+            new CharacterExtractor().sliceToDataset(document, dataset, STD_WIDTH, STD_HEIGHT);
+
+            DataInputStream in = new DataInputStream(new FileInputStream(dataset));
+            try {
+                Assert.assertEquals(CharacterExtractor.DATASET_MAGIC, in.readInt());
+                Assert.assertEquals(STD_WIDTH, in.readInt());
+                Assert.assertEquals(STD_HEIGHT, in.readInt());
+                int size = STD_WIDTH * STD_HEIGHT;
+                Assert.assertEquals(0, (dataset.length() - 12) % size);
+                // glyphs span several batches
+                Assert.assertEquals(COLUMNS * ROWS, (dataset.length() - 12) / size);
+                byte[] glyph = new byte[size];
+                for (int i = 0; i < COLUMNS * ROWS; i++) {
+                    in.readFully(glyph);
+                    Assert.assertEquals("black block at the center", 0, glyph[size / 2 + STD_WIDTH / 2] & 255);
+                }
+                Assert.assertEquals(-1, in.read());
+            } finally {
+                in.close();
+            }
+        } finally {
+            document.delete();
+            dataset.delete();
+        }
+    }
+
+    /**
+     * dataset glyphs are the same as those saved as separate images
+     */
+    @Test
+    public void testDatasetMatchesSlicedImages() throws Exception {
+        File document = document();
+        File dataset = File.createTempFile("glyphs", ".dat");
+        File outputDir = new File(dataset.getPath() + ".d");
+        Assert.assertTrue(outputDir.mkdir());
+        try {
+            CharacterExtractor extractor = new CharacterExtractor();
+            extractor.sliceToDataset(document, dataset, STD_WIDTH, STD_HEIGHT);
+            extractor.slice(document, outputDir, STD_WIDTH, STD_HEIGHT);
+            Assert.assertEquals(COLUMNS * ROWS, outputDir.list().length);
+
+            DataInputStream in = new DataInputStream(new FileInputStream(dataset));
+            try {
+                in.skipBytes(12);
+                int[] glyph = new int[STD_WIDTH * STD_HEIGHT];
+                for (int i = 0; i < COLUMNS * ROWS; i++) {
+                    BufferedImage image = ImageIO.read(new File(outputDir, "char_" + i + ".png"));
+                    image.getRaster().getPixels(0, 0, STD_WIDTH, STD_HEIGHT, glyph);
+                    for (int p = 0; p < glyph.length; p++) {
+                        Assert.assertEquals(glyph[p], in.readUnsignedByte());
+                    }
+                }
+            } finally {
+                in.close();
+            }
+        } finally {
+            for (File file : outputDir.listFiles()) {
+                file.delete();
+            }
+            outputDir.delete();
+            document.delete();
+            dataset.delete();
+        }
+    }
+
+    /**
+     * failure to write a full batch during the scan is rethrown once scan is over,
+     * and does not break next dataset
+     */
+    @Test
+    public void testWriteFailureIsReported() throws Exception {
+        File full = new File("/dev/full");
+        Assume.assumeTrue(full.exists());
+        File document = document();
+        File dataset = File.createTempFile("glyphs", ".dat");
+        try {
+            CharacterExtractor extractor = new CharacterExtractor();
+            try {
+                extractor.sliceToDataset(document, full, STD_WIDTH, STD_HEIGHT);
+                Assert.fail("write failure shall not be swallowed");
+            } catch (IOException expected) {
+            }
+            extractor.sliceToDataset(document, dataset, STD_WIDTH, STD_HEIGHT);
+            Assert.assertEquals(12 + COLUMNS * ROWS * STD_WIDTH * STD_HEIGHT, dataset.length());
+        } finally {
+            document.delete();
+            dataset.delete();
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package net.sourceforge.javaocr.ocrPlugins.charExtractor;
+
+import net.sourceforge.javaocr.scanner.PixelImage;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class GlyphNormalizerTest {
+
+    @Test
+    public void testSmallGlyphIsCentered() throws Exception {
+        int[] pixels = new int[5 * 4];
+        for (int i = 0; i < pixels.length; i++) {
+            pixels[i] = i;
+        }
+        PixelImage image = new PixelImage(pixels, 5, 4);
+        // 2x2 glyph at 1,1
+        int[] glyph = new GlyphNormalizer(6, 4).normalize(image, 1, 1, 3, 3);
+        int[] expected = {
+                255, 255, 255, 255, 255, 255,
+                255, 255, 6, 7, 255, 255,
+                255, 255, 11, 12, 255, 255,
+                255, 255, 255, 255, 255, 255};
+        Assert.assertArrayEquals(expected, glyph);
+    }
+
+    @Test
+    public void testLargeGlyphIsAveraged() throws Exception {
+        int[] pixels = {
+                0, 0, 100, 100, 7,
+                0, 0, 100, 100, 7,
+                40, 40, 200, 200, 7,
+                40, 40, 200, 200, 7};
+        PixelImage image = new PixelImage(pixels, 5, 4);
+        int[] glyph = new GlyphNormalizer(2, 3).normalize(image, 0, 0, 4, 4);
+        // 4x4 area shrinks to 2x2, centered vertically in 3 rows
+        Assert.assertArrayEquals(new int[]{0, 100, 40, 200, 255, 255}, glyph);
+    }
+
+    @Test
+    public void testAspectRatioIsKept() throws Exception {
+        int[] pixels = new int[30 * 10];
+        PixelImage image = new PixelImage(pixels, 30, 10);
+        int[] glyph = new GlyphNormalizer(10, 10).normalize(image, 0, 0, 30, 10);
+        for (int y = 0; y < 10; y++) {
+            for (int x = 0; x < 10; x++) {
+                // 30x10 black area becomes 10x3 in the middle
+                Assert.assertEquals(y >= 3 && y < 6 ? 0 : 255, glyph[y * 10 + x]);
+            }
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package net.sourceforge.javaocr.ocrPlugins.lineExtractor;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+public class LineExtractorTest {
+
+    /**
+     * white page with two rows of black blocks
+     */
+    private BufferedImage page() {
+        BufferedImage img = new BufferedImage(60, 50, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = img.createGraphics();
+        g.setColor(Color.WHITE);
+        g.fillRect(0, 0, 60, 50);
+        g.setColor(Color.BLACK);
+        for (int x = 5; x < 55; x += 10) {
+            g.fillRect(x, 10, 6, 8);
+            g.fillRect(x, 30, 6, 8);
+        }
+        g.dispose();
+        return img;
+    }
+
+    @Test
+    public void testLinesShareRaster() throws Exception {
+        BufferedImage img = page();
+        List<BufferedImage> lines = new LineExtractor().extract(img);
+        Assert.assertEquals(2, lines.size());
+        for (BufferedImage line : lines) {
+            Assert.assertEquals(60, line.getWidth());
+            Assert.assertTrue(line.getHeight() >= 8 && line.getHeight() < 20);
+        }
+        // no copy was made
+        lines.get(1).setRGB(0, 0, 0xff0000);
+        int marked = -1;
+        for (int y = 0; y < img.getHeight(); y++) {
+            if ((img.getRGB(0, y) & 0xffffff) == 0xff0000) {
+                marked = y;
+            }
+        }
+        Assert.assertTrue(marked > 20 && marked <= 30);
+    }
+
+    @Test
+    public void testLinesAreWritten() throws Exception {
+        File dir = File.createTempFile("lines", "");
+        Assert.assertTrue(dir.delete() && dir.mkdir());
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            File file = File.createTempFile("page", ".png", dir);
+            javax.imageio.ImageIO.write(page(), "png", file);
+            new LineExtractor().slice(file, dir, executor);
+            Assert.assertTrue(new File(dir, "line_0.png").isFile());
+            Assert.assertTrue(new File(dir, "line_1.png").isFile());
+            Assert.assertFalse(new File(dir, "line_2.png").exists());
+        } finally {
+            executor.shutdown();
+            for (File f : dir.listFiles()) {
+                f.delete();
+            }
+            dir.delete();
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package net.sourceforge.javaocr.ocrPlugins.mseOCR;
+
+import net.sourceforge.javaocr.scanner.TrainingImage;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+public class CandidateIndexTest {
+    private CandidateIndex index;
+
+    @Before
+    public void setUp() throws Exception {
+        Random random = new Random(17);
+        HashMap<Character, ArrayList<TrainingImage>> images = new HashMap<Character, ArrayList<TrainingImage>>();
+        for (char c = 'a'; c <= 'z'; c++) {
+            ArrayList<TrainingImage> al = new ArrayList<TrainingImage>();
+            for (int i = 0; i < 10; i++) {
+                int width = 1 + random.nextInt(40);
+                int height = 1 + random.nextInt(40);
+                al.add(new TrainingImage(new int[width * height], width, height, random.nextInt(20), random.nextInt(20)));
+            }
+            images.put(c, al);
+        }
+        index = new CandidateIndex(images);
+    }
+
+    @Test
+    public void testSlots() throws Exception {
+        Assert.assertEquals(260, index.size());
+        Assert.assertEquals(26, index.getSlotCount());
+        Assert.assertEquals(-1, index.getSlot('A'));
+        for (int i = 0; i < index.size(); i++) {
+            Assert.assertTrue(index.getPosition(i) < 10);
+        }
+    }
+
+    @Test
+    public void testLookupFindsAllWithinTolerance() throws Exception {
+        Random random = new Random(42);
+        int[] found = new int[index.size()];
+        for (int n = 0; n < 1000; n++) {
+            float aspectRatio = (1 + random.nextInt(60)) / (float) (1 + random.nextInt(60));
+            float top = random.nextFloat() * 0.8f;
+            float bottom = random.nextFloat() * 0.8f;
+            int count = index.lookup(aspectRatio, top, bottom, found);
+            Set<Integer> hits = new HashSet<Integer>();
+            for (int i = 0; i < count; i++) {
+                hits.add(found[i]);
+            }
+            for (int i = 0; i < index.size(); i++) {
+                TrainingImage ti = index.getImage(i);
+                boolean inside = ((aspectRatio / ti.aspectRatio) - 1.0f) <= TrainingImage.ASPECT_RATIO_TOLERANCE
+                        && ((ti.aspectRatio / aspectRatio) - 1.0f) <= TrainingImage.ASPECT_RATIO_TOLERANCE
+                        && Math.abs(top - ti.topWhiteSpaceFraction) <= TrainingImage.TOP_WHITE_SPACE_FRACTION_TOLERANCE
+                        && Math.abs(bottom - ti.bottomWhiteSpaceFraction) <= TrainingImage.BOTTOM_WHITE_SPACE_FRACTION_TOLERANCE;
+                if (inside) {
+                    Assert.assertTrue("missed training image " + i, hits.contains(i));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package net.sourceforge.javaocr.ocrPlugins.mseOCR;
+
+import net.sourceforge.javaocr.scanner.FoundChar;
+import net.sourceforge.javaocr.scanner.FoundWord;
+import net.sourceforge.javaocr.scanner.PixelImage;
+import net.sourceforge.javaocr.scanner.RecognizedChar;
+import net.sourceforge.javaocr.scanner.TrainingImage;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+public class GlyphRecognitionCacheTest {
+    // document with two identical bars, a cross and a plus, 4x4 each, 1 pixel apart
+    private static final int W = 20;
+    private static final int H = 4;
+
+    private static int[] document() {
+        int[] pixels = new int[W * H];
+        for (int y = 0; y < H; y++) {
+            for (int x = 0; x < W; x++) {
+                int glyph = x / 5;
+                int gx = x % 5;
+                boolean dark;
+                if (gx == 4) {
+                    dark = false;
+                } else if (glyph < 2) {
+                    dark = gx == 1 || gx == 2;
+                } else if (glyph == 2) {
+                    dark = gx == y || gx == 3 - y;
+                } else {
+                    dark = gx == 1 || y == 1;
+                }
+                pixels[y * W + x] = dark ? 0 : 255;
+            }
+        }
+        return pixels;
+    }
+
+    @Test
+    public void testKeys() throws Exception {
+        int[] pixels = document();
+        GlyphRecognitionCache.Key first = GlyphRecognitionCache.key(pixels, W, 0, 0, 4, 4, 0, 4, "|x");
+        Assert.assertEquals(first, GlyphRecognitionCache.key(pixels, W, 5, 0, 9, 4, 0, 4, "|x"));
+        Assert.assertEquals(first.hashCode(), GlyphRecognitionCache.key(pixels, W, 5, 0, 9, 4, 0, 4, "|x").hashCode());
+        // different glyph, geometry or acceptable characters
+        Assert.assertFalse(first.equals(GlyphRecognitionCache.key(pixels, W, 10, 0, 14, 4, 0, 4, "|x")));
+        Assert.assertFalse(first.equals(GlyphRecognitionCache.key(pixels, W, 5, 0, 9, 4, -1, 4, "|x")));
+        Assert.assertFalse(first.equals(GlyphRecognitionCache.key(pixels, W, 5, 0, 9, 4, 0, 4, "x|")));
+    }
+
+    @Test
+    public void testThinStrokes() throws Exception {
+        // 16x30 glyphs, vertical stem, one of them with single pixel crossbar on an even row
+        int w = 16;
+        int h = 30;
+        for (int row = 2; row < h - 1; row += 2) {
+            int[] stem = new int[w * h];
+            int[] crossed = new int[w * h];
+            for (int y = 0; y < h; y++) {
+                for (int x = 0; x < w; x++) {
+                    stem[y * w + x] = x == 7 ? 0 : 255;
+                    crossed[y * w + x] = x == 7 || y == row ? 0 : 255;
+                }
+            }
+            Assert.assertFalse("crossbar on row " + row, GlyphRecognitionCache.key(stem, w, 0, 0, w, h, 0, h, "")
+                    .equals(GlyphRecognitionCache.key(crossed, w, 0, 0, w, h, 0, h, "")));
+        }
+    }
+
+    @Test
+    public void testEviction() throws Exception {
+        int[] pixels = document();
+        GlyphRecognitionCache cache = new GlyphRecognitionCache(1);
+        GlyphRecognitionCache.Key bar = GlyphRecognitionCache.key(pixels, W, 0, 0, 4, 4, 0, 4, "");
+        GlyphRecognitionCache.Key cross = GlyphRecognitionCache.key(pixels, W, 10, 0, 14, 4, 0, 4, "");
+        GlyphRecognitionCache.Matches matches = new GlyphRecognitionCache.Matches(new RecognizedChar[0], new double[0], 0);
+
+        Assert.assertNull(cache.get(bar));
+        cache.put(bar, matches);
+        Assert.assertSame(matches, cache.get(bar));
+        cache.put(cross, matches);
+        Assert.assertEquals(1, cache.size());
+        Assert.assertNull(cache.get(bar));
+        Assert.assertSame(matches, cache.get(cross));
+        cache.invalidate();
+        Assert.assertEquals(0, cache.size());
+
+        Assert.assertEquals(2, cache.getHits());
+        Assert.assertEquals(2, cache.getMisses());
+        Assert.assertEquals(0.5, cache.getHitRate(), 0);
+    }
+
+    @Test
+    public void testScanner() throws Exception {
+        PixelImage image = new PixelImage(document(), W, H);
+        OCRScanner plain = scanner();
+        OCRScanner cached = scanner();
+        GlyphRecognitionCache cache = new GlyphRecognitionCache(100);
+        cached.setRecognitionCache(cache);
+
+        String expected = recognize(plain, image);
+        Assert.assertEquals("||x+", expected);
+        Assert.assertEquals(expected, recognize(cached, image));
+        Assert.assertEquals(1, cache.getHits());
+        Assert.assertEquals(3, cache.getMisses());
+        // across documents
+        Assert.assertEquals(expected, recognize(cached, image));
+        Assert.assertEquals(5, cache.getHits());
+
+        // training images changed
+        cached.clearTrainingImages();
+        Assert.assertEquals(0, cache.size());
+        Assert.assertEquals("", recognize(cached, image));
+    }
+
+    private static OCRScanner scanner() {
+        int[] pixels = document();
+        HashMap<Character, ArrayList<TrainingImage>> images = new HashMap<Character, ArrayList<TrainingImage>>();
+        for (int glyph = 1; glyph < 4; glyph++) {
+            int[] glyphPixels = new int[16];
+            for (int y = 0; y < 4; y++) {
+                System.arraycopy(pixels, y * W + glyph * 5, glyphPixels, y * 4, 4);
+            }
+            ArrayList<TrainingImage> al = new ArrayList<TrainingImage>();
+            al.add(new TrainingImage(glyphPixels, 4, 4, 0, 0));
+            images.put("|x+".charAt(glyph - 1), al);
+        }
+        OCRScanner scanner = new OCRScanner();
+        scanner.addTrainingImages(images);
+        return scanner;
+    }
+
+    private static String recognize(OCRScanner scanner, PixelImage image) {
+        List<FoundWord> words = scanner.beginScan(null);
+        for (int glyph = 0; glyph < 4; glyph++) {
+            scanner.processChar(image, glyph * 5, 0, glyph * 5 + 4, 4, 0, 4);
+        }
+        scanner.processSpace(image, 19, 0, 20, 4);
+        StringBuilder text = new StringBuilder();
+        for (FoundWord word : words) {
+            for (int i = 0; i < word.getSize(); i++) {
+                RecognizedChar ch = word.getRecognizedChar(i);
+                text.append(ch.getRecognizedChar());
+                FoundChar found = ch.getFoundChar();
+                Assert.assertEquals(text.length() - 1, found.getX1() / 5);
+            }
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,67 @@
+package net.sourceforge.javaocr.ocrPlugins.mseOCR;
+
+import net.sourceforge.javaocr.scanner.TrainingImage;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+
+public class NormalizedTemplateIndexTest {
+    private TrainingImage vertical;
+    private TrainingImage horizontal;
+    private NormalizedTemplateIndex index;
+
+    @Before
+    public void setUp() throws Exception {
+        // 4x4 images with white background, bar in the middle
+        int[] v = new int[16];
+        int[] h = new int[16];
+        for (int i = 0; i < 16; i++) {
+            v[i] = (i % 4 == 1 || i % 4 == 2) ? 0 : 255;
+            h[i] = (i / 4 == 1 || i / 4 == 2) ? 0 : 255;
+        }
+        vertical = new TrainingImage(v, 4, 4, 0, 0);
+        horizontal = new TrainingImage(h, 4, 4, 0, 0);
+        HashMap<Character, ArrayList<TrainingImage>> images = new HashMap<Character, ArrayList<TrainingImage>>();
+        ArrayList<TrainingImage> al = new ArrayList<TrainingImage>();
+        al.add(vertical);
+        images.put('|', al);
+        al = new ArrayList<TrainingImage>();
+        al.add(horizontal);
+        images.put('-', al);
+        index = new NormalizedTemplateIndex(images, 16);
+    }
+
+    @Test
+    public void testRanges() throws Exception {
+        Assert.assertEquals(2, index.size());
+        Assert.assertEquals(256, index.getCellCount());
+        int[] range = index.getRange('|');
+        Assert.assertEquals(1, range[1] - range[0]);
+        Assert.assertSame(vertical, index.getImage(range[0]));
+        Assert.assertNull(index.getRange('x'));
+    }
+
+    @Test
+    public void testScaledGlyphMatchesBest() throws Exception {
+        // same bar, twice as big, embedded into larger document
+        int w = 10;
+        int[] document = new int[w * 10];
+        for (int y = 0; y < 10; y++) {
+            for (int x = 0; x < w; x++) {
+                document[y * w + x] = (x >= 3 && x < 7) ? 0 : 255;
+            }
+        }
+        byte[] glyph = new byte[index.getCellCount()];
+        index.normalize(document, w, 1, 1, 9, 9, glyph);
+        double verticalError = index.calcMSE(index.getRange('|')[0], glyph);
+        double horizontalError = index.calcMSE(index.getRange('-')[0], glyph);
+        Assert.assertTrue("vertical bar should match better", verticalError < horizontalError);
+
+        // glyph of the same size is resampled the same way
+        index.normalize(vertical.pixels, 4, 0, 0, 4, 4, glyph);
+        Assert.assertEquals(0.0, index.calcMSE(index.getRange('|')[0], glyph), 0.0);
+    }
+}
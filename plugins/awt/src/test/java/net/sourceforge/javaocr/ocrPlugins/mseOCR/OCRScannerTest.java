@@ -0,0 +1,159 @@
+package net.sourceforge.javaocr.ocrPlugins.mseOCR;
+
+import net.sourceforge.javaocr.ocr.ImageReader;
+import net.sourceforge.javaocr.scanner.FoundChar;
+import net.sourceforge.javaocr.scanner.FoundWord;
+import net.sourceforge.javaocr.scanner.PixelImage;
+import net.sourceforge.javaocr.scanner.RecognizedChar;
+import net.sourceforge.javaocr.scanner.accuracy.AccuracyListenerInterface;
+import net.sourceforge.javaocr.scanner.accuracy.OCRIdentification;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * parallel scan shall produce exactly the same words and accuracy notifications as serial one
+ */
+public class OCRScannerTest {
+    private OCRScanner scanner;
+    private RecordingListener listener;
+    private BufferedImage document;
+
+    @Before
+    public void setUp() throws Exception {
+        scanner = new OCRScanner();
+        scanner.addTrainingImages(TestDocuments.trainingImages());
+        listener = new RecordingListener();
+        scanner.acceptAccuracyListener(listener);
+        document = TestDocuments.print(
+                "HOT COD", "BLADE TILE ACHE", "LOT", "DECAL HOLD", "CLOTH BOLT", "TOE", "HIDE");
+    }
+
+    @Test
+    public void testParallelScanMatchesSerial() throws Exception {
+        List<FoundWord> serialWords = scanner.scan(document, 0, 0, 0, 0, null);
+        List<String> serialIdentifications = listener.take();
+        Assert.assertTrue(serialWords.size() >= 10);
+
+        for (int threads = 1; threads <= 4; threads++) {
+            ExecutorService executor = Executors.newFixedThreadPool(threads);
+            try {
+                List<FoundWord> parallelWords = scanner.scan(document, 0, 0, 0, 0, null, executor);
+                assertSameWords(serialWords, parallelWords);
+                Assert.assertEquals(serialIdentifications, listener.take());
+            } finally {
+                executor.shutdown();
+            }
+        }
+    }
+
+    @Test
+    public void testParallelScanOfClippedArea() throws Exception {
+        int w = document.getWidth();
+        int h = document.getHeight();
+        // whole rows, whole characters and rows cut in half
+        int[][] areas = {{0, h / 4, w, h}, {w / 3, 0, 2 * w / 3, h / 2}, {0, 37, w - 20, h - 41}};
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            for (int[] area : areas) {
+                List<FoundWord> serialWords = scanner.scan(document, area[0], area[1], area[2], area[3], null);
+                List<String> serialIdentifications = listener.take();
+                List<FoundWord> parallelWords = scanner.scan(document, area[0], area[1], area[2], area[3], null, executor);
+                assertSameWords(serialWords, parallelWords);
+                Assert.assertEquals(serialIdentifications, listener.take());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testParallelScanWithAcceptableChars() throws Exception {
+        CharacterRange[] acceptable = {new CharacterRange('A', 'E'), new CharacterRange('O', 'O')};
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            List<FoundWord> serialWords = scanner.scan(document, 0, 0, 0, 0, acceptable);
+            List<String> serialIdentifications = listener.take();
+            List<FoundWord> parallelWords = scanner.scan(document, 0, 0, 0, 0, acceptable, executor);
+            assertSameWords(serialWords, parallelWords);
+            Assert.assertEquals(serialIdentifications, listener.take());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * image decoded straight to grayscale shall be recognized the same as RGB one
+     */
+    @Test
+    public void testGrayscaleScanMatchesImageScan() throws Exception {
+        File file = File.createTempFile("document", ".png");
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            ImageIO.write(document, "png", file);
+            List<FoundWord> imageWords = scanner.scan(document, 0, 0, 0, 0, null);
+            List<String> imageIdentifications = listener.take();
+            List<FoundWord> grayWords = scanner.scan(new PixelImage(ImageReader.readGrayscale(file)), 0, 0, 0, 0, null);
+            Assert.assertEquals(imageIdentifications, listener.take());
+            List<FoundWord> parallelWords = scanner.scan(
+                    new PixelImage(ImageReader.readGrayscale(file)), 0, 0, 0, 0, null, executor);
+            Assert.assertEquals(imageIdentifications, listener.take());
+            Assert.assertEquals(imageWords.size(), grayWords.size());
+            for (int i = 0; i < imageWords.size(); i++) {
+                Assert.assertEquals(imageWords.get(i).getRecognizedString(), grayWords.get(i).getRecognizedString());
+            }
+            assertSameWords(grayWords, parallelWords);
+        } finally {
+            executor.shutdown();
+            file.delete();
+        }
+    }
+
+    private static void assertSameWords(List<FoundWord> expected, List<FoundWord> actual) {
+        Assert.assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            FoundWord expectedWord = expected.get(i);
+            FoundWord actualWord = actual.get(i);
+            Assert.assertEquals(expectedWord.getRecognizedString(), actualWord.getRecognizedString());
+            Assert.assertEquals(expectedWord.getSize(), actualWord.getSize());
+            for (int c = 0; c < expectedWord.getSize(); c++) {
+                RecognizedChar expectedChar = expectedWord.getRecognizedChar(c);
+                RecognizedChar actualChar = actualWord.getRecognizedChar(c);
+                Assert.assertSame(expectedChar.getTrainingImage(), actualChar.getTrainingImage());
+                FoundChar expectedFound = expectedChar.getFoundChar();
+                FoundChar actualFound = actualChar.getFoundChar();
+                Assert.assertEquals(expectedFound.getX1(), actualFound.getX1());
+                Assert.assertEquals(expectedFound.getY1(), actualFound.getY1());
+                Assert.assertEquals(expectedFound.getX2(), actualFound.getX2());
+                Assert.assertEquals(expectedFound.getY2(), actualFound.getY2());
+            }
+        }
+    }
+
+    /**
+     * records notifications together with the thread delivering them
+     */
+    private static class RecordingListener implements AccuracyListenerInterface {
+        private final Thread owner = Thread.currentThread();
+        private List<String> identifications = new ArrayList<String>();
+
+        public void processCharOrSpace(OCRIdentification identAccuracy) {
+            Assert.assertSame(owner, Thread.currentThread());
+            identifications.add(identAccuracy.toString());
+        }
+
+        List<String> take() {
+            List<String> taken = identifications;
+            identifications = new ArrayList<String>();
+            return taken;
+        }
+    }
+}
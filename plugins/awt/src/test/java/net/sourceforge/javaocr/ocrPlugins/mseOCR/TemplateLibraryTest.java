@@ -0,0 +1,190 @@
+package net.sourceforge.javaocr.ocrPlugins.mseOCR;
+
+import net.sourceforge.javaocr.scanner.FoundWord;
+import net.sourceforge.javaocr.scanner.TrainingImage;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Random;
+
+public class TemplateLibraryTest {
+    private HashMap<Character, ArrayList<TrainingImage>> images;
+    private File file;
+
+    @Before
+    public void setUp() throws Exception {
+        Random random = new Random(23);
+        images = new HashMap<Character, ArrayList<TrainingImage>>();
+        for (char c = 'a'; c <= 'e'; c++) {
+            ArrayList<TrainingImage> al = new ArrayList<TrainingImage>();
+            for (int i = 0; i < 3; i++) {
+                int width = 1 + random.nextInt(12);
+                int height = 1 + random.nextInt(12);
+                int[] pixels = new int[width * height];
+                for (int p = 0; p < pixels.length; p++) {
+                    pixels[p] = random.nextInt(256);
+                }
+                al.add(new TrainingImage(pixels, width, height, random.nextInt(5), random.nextInt(5)));
+            }
+            images.put(c, al);
+        }
+        file = File.createTempFile("templates", ".lib");
+        TemplateLibrary.compile(images, file);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        file.delete();
+    }
+
+    @Test
+    public void testTemplates() throws Exception {
+        TemplateLibrary library = TemplateLibrary.open(file);
+        Assert.assertEquals(15, library.size());
+        Assert.assertEquals(TemplateLibrary.HEADER_SIZE + 15 * TemplateLibrary.ENTRY_SIZE + pixelCount(), file.length());
+
+        int idx = 0;
+        for (char c : images.keySet()) {
+            for (TrainingImage ti : images.get(c)) {
+                TemplateLibrary.Template template = library.get(idx++);
+                Assert.assertEquals(c, template.getCharacter());
+                Assert.assertEquals(ti.width, template.getWidth());
+                Assert.assertEquals(ti.height, template.getHeight());
+                Assert.assertEquals(ti.aspectRatio, template.getAspectRatio(), 0);
+                Assert.assertEquals(ti.topWhiteSpaceFraction, template.getTopWhiteSpaceFraction(), 0);
+                Assert.assertEquals(ti.bottomWhiteSpaceFraction, template.getBottomWhiteSpaceFraction(), 0);
+                for (int y = 0; y < ti.height; y++) {
+                    for (int x = 0; x < ti.width; x++) {
+                        Assert.assertEquals(ti.getPixel(x, y), template.getPixel(x, y));
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testCalcMSE() throws Exception {
+        TemplateLibrary library = TemplateLibrary.open(file);
+        Random random = new Random(5);
+        int w = 30;
+        int h = 20;
+        int[] document = new int[w * h];
+        for (int p = 0; p < document.length; p++) {
+            document[p] = random.nextBoolean() ? 0 : 255;
+        }
+        int idx = 0;
+        for (char c : images.keySet()) {
+            for (TrainingImage ti : images.get(c)) {
+                TemplateLibrary.Template template = library.get(idx++);
+                for (int i = 0; i < 10; i++) {
+                    int x1 = random.nextInt(w - 1);
+                    int y1 = random.nextInt(h - 1);
+                    int x2 = x1 + 1 + random.nextInt(w - x1 - 1);
+                    int y2 = y1 + 1 + random.nextInt(h - y1 - 1);
+                    double exact = ti.calcMSE(document, w, h, x1, y1, x2, y2);
+                    Assert.assertEquals(exact,
+                            template.calcMSE(document, w, h, x1, y1, x2, y2, Double.POSITIVE_INFINITY), 0);
+                    Assert.assertEquals(ti.calcMSE(document, w, h, x1, y1, x2, y2, 5),
+                            template.calcMSE(document, w, h, x1, y1, x2, y2, 5), 0);
+                    Assert.assertEquals(exact, template.calcMSE(document, w, h, x1, y1, x2, y2, exact), 0);
+                }
+            }
+        }
+    }
+
+    /**
+     * scanner matching straight against the library shall recognize the same as with training images
+     */
+    @Test
+    public void testScanWithLibrary() throws Exception {
+        HashMap<Character, ArrayList<TrainingImage>> trainingImages = TestDocuments.trainingImages();
+        TemplateLibrary.compile(trainingImages, file);
+        // last word of the document is not reported
+        BufferedImage document = TestDocuments.print("HOT COD", "BLADE TILE", "ACHE");
+
+        OCRScanner expected = new OCRScanner();
+        expected.addTrainingImages(trainingImages);
+        OCRScanner actual = new OCRScanner();
+        actual.setTemplateLibrary(TemplateLibrary.open(file));
+        for (int gridSize : new int[]{0, 16}) {
+            expected.setNormalizedGridSize(gridSize);
+            actual.setNormalizedGridSize(gridSize);
+            List<FoundWord> expectedWords = expected.scan(document, 0, 0, 0, 0, null);
+            List<FoundWord> actualWords = actual.scan(document, 0, 0, 0, 0, null);
+            Assert.assertEquals(4, expectedWords.size());
+            Assert.assertEquals(expectedWords.size(), actualWords.size());
+            for (int i = 0; i < expectedWords.size(); i++) {
+                Assert.assertEquals(expectedWords.get(i).getRecognizedString(), actualWords.get(i).getRecognizedString());
+            }
+        }
+        Assert.assertEquals("COD", expected.scan(document, 0, 0, 0, 0, null).get(1).getRecognizedString());
+    }
+
+    @Test
+    public void testToTrainingImages() throws Exception {
+        HashMap<Character, ArrayList<TrainingImage>> loaded = TemplateLibrary.open(file).toTrainingImages();
+        Assert.assertEquals(images.keySet(), loaded.keySet());
+        for (char c : images.keySet()) {
+            ArrayList<TrainingImage> expected = images.get(c);
+            ArrayList<TrainingImage> actual = loaded.get(c);
+            Assert.assertEquals(expected.size(), actual.size());
+            for (int i = 0; i < expected.size(); i++) {
+                Assert.assertArrayEquals(expected.get(i).pixels, actual.get(i).pixels);
+                Assert.assertEquals(expected.get(i).width, actual.get(i).width);
+                Assert.assertEquals(expected.get(i).topWhiteSpaceFraction, actual.get(i).topWhiteSpaceFraction, 0);
+                Assert.assertEquals(expected.get(i).bottomWhiteSpaceFraction, actual.get(i).bottomWhiteSpaceFraction, 0);
+            }
+        }
+    }
+
+    @Test
+    public void testRejectsDamagedFiles() throws Exception {
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        try {
+            raf.setLength(file.length() - 1);
+        } finally {
+            raf.close();
+        }
+        try {
+            TemplateLibrary.open(file);
+            Assert.fail("truncated library accepted");
+        } catch (IOException e) {
+            // expected
+        }
+        try {
+            new TemplateLibrary(ByteBuffer.allocate(64));
+            Assert.fail("not a library accepted");
+        } catch (IOException e) {
+            // expected
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRejectsWidePixels() throws Exception {
+        HashMap<Character, ArrayList<TrainingImage>> wide = new HashMap<Character, ArrayList<TrainingImage>>();
+        ArrayList<TrainingImage> al = new ArrayList<TrainingImage>();
+        al.add(new TrainingImage(new int[]{0, 256}, 2, 1, 0, 0));
+        wide.put('x', al);
+        TemplateLibrary.compile(wide, file);
+    }
+
+    private int pixelCount() {
+        int count = 0;
+        for (ArrayList<TrainingImage> al : images.values()) {
+            for (TrainingImage ti : al) {
+                count += ti.npix;
+            }
+        }
+        return count;
+    }
+}
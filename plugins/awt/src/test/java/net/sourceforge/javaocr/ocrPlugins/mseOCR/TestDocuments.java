@@ -0,0 +1,97 @@
+package net.sourceforge.javaocr.ocrPlugins.mseOCR;
+
+import net.sourceforge.javaocr.scanner.TrainingImage;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+
+/**
+ * documents printed with tiny bitmap font, so scanner tests do not depend on fonts installed
+ */
+class TestDocuments {
+    static final String CHARS = "ABCDEHILOT";
+    private static final String[][] GLYPHS = {
+            {".###.", "#...#", "#...#", "#####", "#...#", "#...#", "#...#"},
+            {"####.", "#...#", "#...#", "####.", "#...#", "#...#", "####."},
+            {".###.", "#...#", "#....", "#....", "#....", "#...#", ".###."},
+            {"####.", "#...#", "#...#", "#...#", "#...#", "#...#", "####."},
+            {"#####", "#....", "#....", "####.", "#....", "#....", "#####"},
+            {"#...#", "#...#", "#...#", "#####", "#...#", "#...#", "#...#"},
+            {"#####", "..#..", "..#..", "..#..", "..#..", "..#..", "#####"},
+            {"#....", "#....", "#....", "#....", "#....", "#....", "#####"},
+            {".###.", "#...#", "#...#", "#...#", "#...#", "#...#", ".###."},
+            {"#####", "..#..", "..#..", "..#..", "..#..", "..#..", "..#.."}};
+    private static final int SCALE = 3;
+    private static final int GLYPH_WIDTH = 5 * SCALE;
+    private static final int GLYPH_HEIGHT = 7 * SCALE;
+    private static final int CHAR_GAP = 2 * SCALE;
+    private static final int WORD_GAP = 8 * SCALE;
+    private static final int LINE_GAP = 4 * SCALE;
+    private static final int MARGIN = 8 * SCALE;
+
+    /**
+     * @param lines lines of text, words separated by single spaces, known characters only
+     * @return white page with black text
+     */
+    static BufferedImage print(String... lines) {
+        int width = 0;
+        for (String line : lines) {
+            width = Math.max(width, lineWidth(line));
+        }
+        width += 2 * MARGIN;
+        int height = 2 * MARGIN + lines.length * GLYPH_HEIGHT + (lines.length - 1) * LINE_GAP;
+        BufferedImage img = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = img.createGraphics();
+        g.setColor(Color.WHITE);
+        g.fillRect(0, 0, width, height);
+        g.setColor(Color.BLACK);
+        int y = MARGIN;
+        for (String line : lines) {
+            int x = MARGIN;
+            for (int i = 0; i < line.length(); i++) {
+                char c = line.charAt(i);
+                if (c == ' ') {
+                    x += WORD_GAP - CHAR_GAP;
+                    continue;
+                }
+                String[] glyph = GLYPHS[CHARS.indexOf(c)];
+                for (int gy = 0; gy < glyph.length; gy++) {
+                    for (int gx = 0; gx < glyph[gy].length(); gx++) {
+                        if (glyph[gy].charAt(gx) == '#') {
+                            g.fillRect(x + gx * SCALE, y + gy * SCALE, SCALE, SCALE);
+                        }
+                    }
+                }
+                x += GLYPH_WIDTH + CHAR_GAP;
+            }
+            y += GLYPH_HEIGHT + LINE_GAP;
+        }
+        g.dispose();
+        return img;
+    }
+
+    /**
+     * @return training images of all the characters, scanned from printed sheets
+     */
+    static HashMap<Character, ArrayList<TrainingImage>> trainingImages() throws IOException {
+        HashMap<Character, ArrayList<TrainingImage>> images = new HashMap<Character, ArrayList<TrainingImage>>();
+        TrainingImageLoader loader = new TrainingImageLoader();
+        for (int i = 0; i < CHARS.length(); i++) {
+            char c = CHARS.charAt(i);
+            loader.load(print(String.valueOf(c)), new CharacterRange(c, c), images, "sheet " + c);
+        }
+        return images;
+    }
+
+    private static int lineWidth(String line) {
+        int width = 0;
+        for (int i = 0; i < line.length(); i++) {
+            width += line.charAt(i) == ' ' ? WORD_GAP - CHAR_GAP : GLYPH_WIDTH + CHAR_GAP;
+        }
+        return width;
+    }
+}
@@ -0,0 +1,71 @@
+package net.sourceforge.javaocr.ocrPlugins.receiptFinder;
+
+import net.sourceforge.javaocr.scanner.DocumentScanner;
+import net.sourceforge.javaocr.scanner.PixelImage;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Random;
+
+public class ReceiptFinderTest {
+    private static final int W = 40;
+    private static final int H = 30;
+
+    /**
+     * dark frame around white receipt with black text, receipt touches light pixel
+     * in the frame only diagonally
+     */
+    private PixelImage receipt() {
+        int[] pixels = new int[W * H];
+        for (int y = 0; y < H; y++) {
+            for (int x = 0; x < W; x++) {
+                boolean inside = x >= 5 && x < 35 && y >= 5 && y < 25;
+                boolean text = inside && y % 4 == 0 && x % 3 != 0;
+                pixels[y * W + x] = inside ? (text ? 0 : 255) : 100;
+            }
+        }
+        // black border with single diagonal connection to outer white corner
+        for (int x = 4; x <= 35; x++) {
+            pixels[4 * W + x] = 0;
+            pixels[25 * W + x] = 0;
+        }
+        for (int y = 4; y <= 25; y++) {
+            pixels[y * W + 4] = 0;
+            pixels[y * W + 35] = 0;
+        }
+        pixels[3 * W + 3] = 200;
+        pixels[4 * W + 4] = 200;
+        return new PixelImage(pixels, W, H);
+    }
+
+    @Test
+    public void testSurroundingIsWhitened() throws Exception {
+        DocumentScanner scanner = new DocumentScanner();
+        scanner.setWhiteThreshold(128);
+        PixelImage image = receipt();
+        new ReceiptFinder().findReceipt(scanner, image, new Random(1));
+
+        // text is kept
+        Assert.assertEquals(0, image.pixels[8 * W + 7]);
+        // frame outside of receipt is white
+        Assert.assertEquals(255, image.pixels[0]);
+        Assert.assertEquals(255, image.pixels[15 * W + 1]);
+        Assert.assertEquals(255, image.pixels[(H - 1) * W + W - 1]);
+        // reached diagonally through the corner, so it belongs to receipt
+        Assert.assertEquals(200, image.pixels[3 * W + 3]);
+        Assert.assertEquals(200, image.pixels[4 * W + 4]);
+    }
+
+    @Test
+    public void testBlackSeedsLeaveImageAlone() throws Exception {
+        DocumentScanner scanner = new DocumentScanner();
+        scanner.setWhiteThreshold(128);
+        int[] pixels = new int[W * H];
+        PixelImage image = new PixelImage(pixels, W, H);
+        new ReceiptFinder().findReceipt(scanner, image, new Random(1));
+        // nothing found - everything is filled from the sides
+        for (int pixel : pixels) {
+            Assert.assertEquals(255, pixel);
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package net.sourceforge.javaocr.plugin.cluster;
+
+import net.sourceforge.javaocr.cluster.Metric;
+
+/**
+ * compiled, read only form of {@link MahalanobisDistanceCluster}.  Instead of inverse covariance
+ * matrix it keeps Cholesky factor of covariance matrix <code>C = L * L^T</code> in flat row major
+ * array, so distance is single triangular solve <code>L * y = x - mx</code> and
+ * <code>|y|</code> is the distance.  Clusters known only by inverse covariance matrix
+ * <code>M = R * R^T</code> are compiled as <code>|R^T * (x - mx)|</code>, which costs the same.
+ * <p/>
+ * If matrix is not positive definite, identity is used instead - the same way
+ * {@link MahalanobisDistanceCluster} falls back on singular covariance.
+ * <p/>
+ * compiled cluster is immutable and thread safe
+ */
+public class CompiledMahalanobisCluster implements Metric {
+    private final int dimensions;
+    private final double[] center;
+    // lower triangular factor, row major, or transposed factor of inverse in upper triangle
+    private final double[] factor;
+    private final double[] inverseDiagonal;
+    private final boolean inverse;
+
+    /**
+     * compile cluster from covariance matrix
+     *
+     * @param center     expectation values
+     * @param covariance covariance matrix, only lower triangle is used
+     * @return compiled cluster
+     */
+    public static CompiledMahalanobisCluster fromCovariance(double[] center, double[][] covariance) {
+        return new CompiledMahalanobisCluster(center, covariance, false);
+    }
+
+    /**
+     * compile cluster from inverse covariance matrix
+     *
+     * @param center            expectation values
+     * @param inverseCovariance inverse covariance matrix, only lower triangle is used
+     * @return compiled cluster
+     */
+    public static CompiledMahalanobisCluster fromInverseCovariance(double[] center, double[][] inverseCovariance) {
+        return new CompiledMahalanobisCluster(center, inverseCovariance, true);
+    }
+
+    private CompiledMahalanobisCluster(double[] center, double[][] matrix, boolean inverse) {
+        this.dimensions = center.length;
+        this.center = center.clone();
+        this.inverse = inverse;
+        final int n = dimensions;
+        double[] l = new double[n * n];
+        if (!cholesky(matrix, l, n)) {
+            // not positive definite - identity
+            l = new double[n * n];
+            for (int i = 0; i < n; i++) {
+                l[i * n + i] = 1;
+            }
+        }
+        inverseDiagonal = new double[n];
+        for (int i = 0; i < n; i++) {
+            inverseDiagonal[i] = 1 / l[i * n + i];
+        }
+        if (inverse) {
+            // store R^T, so product walks rows
+            factor = new double[n * n];
+            for (int i = 0; i < n; i++) {
+                for (int j = 0; j <= i; j++) {
+                    factor[j * n + i] = l[i * n + j];
+                }
+            }
+        } else {
+            factor = l;
+        }
+    }
+
+    /**
+     * cholesky decomposition of lower triangle
+     *
+     * @return false if matrix is not positive definite
+     */
+    private static boolean cholesky(double[][] matrix, double[] l, int n) {
+        for (int i = 0; i < n; i++) {
+            final int rowI = i * n;
+            for (int j = 0; j <= i; j++) {
+                final int rowJ = j * n;
+                double sum = matrix[i][j];
+                for (int k = 0; k < j; k++) {
+                    sum -= l[rowI + k] * l[rowJ + k];
+                }
+                if (i == j) {
+                    if (!(sum > 0)) {
+                        return false;
+                    }
+                    l[rowI + i] = Math.sqrt(sum);
+                } else {
+                    l[rowI + j] = sum / l[rowJ + j];
+                }
+            }
+        }
+        return true;
+    }
+
+    public int getDimensions() {
+        return dimensions;
+    }
+
+    /**
+     * @return expectation values, shall not be modified
+     */
+    public double[] center() {
+        return center;
+    }
+
+    /**
+     * calculate mahalanobis distance
+     *
+     * @param features amount of features shall correspond to amount dimensions
+     * @return calculated distance
+     */
+    public double distance(double[] features) {
+        return distance(features, new double[dimensions]);
+    }
+
+    /**
+     * calculate mahalanobis distance without allocating anything
+     *
+     * @param features amount of features shall correspond to amount dimensions
+     * @param scratch  work buffer, at least as long as amount of dimensions
+     * @return calculated distance
+     */
+    public double distance(double[] features, double[] scratch) {
+        final int n = dimensions;
+        final double[] factor = this.factor;
+        final double[] center = this.center;
+        for (int i = 0; i < n; i++) {
+            scratch[i] = features[i] - center[i];
+        }
+        double cumulated = 0;
+        if (inverse) {
+            // y = R^T * d
+            for (int i = 0; i < n; i++) {
+                final int row = i * n;
+                double y = 0;
+                for (int j = i; j < n; j++) {
+                    y += factor[row + j] * scratch[j];
+                }
+                cumulated += y * y;
+            }
+        } else {
+            // L * y = d,  y overwrites d
+            for (int i = 0; i < n; i++) {
+                final int row = i * n;
+                double y = scratch[i];
+                for (int j = 0; j < i; j++) {
+                    y -= factor[row + j] * scratch[j];
+                }
+                y *= inverseDiagonal[i];
+                scratch[i] = y;
+                cumulated += y * y;
+            }
+        }
+        return Math.sqrt(cumulated);
+    }
+
+    /**
+     * score feature vector against many clusters at once
+     *
+     * @param clusters clusters to score
+     * @param features feature vector
+     * @param dst      receives distance to every cluster, at least as long as clusters array
+     */
+    public static void distances(CompiledMahalanobisCluster[] clusters, double[] features, double[] dst) {
+        int max = 0;
+        for (CompiledMahalanobisCluster cluster : clusters) {
+            max = Math.max(max, cluster.dimensions);
+        }
+        final double[] scratch = new double[max];
+        for (int i = 0; i < clusters.length; i++) {
+            dst[i] = clusters[i].distance(features, scratch);
+        }
+    }
+}
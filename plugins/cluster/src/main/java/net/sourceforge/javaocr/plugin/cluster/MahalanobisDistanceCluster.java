@@ -52,13 +52,19 @@ public class MahalanobisDistanceCluster extends AbstractBaseCluster {
             invcov = matrix();
         }
         // calculate mahalanobis distance
+        final int dimensions = getDimensions();
+        final double[] center = center();
+        final double[] diff = new double[dimensions];
+        for (int i = 0; i < dimensions; i++) {
+            diff[i] = features[i] - center[i];
+        }
         double cumulated = 0;
-        for (int i = 0; i < getDimensions(); i++) {
+        for (int i = 0; i < dimensions; i++) {
             double xmxc = 0;
-            for (int j = 0; j < getDimensions(); j++) {
-                xmxc += invcov[j][i] * (features[j] - center()[j]);
+            for (int j = 0; j < dimensions; j++) {
+                xmxc += invcov[j][i] * diff[j];
             }
-            cumulated += xmxc * (features[i] - center()[i]);
+            cumulated += xmxc * diff[i];
         }
 
         //System.out.println("m cumulated:"  + cumulated);
@@ -84,17 +90,45 @@ public class MahalanobisDistanceCluster extends AbstractBaseCluster {
     }
 
     /**
-     * calculate covariance matrix  and invert it
+     * compile cluster into form optimised for distance computation.  Covariance matrix of trained
+     * cluster is factorised directly, without inverting it.  Compiled cluster does not change
+     * when this cluster is trained further.
      *
-     * @return
+     * @return compiled cluster
      */
-    double[][] matrix() {
+    public CompiledMahalanobisCluster compile() {
+        if (sumxy == null) {
+            if (invcov == null) {
+                throw new IllegalStateException("cluster is neither trained nor has inverse covariance matrix");
+            }
+            return CompiledMahalanobisCluster.fromInverseCovariance(center(), invcov);
+        }
+        return CompiledMahalanobisCluster.fromCovariance(center(), covariance());
+    }
+
+    /**
+     * calculate covariance matrix from gathered samples
+     *
+     * @return covariance matrix
+     */
+    double[][] covariance() {
+        final double[] center = center();
         double cov[][] = new double[getDimensions()][getDimensions()];
         for (int i = 0; i < getDimensions(); i++) {
             for (int j = 0; j < getDimensions(); j++) {
-                cov[i][j] += sumxy[i][j] / getAmountSamples() - center()[i] * center()[j];
+                cov[i][j] += sumxy[i][j] / getAmountSamples() - center[i] * center[j];
             }
         }
+        return cov;
+    }
+
+    /**
+     * calculate covariance matrix  and invert it
+     *
+     * @return
+     */
+    double[][] matrix() {
+        double cov[][] = covariance();
 
         RealMatrix a = new Array2DRowRealMatrix(cov);
         DecompositionSolver solver = new LUDecompositionImpl(a, Double.MIN_VALUE).getSolver();
@@ -0,0 +1,185 @@
+package net.sourceforge.javaocr.plugin.cluster;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * metric matcher returning only k best matches.  Matches are collected in bounded heap
+ * instead of sorting all the clusters, and plain euclidian clusters are skipped without computing
+ * distance when triangle inequality tells they can not get into best k:
+ * <code>d(x, c) >= d(best, c) - d(x, best)</code>, where center to center distances are computed
+ * when clusters are set.  Result is the same as first k matches of {@link MetricMatcher},
+ * including order of equally distant clusters.
+ * <p/>
+ * Returned list and matches are reused by next call, and matcher is not thread safe.  Clusters
+ * shall be trained before they are set, or {@link #update()} called after training.
+ */
+public class TopKMetricMatcher implements Matcher {
+    /**
+     * slack for rounding errors of precomputed bounds
+     */
+    private static final double EPSILON = 1e-9;
+
+    private final int k;
+    private List<Cluster> clusters = new ArrayList<Cluster>();
+    private Cluster[] clusterArray = new Cluster[0];
+    // center to center distances of euclidian clusters, NaN for other clusters
+    private double[] centerDistances = new double[0];
+    private boolean[] euclidian = new boolean[0];
+
+    // bounded max heap of best matches so far, worst on top
+    private final int[] heap;
+    private final double[] heapDistances;
+    private final Match[] matches;
+    private final List<Match> result;
+
+    /**
+     * @param k amount of best matches to return
+     */
+    public TopKMetricMatcher(int k) {
+        if (k <= 0) {
+            throw new IllegalArgumentException("at least one match shall be returned");
+        }
+        this.k = k;
+        heap = new int[k];
+        heapDistances = new double[k];
+        matches = new Match[k];
+        for (int i = 0; i < k; i++) {
+            matches[i] = new Match();
+        }
+        result = new ArrayList<Match>(k);
+    }
+
+    public List<Cluster> getClusters() {
+        return clusters;
+    }
+
+    public void setClusters(List<Cluster> clusters) {
+        this.clusters = clusters;
+        update();
+    }
+
+    /**
+     * recompute center to center distances, shall be called when clusters were trained or
+     * list of clusters was modified
+     */
+    public void update() {
+        final int n = clusters.size();
+        clusterArray = clusters.toArray(new Cluster[n]);
+        euclidian = new boolean[n];
+        for (int i = 0; i < n; i++) {
+            // subclasses may weight dimensions, so only plain euclidian distance is trusted
+            euclidian[i] = clusterArray[i].getClass() == EuclidianDistanceCluster.class;
+        }
+        centerDistances = new double[n * n];
+        for (int i = 0; i < n; i++) {
+            for (int j = i; j < n; j++) {
+                double d = Double.NaN;
+                if (euclidian[i] && euclidian[j] && clusterArray[i].getDimensions() == clusterArray[j].getDimensions()) {
+                    d = clusterArray[i].distance(clusterArray[j].center());
+                }
+                centerDistances[i * n + j] = d;
+                centerDistances[j * n + i] = d;
+            }
+        }
+    }
+
+    /**
+     * compute k best matching clusters
+     *
+     * @param features feature vector
+     * @return up to k matches ordered by distance, valid until next call
+     */
+    public List<Match> match(double[] features) {
+        final int n = clusterArray.length;
+        int size = 0;
+        int best = -1;
+        double bestDistance = Double.POSITIVE_INFINITY;
+        for (int i = 0; i < n; i++) {
+            if (size == k && best >= 0 && euclidian[i]) {
+                final double d = centerDistances[best * n + i];
+                // NaN comparisons are false, so such clusters are never skipped
+                if (d - bestDistance > heapDistances[0] * (1 + EPSILON) + EPSILON) {
+                    continue;
+                }
+            }
+            final double distance = clusterArray[i].distance(features);
+            if (euclidian[i] && distance < bestDistance) {
+                best = i;
+                bestDistance = distance;
+            }
+            if (size < k) {
+                heap[size] = i;
+                heapDistances[size] = distance;
+                siftUp(size++);
+            } else if (worse(heap[0], heapDistances[0], i, distance)) {
+                heap[0] = i;
+                heapDistances[0] = distance;
+                siftDown(size);
+            }
+        }
+
+        // take heap apart, worst first
+        result.clear();
+        for (int i = size - 1; i >= 0; i--) {
+            matches[i].setCluster(clusterArray[heap[0]]);
+            matches[i].setDistance(heapDistances[0]);
+            heap[0] = heap[i];
+            heapDistances[0] = heapDistances[i];
+            siftDown(i);
+        }
+        for (int i = 0; i < size; i++) {
+            result.add(matches[i]);
+        }
+        return result;
+    }
+
+    /**
+     * ordering of matches: by distance (NaN last, as by {@link Double#compare(double, double)}),
+     * then by cluster position
+     */
+    private static boolean worse(int a, double da, int b, double db) {
+        final int c = Double.compare(da, db);
+        return c > 0 || (c == 0 && a > b);
+    }
+
+    private void siftUp(int i) {
+        while (i > 0) {
+            final int parent = (i - 1) / 2;
+            if (!worse(heap[i], heapDistances[i], heap[parent], heapDistances[parent])) {
+                break;
+            }
+            swap(i, parent);
+            i = parent;
+        }
+    }
+
+    private void siftDown(int size) {
+        int i = 0;
+        while (true) {
+            final int left = 2 * i + 1;
+            if (left >= size) {
+                break;
+            }
+            int worst = left;
+            final int right = left + 1;
+            if (right < size && worse(heap[right], heapDistances[right], heap[left], heapDistances[left])) {
+                worst = right;
+            }
+            if (!worse(heap[worst], heapDistances[worst], heap[i], heapDistances[i])) {
+                break;
+            }
+            swap(i, worst);
+            i = worst;
+        }
+    }
+
+    private void swap(int i, int j) {
+        final int h = heap[i];
+        heap[i] = heap[j];
+        heap[j] = h;
+        final double d = heapDistances[i];
+        heapDistances[i] = heapDistances[j];
+        heapDistances[j] = d;
+    }
+}
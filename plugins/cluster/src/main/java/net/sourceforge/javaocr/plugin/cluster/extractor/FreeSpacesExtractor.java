@@ -1,6 +1,7 @@
 package net.sourceforge.javaocr.plugin.cluster.extractor;
 
 import net.sourceforge.javaocr.Image;
+import net.sourceforge.javaocr.SpanIterator;
 import net.sourceforge.javaocr.cluster.FeatureExtractor;
 import net.sourceforge.javaocr.filter.AbstractSinglePixelFilter;
 
@@ -54,12 +55,12 @@ public class FreeSpacesExtractor extends AbstractSinglePixelFilter implements Fe
     /**
      * process single pixel. a lot of voodoo magic emerged  from
      * test driven development - it is correct but not designed  
-     * @param image
+     * @param span
      */
     @Override
-    protected void processPixel(Image image) {
+    protected void processPixel(SpanIterator span) {
         // in case next pixel is free
-        if (image.next() == 0) {
+        if (span.next() == 0) {
             // in case we just started new empty scan,
             // but only if there is no free space on top
             if (!free) {
@@ -0,0 +1,68 @@
+package net.sourceforge.javaocr.plugin.cluster;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static junit.framework.Assert.assertEquals;
+
+/**
+ * compiled cluster shall compute the same distances as mahalanobis cluster
+ */
+public class CompiledMahalanobisClusterTest {
+
+    private MahalanobisDistanceCluster trained(Random random, int dimensions) {
+        MahalanobisDistanceCluster cluster = new MahalanobisDistanceCluster(dimensions);
+        for (int n = 0; n < 200; n++) {
+            double[] sample = new double[dimensions];
+            double common = random.nextGaussian();
+            for (int i = 0; i < dimensions; i++) {
+                // correlated dimensions of different scale
+                sample[i] = (i + 1) * random.nextGaussian() + common * i + 3;
+            }
+            cluster.train(sample);
+        }
+        return cluster;
+    }
+
+    @Test
+    public void testMatchesInverseCovariance() {
+        Random random = new Random(9);
+        MahalanobisDistanceCluster cluster = trained(random, 5);
+        CompiledMahalanobisCluster compiled = cluster.compile();
+        for (int n = 0; n < 100; n++) {
+            double[] features = new double[5];
+            for (int i = 0; i < 5; i++) {
+                features[i] = random.nextGaussian() * 5 + 3;
+            }
+            double expected = cluster.distance(features);
+            assertEquals(expected, compiled.distance(features), 1e-9 * expected);
+            CompiledMahalanobisCluster fromInverse = CompiledMahalanobisCluster.fromInverseCovariance(cluster.center(), cluster.getInvcov());
+            assertEquals(expected, fromInverse.distance(features), 1e-9 * expected);
+        }
+    }
+
+    @Test
+    public void testBatchScoring() {
+        Random random = new Random(4);
+        CompiledMahalanobisCluster[] clusters = new CompiledMahalanobisCluster[10];
+        for (int i = 0; i < clusters.length; i++) {
+            clusters[i] = trained(random, 2 + i % 4).compile();
+        }
+        double[] features = {1, 2, 3, 4, 5};
+        double[] distances = new double[clusters.length];
+        CompiledMahalanobisCluster.distances(clusters, features, distances);
+        for (int i = 0; i < clusters.length; i++) {
+            assertEquals(clusters[i].distance(features), distances[i]);
+        }
+    }
+
+    @Test
+    public void testSingularCovarianceFallsBackToIdentity() {
+        MahalanobisDistanceCluster cluster = new MahalanobisDistanceCluster(2);
+        cluster.train(new double[]{1, 1});
+        double[] features = {4, 5};
+        assertEquals(5d, cluster.distance(features));
+        assertEquals(5d, cluster.compile().distance(features));
+    }
+}
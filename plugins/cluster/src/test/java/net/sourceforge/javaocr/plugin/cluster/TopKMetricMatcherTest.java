@@ -0,0 +1,57 @@
+package net.sourceforge.javaocr.plugin.cluster;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertSame;
+
+/**
+ * top k matcher shall deliver first k matches of full metric matcher
+ */
+public class TopKMetricMatcherTest {
+
+    @Test
+    public void testMatchesFullSort() {
+        Random random = new Random(23);
+        List<Cluster> clusters = new ArrayList<Cluster>();
+        for (int i = 0; i < 300; i++) {
+            double[] center = new double[4];
+            for (int j = 0; j < center.length; j++) {
+                // coarse grid produces equal distances
+                center[j] = random.nextInt(8);
+            }
+            if (i % 10 == 0) {
+                SigmaWeightedEuclidianDistanceCluster weighted = new SigmaWeightedEuclidianDistanceCluster(4);
+                weighted.train(center);
+                weighted.train(new double[]{1, 2, 3, 4});
+                clusters.add(weighted);
+            } else {
+                clusters.add(new EuclidianDistanceCluster(center));
+            }
+        }
+        MetricMatcher full = new MetricMatcher();
+        full.setClusters(clusters);
+
+        for (int k : new int[]{1, 5, 300, 400}) {
+            TopKMetricMatcher topK = new TopKMetricMatcher(k);
+            topK.setClusters(clusters);
+            for (int n = 0; n < 200; n++) {
+                double[] features = new double[4];
+                for (int j = 0; j < features.length; j++) {
+                    features[j] = n % 2 == 0 ? random.nextInt(8) : random.nextDouble() * 10 - 1;
+                }
+                List<Match> expected = full.match(features);
+                List<Match> actual = topK.match(features);
+                assertEquals(Math.min(k, clusters.size()), actual.size());
+                for (int i = 0; i < actual.size(); i++) {
+                    assertSame("k=" + k + " match " + i, expected.get(i).getCluster(), actual.get(i).getCluster());
+                    assertEquals(expected.get(i).getDistance(), actual.get(i).getDistance());
+                }
+            }
+        }
+    }
+}
@@ -10,8 +10,8 @@ import net.sourceforge.javaocr.ImageFilter;
 public abstract class AbstractNeighborhoodFilter implements ImageFilter {
 	
 	protected int filterW, filterH; 
-	private int sizeL, sizeR, sizeT, sizeB;
-	private Image destImage;
+	protected int sizeL, sizeR, sizeT, sizeB;
+	protected Image destImage;
 
 	/**
 	 * Initializes an <code>AbstractNeighborhoodFilter</code>
@@ -45,7 +45,15 @@ public abstract class AbstractNeighborhoodFilter implements ImageFilter {
 			}
 		}
 		
-		// and copy four borders as they are
+		copyBorders(image);
+    }
+
+    /**
+     * copy four borders, where neighborhood does not fit into image, as they are
+     */
+    protected void copyBorders(Image image) {
+		final int imageW = image.getWidth();
+		final int imageH = image.getHeight();
 		image.chisel(0, 0, imageW, sizeT).copy(destImage.chisel(0, 0, imageW, sizeT));
 		image.chisel(0, imageH-sizeB, imageW, sizeB).copy(destImage.chisel(0, imageH-sizeB, imageW, sizeB));
 		image.chisel(0, 0, sizeL, imageH).copy(destImage.chisel(0, 0, sizeL, imageH));
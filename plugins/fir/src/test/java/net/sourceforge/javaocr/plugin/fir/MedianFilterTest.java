@@ -1,5 +1,10 @@
 package net.sourceforge.javaocr.plugin.fir;
 
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
 import junit.framework.TestCase;
 import net.sourceforge.javaocr.ocr.PixelImage;
 import net.sourceforge.javaocr.plugin.fir.MedianFilter;
@@ -107,4 +112,88 @@ public class MedianFilterTest extends TestCase {
    		assertEquals(127, imageOut.get(0, 0));
    		assertEquals(255, imageOut.get(0, 1));
     }
+
+    public void testHistogramMatchesSorting() {
+    	Random random = new Random(17);
+    	int[][] sizes = {{1, 1}, {3, 3}, {2, 2}, {4, 3}, {7, 7}, {9, 9}, {1, 5}, {6, 1}};
+    	for (int[] size : sizes) {
+    		int imageW = 23 + random.nextInt(20);
+    		int imageH = 19 + random.nextInt(20);
+    		int[] data = new int[imageW * imageH];
+    		for (int i = 0; i < data.length; ++i) {
+    			// clustered values, so that medians fall on coarse bin boundaries as well
+    			data[i] = random.nextBoolean() ? random.nextInt(256) : 15 + random.nextInt(3);
+    		}
+    		assertMatchesSorting(data, imageW, imageH, size[0], size[1], null);
+    	}
+    }
+
+    public void testParallelStripsMatchSorting() {
+    	Random random = new Random(5);
+    	int imageW = 61;
+    	int imageH = 97;
+    	int[] data = new int[imageW * imageH];
+    	for (int i = 0; i < data.length; ++i) {
+    		data[i] = random.nextInt(256);
+    	}
+    	ExecutorService executor = Executors.newFixedThreadPool(4);
+    	try {
+    		assertMatchesSorting(data, imageW, imageH, 7, 7, executor);
+    		assertMatchesSorting(data, imageW, imageH, 4, 6, executor);
+    	} finally {
+    		executor.shutdown();
+    	}
+    }
+
+    public void testWideValuesAreSorted() {
+    	int imageW = 5;
+    	int imageH = 4;
+    	int[] data = new int[] {
+    		1000,   -3, 70000,    0,   12,
+    		  40,  300,    -8,  255, 1024,
+    		   7,    6,     5,    4,    3,
+    		 900,  800,   700,  600,  500,
+    	};
+    	assertMatchesSorting(data, imageW, imageH, 3, 3, null);
+    	assertMatchesSorting(data, imageW, imageH, 2, 2, null);
+    }
+
+    public void testImageSmallerThanNeighborhood() {
+    	int[] data = new int[] {
+    		1, 2, 3,
+    		4, 5, 6,
+    	};
+    	PixelImage imageOut = new PixelImage(3, 2);
+    	new MedianFilter(5, 5, imageOut).process(new PixelImage(data, 3, 2));
+    	assertTrue(Arrays.equals(data, imageOut.pixels));
+    }
+
+    private void assertMatchesSorting(int[] data, int imageW, int imageH, int filterW, int filterH, ExecutorService executor) {
+    	PixelImage imageOut = new PixelImage(imageW, imageH);
+    	new MedianFilter(filterW, filterH, imageOut).process(new PixelImage(data, imageW, imageH), executor);
+
+    	int sizeL = (filterW - 1) / 2;
+    	int sizeT = (filterH - 1) / 2;
+    	int[] window = new int[filterW * filterH];
+    	for (int y = 0; y < imageH; ++y) {
+    		for (int x = 0; x < imageW; ++x) {
+    			int expected = data[y * imageW + x];
+    			int left = x - sizeL;
+    			int top = y - sizeT;
+    			if (left >= 0 && top >= 0 && left + filterW <= imageW && top + filterH <= imageH) {
+    				int counter = 0;
+    				for (int j = top; j < top + filterH; ++j) {
+    					for (int i = left; i < left + filterW; ++i) {
+    						window[counter++] = data[j * imageW + i];
+    					}
+    				}
+    				Arrays.sort(window);
+    				expected = counter % 2 == 0
+    					? (window[counter / 2] + window[counter / 2 - 1]) / 2
+    					: window[counter / 2];
+    			}
+    			assertEquals(filterW + "x" + filterH + " at " + x + "," + y, expected, imageOut.get(x, y));
+    		}
+    	}
+    }
 }
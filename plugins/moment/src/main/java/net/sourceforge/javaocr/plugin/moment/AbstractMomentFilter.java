@@ -2,6 +2,7 @@ package net.sourceforge.javaocr.plugin.moment;
 
 import net.sourceforge.javaocr.Image;
 import net.sourceforge.javaocr.ImageFilter;
+import net.sourceforge.javaocr.SpanIterator;
 
 /**
  * base functionality for moment filters (traversal
@@ -30,10 +31,10 @@ public abstract class AbstractMomentFilter implements ImageFilter {
         int x;
         for (int y = 0; y < image.getHeight(); y++) {
 
-            image.iterateH(y);
+            SpanIterator span = image.spanH(y);
             x = 0;
-            while (image.hasNext())
-                computeIndividualMoment(image.next(), x++, y);
+            while (span.hasNext())
+                computeIndividualMoment(span.next(), x++, y);
         }
     }
 
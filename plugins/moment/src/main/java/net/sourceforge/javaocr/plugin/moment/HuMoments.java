@@ -14,77 +14,32 @@ import net.sourceforge.javaocr.cluster.FeatureExtractor;
 public class HuMoments implements FeatureExtractor {
 
 
+    /**
+     * all moments are computed in single pass over the image
+     */
     public double[] extract(Image image) {
 
+        MomentAccumulator accumulator = new MomentAccumulator();
+        accumulator.process(image);
 
-        // m00 - used to normalise moments
-        RawMomentFilter M00 = new RawMomentFilter(0, 0);
-        M00.process(image);
-        double m00 = M00.getMoment();
-
-
-        //  m10
-        RawMomentFilter M10 = new RawMomentFilter(1, 0);
-        M10.process(image);
-        double m10 = M10.getMoment();
-
-
-        //  m01
-        RawMomentFilter M01 = new RawMomentFilter(0, 1);
-        M01.process(image);
-        double m01 = M01.getMoment();
-
-
-        // ready to compute image weight center, will be used for central moments computation
-        double xMean = m10 / m00;
-        double yMean = m01 / m00;
-        //System.err.println("xmean: " + xMean + " ymean: " + yMean);
-
-
-        // Phi1 -> n20 + n02
-        CentralMomentFilter N20 = new CentralMomentFilter(2, 0, xMean, yMean);
-        CentralMomentFilter N02 = new CentralMomentFilter(0, 2, xMean, yMean);
-
-        N20.process(image);
-        double n20 = N20.normalise(m00);
-
-        N02.process(image);
-        double n02 = N02.normalise(m00);
-
+        // normalised central moments, image weight center is taken care of by accumulator
+        double n20 = accumulator.getNormalisedMoment(2, 0);
+        double n02 = accumulator.getNormalisedMoment(0, 2);
+        double n11 = accumulator.getNormalisedMoment(1, 1);
+        double n30 = accumulator.getNormalisedMoment(3, 0);
+        double n03 = accumulator.getNormalisedMoment(0, 3);
+        double n21 = accumulator.getNormalisedMoment(2, 1);
+        double n12 = accumulator.getNormalisedMoment(1, 2);
 
         double moments[] = new double[7];
 
+        // Phi1 -> n20 + n02
         moments[0] = n20 + n02;
 
         // Phi2 -> (n20-n02)^2 + n11
-        CentralMomentFilter N11 = new CentralMomentFilter(1, 1, xMean, yMean);
-        N11.process(image);
-
-        double n11 = N11.normalise(m00);
-
         moments[1] = Math.pow(n20 - n02, 2) + 4 * Math.pow(n11, 2);
 
-        // Phi3  (n30 - 3n12)^2 + (n03-3n21)^2 
-        CentralMomentFilter N30 = new CentralMomentFilter(3, 0, xMean, yMean);
-        N30.process(image);
-
-        double n30 = N30.normalise(m00);
-
-        CentralMomentFilter N03 = new CentralMomentFilter(0, 3, xMean, yMean);
-        N03.process(image);
-
-        double n03 = N03.normalise(m00);
-
-        CentralMomentFilter N21 = new CentralMomentFilter(2, 1, xMean, yMean);
-        N21.process(image);
-
-        double n21 = N21.normalise(m00);
-
-        CentralMomentFilter N12 = new CentralMomentFilter(1, 2, xMean, yMean);
-        N12.process(image);
-
-        double n12 = N12.normalise(m00);
-
+        // Phi3  (n30 - 3n12)^2 + (n03-3n21)^2
         moments[2] = Math.pow(n30 - 3 * n12, 2) + Math.pow(n03 - 3 * n21, 2);
 
         //Phi4  (n30 + 3n12)^2 + (n03 + 3n21)^2
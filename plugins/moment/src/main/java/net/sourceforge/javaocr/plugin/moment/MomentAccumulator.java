@@ -0,0 +1,158 @@
+package net.sourceforge.javaocr.plugin.moment;
+
+import net.sourceforge.javaocr.Image;
+import net.sourceforge.javaocr.ImageFilter;
+
+/**
+ * computes all raw moments up to order 3 in single pass over the image, central moments are
+ * derived from them in closed form.  Powers of coordinates are built incrementally, so there
+ * are just few multiplications per pixel. Row sums are exact (integer), rows are added up in double.
+ * does not modify the image.  this filter is stateful and not thread safe
+ */
+public class MomentAccumulator implements ImageFilter {
+    double m00;
+    double m10;
+    double m01;
+    double m20;
+    double m11;
+    double m02;
+    double m30;
+    double m21;
+    double m12;
+    double m03;
+    private int[] row = new int[0];
+
+    /**
+     * compute moments of the image, moments of previously processed image are discarded
+     *
+     * @param image image to process
+     */
+    public void process(Image image) {
+        m00 = m10 = m01 = m20 = m11 = m02 = m30 = m21 = m12 = m03 = 0;
+        final int width = image.getWidth();
+        if (row.length < width) {
+            row = new int[width];
+        }
+        final int[] row = this.row;
+        for (int y = 0; y < image.getHeight(); y++) {
+            image.readRow(y, row);
+            long s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+            for (int x = 0; x < width; x++) {
+                final long v = row[x];
+                final long xv = x * v;
+                final long xxv = x * xv;
+                s0 += v;
+                s1 += xv;
+                s2 += xxv;
+                s3 += x * xxv;
+            }
+            final double y1 = y;
+            final double y2 = y1 * y;
+            m00 += s0;
+            m10 += s1;
+            m20 += s2;
+            m30 += s3;
+            m01 += y1 * s0;
+            m11 += y1 * s1;
+            m21 += y1 * s2;
+            m02 += y2 * s0;
+            m12 += y2 * s1;
+            m03 += y2 * y * s0;
+        }
+    }
+
+    /**
+     * @param p order of x, p + q shall not exceed 3
+     * @param q order of y
+     * @return raw moment, SUM( x**p * y**q * sample(x,y))
+     */
+    public double getRawMoment(int p, int q) {
+        checkOrder(p, q);
+        switch (p * 4 + q) {
+            case 0:
+                return m00;
+            case 4:
+                return m10;
+            case 1:
+                return m01;
+            case 8:
+                return m20;
+            case 5:
+                return m11;
+            case 2:
+                return m02;
+            case 12:
+                return m30;
+            case 9:
+                return m21;
+            case 6:
+                return m12;
+            case 3:
+                return m03;
+            default:
+                throw new IllegalArgumentException("moment order (" + p + "," + q + ") is not supported");
+        }
+    }
+
+    /**
+     * orders are packed as p * 4 + q, which is unique for supported orders only
+     */
+    private static void checkOrder(int p, int q) {
+        if (p < 0 || q < 0 || p + q > 3) {
+            throw new IllegalArgumentException("moment order (" + p + "," + q + ") is not supported");
+        }
+    }
+
+    public double getXMean() {
+        return m10 / m00;
+    }
+
+    public double getYMean() {
+        return m01 / m00;
+    }
+
+    /**
+     * @param p order of x, p + q shall not exceed 3
+     * @param q order of y
+     * @return central moment, SUM( (x - xMean)**p * (y - yMean)**q * sample(x,y))
+     */
+    public double getCentralMoment(int p, int q) {
+        checkOrder(p, q);
+        final double xm = getXMean();
+        final double ym = getYMean();
+        switch (p * 4 + q) {
+            case 0:
+                return m00;
+            case 4:
+            case 1:
+                return 0;
+            case 8:
+                return m20 - xm * m10;
+            case 5:
+                return m11 - xm * m01;
+            case 2:
+                return m02 - ym * m01;
+            case 12:
+                return m30 - 3 * xm * m20 + 2 * xm * xm * m10;
+            case 9:
+                return m21 - 2 * xm * m11 - ym * m20 + 2 * xm * xm * m01;
+            case 6:
+                return m12 - 2 * ym * m11 - xm * m02 + 2 * ym * ym * m10;
+            case 3:
+                return m03 - 3 * ym * m02 + 2 * ym * ym * m01;
+            default:
+                throw new IllegalArgumentException("moment order (" + p + "," + q + ") is not supported");
+        }
+    }
+
+    /**
+     * central moment normalised the same way {@link CentralMomentFilter#normalise(double)} does it
+     *
+     * @param p order of x, p + q shall not exceed 3
+     * @param q order of y
+     * @return normalised central moment
+     */
+    public double getNormalisedMoment(int p, int q) {
+        return getCentralMoment(p, q) / Math.pow(m00, (p + q) / 2 + 1);
+    }
+}
@@ -0,0 +1,74 @@
+package net.sourceforge.javaocr.plugin.moment;
+
+import junit.framework.TestCase;
+import net.sourceforge.javaocr.Image;
+import net.sourceforge.javaocr.ocr.PixelImage;
+
+import java.util.Random;
+
+/**
+ * single pass accumulator shall deliver the same moments as individual moment filters
+ */
+public class MomentAccumulatorTest extends TestCase {
+
+    public void testMatchesMomentFilters() {
+        Random random = new Random(7);
+        int[] data = new int[40 * 30];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = random.nextInt(256);
+        }
+        // image box inside bigger array
+        Image image = new PixelImage(data, 40, 30, 3, 2, 31, 25);
+        MomentAccumulator accumulator = new MomentAccumulator();
+        accumulator.process(image);
+
+        RawMomentFilter m00 = new RawMomentFilter(0, 0);
+        m00.process(image);
+        RawMomentFilter m10 = new RawMomentFilter(1, 0);
+        m10.process(image);
+        RawMomentFilter m01 = new RawMomentFilter(0, 1);
+        m01.process(image);
+        double xMean = m10.getMoment() / m00.getMoment();
+        double yMean = m01.getMoment() / m00.getMoment();
+        assertEquals(xMean, accumulator.getXMean(), 1e-12 * xMean);
+        assertEquals(yMean, accumulator.getYMean(), 1e-12 * yMean);
+
+        for (int p = 0; p <= 3; p++) {
+            for (int q = 0; p + q <= 3; q++) {
+                RawMomentFilter raw = new RawMomentFilter(p, q);
+                raw.process(image);
+                assertEquals("raw " + p + q, raw.getMoment(), accumulator.getRawMoment(p, q), 1e-12 * raw.getMoment());
+
+                CentralMomentFilter central = new CentralMomentFilter(p, q, xMean, yMean);
+                central.process(image);
+                double expected = central.normalise(m00.getMoment());
+                // central moments of order 1 vanish, compare them against scale of the raw ones
+                double scale = Math.max(Math.abs(expected), raw.getMoment() / Math.pow(m00.getMoment(), (p + q) / 2 + 1));
+                assertEquals("central " + p + q, expected, accumulator.getNormalisedMoment(p, q), 1e-9 * scale);
+            }
+        }
+    }
+
+    public void testUnsupportedOrder() {
+        MomentAccumulator accumulator = new MomentAccumulator();
+        // (0,4) and (1,-1) would alias (1,0) and (0,3)
+        int[][] orders = {{2, 2}, {0, 4}, {1, -1}, {-1, 1}};
+        for (int[] order : orders) {
+            try {
+                accumulator.getRawMoment(order[0], order[1]);
+                fail("raw moment (" + order[0] + "," + order[1] + ") is not supported");
+            } catch (IllegalArgumentException expected) {
+            }
+            try {
+                accumulator.getCentralMoment(order[0], order[1]);
+                fail("central moment (" + order[0] + "," + order[1] + ") is not supported");
+            } catch (IllegalArgumentException expected) {
+            }
+            try {
+                accumulator.getNormalisedMoment(order[0], order[1]);
+                fail("normalised moment (" + order[0] + "," + order[1] + ") is not supported");
+            } catch (IllegalArgumentException expected) {
+            }
+        }
+    }
+}
@@ -29,6 +29,7 @@ import net.sourceforge.javaocr.ocrPlugins.lineExtractor.LineExtractor;
 import net.sourceforge.javaocr.ocrPlugins.handWriting.HandwritingOCR;
 import net.sourceforge.javaocr.ocrPlugins.mseOCR.CharacterRange;
 import net.sourceforge.javaocr.scanner.FoundWord;
+import net.sourceforge.javaocr.scanner.PixelImage;
 import net.sourceforge.javaocr.scanner.TrainingImage;
 
 /**
@@ -57,7 +58,8 @@ public class GUIController
         OCRScanner ocrScanner = new OCRScanner();
         HashMap<Character, ArrayList<TrainingImage>> trainingImages = getTrainingImageMap(imgs);
         ocrScanner.addTrainingImages(trainingImages);
-        BufferedImage targetImage = ImageReader.read(new File(targImageLoc));
+        // read the same way as training images, so grayscale files give both the same pixel values
+        PixelImage targetImage = new PixelImage(ImageReader.readGrayscale(new File(targImageLoc)));
         List<FoundWord> words = ocrScanner.scan(targetImage, 0, 0, 0, 0, null);
         StringBuilder text = new StringBuilder();
         for (FoundWord word : words) {